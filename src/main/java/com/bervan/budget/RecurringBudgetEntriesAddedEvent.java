@@ -0,0 +1,10 @@
+package com.bervan.budget;
+
+import java.time.LocalDate;
+
+/**
+ * Published after the recurring budget entries were copied to a new month, for anything built from
+ * budget entries to refresh.
+ */
+public record RecurringBudgetEntriesAddedEvent(LocalDate date) {
+}
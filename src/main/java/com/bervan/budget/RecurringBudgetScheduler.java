@@ -1,6 +1,7 @@
 package com.bervan.budget;
 
 import com.bervan.logging.JsonLogger;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -15,9 +16,11 @@ public class RecurringBudgetScheduler {
 
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "budget");
     private final BudgetGridService budgetGridService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RecurringBudgetScheduler(BudgetGridService budgetGridService) {
+    public RecurringBudgetScheduler(BudgetGridService budgetGridService, ApplicationEventPublisher eventPublisher) {
         this.budgetGridService = budgetGridService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -35,6 +38,7 @@ public class RecurringBudgetScheduler {
         } catch (Exception e) {
             log.error("Failed to copy recurring entries: {}", e.getMessage(), e);
         }
+        eventPublisher.publishEvent(new RecurringBudgetEntriesAddedEvent(today));
     }
 
     /**
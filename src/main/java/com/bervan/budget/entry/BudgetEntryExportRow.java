@@ -0,0 +1,26 @@
+package com.bervan.budget.entry;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Budget entry as exported, tags joined into one comma separated string. Selected straight from the
+ * database so streamed exports do not keep entities in the persistence context.
+ */
+public record BudgetEntryExportRow(
+        UUID id,
+        String name,
+        String category,
+        String currency,
+        BigDecimal value,
+        LocalDate entryDate,
+        String paymentMethod,
+        String entryType,
+        String notes,
+        String tags,
+        Boolean isRecurring,
+        LocalDateTime modificationDate
+) {
+}
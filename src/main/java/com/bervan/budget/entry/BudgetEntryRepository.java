@@ -1,13 +1,27 @@
 package com.bervan.budget.entry;
 
 import com.bervan.history.model.BaseRepository;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 // Low-Code START
 @Repository
 public interface BudgetEntryRepository extends BaseRepository<BudgetEntry, UUID> {
 
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bervan.budget.entry.BudgetEntryExportRow(e.id, e.name, e.category, e.currency, e.value, e.entryDate, "
+            + "e.paymentMethod, e.entryType, e.notes, listagg(t.name, ', ') WITHIN GROUP (ORDER BY t.name), e.isRecurring, e.modificationDate) "
+            + "FROM BudgetEntry e LEFT JOIN e.tags t WHERE (e.deleted = false OR e.deleted IS NULL) "
+            + "GROUP BY e.id, e.name, e.category, e.currency, e.value, e.entryDate, e.paymentMethod, e.entryType, e.notes, "
+            + "e.isRecurring, e.modificationDate "
+            + "ORDER BY e.entryDate DESC")
+    Stream<BudgetEntryExportRow> streamExportRows();
 }
 // Low-Code END
@@ -4,10 +4,13 @@ import com.bervan.common.search.SearchService;
 import com.bervan.common.service.BaseService;
 import com.bervan.history.model.BaseRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.bervan.logging.JsonLogger;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 // Low-Code START
 @Service
@@ -18,5 +21,16 @@ public class BudgetEntryService extends BaseService<UUID, BudgetEntry> {
         super(repository, searchService);
     }
 
+    /**
+     * Streams every budget entry, newest first, to {@code action} through a database cursor - nothing is
+     * collected, so an export of any size keeps memory flat.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExportRow(Consumer<BudgetEntryExportRow> action) {
+        try (Stream<BudgetEntryExportRow> rows = ((BudgetEntryRepository) repository).streamExportRows()) {
+            rows.forEach(action);
+        }
+    }
+
 }
 // Low-Code END
@@ -0,0 +1,59 @@
+package com.bervan.investments.recommendation;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts a whole run of recommendations in one transaction using JDBC batching, instead of one
+ * save() and one transaction per row.
+ * <p>
+ * Rows are persisted directly, bypassing {@code BaseService.save}, so {@link #prepareForInsert} sets what
+ * save would: a new id, the modification date and the not-deleted flag. {@link InvestmentRecommendation}
+ * is not an owned entity, so there is no owner to add; an owned entity must not be written through here.
+ */
+@Service
+public class InvestmentRecommendationBatchWriter {
+    private static final int BATCH_SIZE = 200;
+    private final EntityManager entityManager;
+
+    public InvestmentRecommendationBatchWriter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Transactional
+    public int insertAll(List<InvestmentRecommendation> recommendations) {
+        if (recommendations.isEmpty()) {
+            return 0;
+        }
+        entityManager.unwrap(Session.class).setJdbcBatchSize(BATCH_SIZE);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < recommendations.size(); i++) {
+            InvestmentRecommendation recommendation = recommendations.get(i);
+            prepareForInsert(recommendation, now);
+            entityManager.persist(recommendation);
+
+            if ((i + 1) % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return recommendations.size();
+    }
+
+    private static void prepareForInsert(InvestmentRecommendation recommendation, LocalDateTime now) {
+        if (recommendation.getId() == null) {
+            recommendation.setId(UUID.randomUUID());
+        }
+        recommendation.setModificationDate(now);
+        recommendation.setDeleted(false);
+    }
+}
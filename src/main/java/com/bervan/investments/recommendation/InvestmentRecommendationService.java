@@ -5,7 +5,7 @@ import com.bervan.common.service.BaseService;
 import com.bervan.history.model.BaseRepository;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
-import com.bervan.investtrack.service.recommendations.ShortTermRecommendationStrategy;
+import com.bervan.investtrack.service.recommendations.StrategyEvaluationEngine;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -14,6 +14,8 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -21,64 +23,57 @@ import java.util.UUID;
 @Service
 public class InvestmentRecommendationService extends BaseService<UUID, InvestmentRecommendation> {
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "recommendations");
-    private final Map<String, ShortTermRecommendationStrategy> strategies;
+    private final StrategyEvaluationEngine strategyEvaluationEngine;
+    private final InvestmentRecommendationBatchWriter batchWriter;
 
-    public InvestmentRecommendationService(BaseRepository<InvestmentRecommendation, UUID> repository, SearchService searchService, Map<String, ShortTermRecommendationStrategy> strategies) {
+    public InvestmentRecommendationService(BaseRepository<InvestmentRecommendation, UUID> repository, SearchService searchService,
+                                           StrategyEvaluationEngine strategyEvaluationEngine,
+                                           InvestmentRecommendationBatchWriter batchWriter) {
         super(repository, searchService);
-        this.strategies = strategies;
+        this.strategyEvaluationEngine = strategyEvaluationEngine;
+        this.batchWriter = batchWriter;
     }
 
     @Scheduled(cron = "0 0 20 * * MON-FRI", zone = "Europe/Warsaw")
     public void saveRecommendations() {
         log.info("Saving recommendations");
-        int saved = 0;
-        ArrayList<String> strategiesNames = new ArrayList<>(strategies.keySet());
         LocalDate date = LocalDate.now();
-        for (String strategiesName : strategiesNames) {
-            ReportData reportData = strategies.get(strategiesName).loadReportData(date, BaseProcessContext.builder().processName("savingRecommendations").build());
-            for (StockPriceData stockPriceData : reportData.getGoodInvestmentsBasedOnRiskyRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getRiskyToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Risky", date, "Good");
-                save(recommendation);
-                saved++;
-            }
-
-            for (StockPriceData stockPriceData : reportData.getBadInvestmentsBasedOnRiskyRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getRiskyToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Risky", date, "Bad");
-                save(recommendation);
-                saved++;
-            }
-
-            for (StockPriceData stockPriceData : reportData.getGoodInvestmentsBasedOnGoodRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getGoodToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Good", date, "Good");
-                save(recommendation);
-                saved++;
-            }
-
-            for (StockPriceData stockPriceData : reportData.getBadInvestmentsBasedOnGoodRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getGoodToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Good", date, "Bad");
-                save(recommendation);
-                saved++;
-            }
-
-            for (StockPriceData stockPriceData : reportData.getGoodInvestmentsBasedOnBestRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getBestToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Best", date, "Good");
-                save(recommendation);
-                saved++;
-            }
+        Map<String, ReportData> reports = strategyEvaluationEngine.evaluateAll(date, BaseProcessContext.builder().processName("savingRecommendations").build());
+        List<InvestmentRecommendation> recommendations = new ArrayList<>();
+        for (Map.Entry<String, ReportData> report : reports.entrySet()) {
+            String strategiesName = report.getKey();
+            ReportData reportData = report.getValue();
+            addRecommendations(recommendations, reportData.getGoodInvestmentsBasedOnRiskyRecommendation(), reportData.getRiskyToInvest(), strategiesName, "Risky", date, "Good");
+            addRecommendations(recommendations, reportData.getBadInvestmentsBasedOnRiskyRecommendation(), reportData.getRiskyToInvest(), strategiesName, "Risky", date, "Bad");
+            addRecommendations(recommendations, reportData.getGoodInvestmentsBasedOnGoodRecommendation(), reportData.getGoodToInvest(), strategiesName, "Good", date, "Good");
+            addRecommendations(recommendations, reportData.getBadInvestmentsBasedOnGoodRecommendation(), reportData.getGoodToInvest(), strategiesName, "Good", date, "Bad");
+            addRecommendations(recommendations, reportData.getGoodInvestmentsBasedOnBestRecommendation(), reportData.getBestToInvest(), strategiesName, "Best", date, "Good");
+            addRecommendations(recommendations, reportData.getBadInvestmentsBasedOnBestRecommendation(), reportData.getBestToInvest(), strategiesName, "Best", date, "Bad");
+        }
+        int saved = batchWriter.insertAll(recommendations);
+        log.info("Saved {} recommendations", saved);
+    }
 
-            for (StockPriceData stockPriceData : reportData.getBadInvestmentsBasedOnBestRecommendation()) {
-                StockPriceData morningRecommendation = reportData.getBestToInvest().stream().filter(e -> e.getSymbol().equals(stockPriceData.getSymbol())).findFirst().get();
-                InvestmentRecommendation recommendation = getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, "Best", date, "Bad");
-                save(recommendation);
-                saved++;
+    /**
+     * Pairs evening outcomes with their morning recommendation through a symbol index built once per tier.
+     */
+    private void addRecommendations(List<InvestmentRecommendation> target, List<StockPriceData> evening, List<StockPriceData> morningTier,
+                                    String strategiesName, String recType, LocalDate date, String result) {
+        if (evening.isEmpty()) {
+            return;
+        }
+        Map<String, StockPriceData> morningBySymbol = new HashMap<>();
+        for (StockPriceData morning : morningTier) {
+            morningBySymbol.putIfAbsent(morning.getSymbol(), morning);
+        }
+        for (StockPriceData stockPriceData : evening) {
+            StockPriceData morningRecommendation = morningBySymbol.get(stockPriceData.getSymbol());
+            if (morningRecommendation == null) {
+                log.warn("No morning recommendation for {} in {}", stockPriceData.getSymbol(), strategiesName);
+                continue;
             }
+            target.add(getInvestmentRecommendation(stockPriceData, strategiesName, morningRecommendation, recType, date, result));
         }
-        log.info("Saved {} recommendations", saved);
     }
 
     private InvestmentRecommendation getInvestmentRecommendation(StockPriceData stockPriceData, String strategiesName,
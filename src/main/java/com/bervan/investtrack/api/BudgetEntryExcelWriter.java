@@ -0,0 +1,75 @@
+package com.bervan.investtrack.api;
+
+import com.bervan.budget.entry.BudgetEntryExportRow;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes budget entries in the layout of the ie-entities export of {@link BudgetEntryDto} - one sheet named
+ * after the DTO, a header row of its field names, one row per entry - so the file imports back through
+ * {@code importAll}. Rows go through a streaming workbook that keeps only {@link #ROW_WINDOW} rows in
+ * memory and flushes the rest to a temp file.
+ */
+class BudgetEntryExcelWriter implements Closeable {
+    static final List<String> COLUMNS = List.of("id", "name", "category", "currency", "value", "entryDate",
+            "paymentMethod", "entryType", "notes", "tags", "isRecurring", "modificationDate");
+    private static final int ROW_WINDOW = 100;
+
+    private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+    private final Sheet sheet;
+    private int nextRow;
+
+    BudgetEntryExcelWriter() {
+        sheet = workbook.createSheet(BudgetEntryDto.class.getSimpleName());
+        Row header = sheet.createRow(nextRow++);
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            header.createCell(i).setCellValue(COLUMNS.get(i));
+        }
+    }
+
+    void append(BudgetEntryExportRow entry) {
+        Row row = sheet.createRow(nextRow++);
+        set(row.createCell(0), entry.id());
+        set(row.createCell(1), entry.name());
+        set(row.createCell(2), entry.category());
+        set(row.createCell(3), entry.currency());
+        set(row.createCell(4), entry.value());
+        set(row.createCell(5), entry.entryDate());
+        set(row.createCell(6), entry.paymentMethod());
+        set(row.createCell(7), entry.entryType());
+        set(row.createCell(8), entry.notes());
+        set(row.createCell(9), entry.tags());
+        set(row.createCell(10), entry.isRecurring());
+        set(row.createCell(11), entry.modificationDate());
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        workbook.write(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private static void set(Cell cell, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Number number) {
+            cell.setCellValue(number.doubleValue());
+        } else if (value instanceof Boolean bool) {
+            cell.setCellValue(bool);
+        } else {
+            cell.setCellValue(value.toString());
+        }
+    }
+}
@@ -13,12 +13,14 @@ import com.bervan.investtrack.service.ReceiptScanningService;
 import com.bervan.logging.JsonLogger;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -35,16 +37,19 @@ public class BudgetEntryRestController extends BaseController<BudgetEntry, UUID>
     private final BudgetEntryService budgetEntryService;
     private final EntityConfigValidator validator;
     private final ReceiptScanningService receiptScanningService;
+    private final InvestDashboardCache dashboardCache;
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
 
     public BudgetEntryRestController(BudgetEntryService budgetEntryService,
                                      EntityConfigValidator validator,
                                      ReceiptScanningService receiptScanningService,
+                                     InvestDashboardCache dashboardCache,
                                      BervanDTOMapper bervanDTOMapper) {
         super(budgetEntryService, bervanDTOMapper, validator, "BudgetEntry");
         this.budgetEntryService = budgetEntryService;
         this.validator = validator;
         this.receiptScanningService = receiptScanningService;
+        this.dashboardCache = dashboardCache;
     }
 
     // Use top-level DTO class BudgetEntryDto and common ValidationErrorResponse
@@ -103,14 +108,33 @@ public class BudgetEntryRestController extends BaseController<BudgetEntry, UUID>
         return ResponseEntity.ok(new MoneyFlowDto(cashFlowV, bankFlowV, fromDate, toDate));
     }
 
+    /**
+     * Exports all entries as XLSX streamed from a database cursor; an export narrowed by filter parameters
+     * is bounded by the filter and goes through the shared search.
+     */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> export(@RequestParam MultiValueMap<String, String> allParams) {
-        return super.exportAll(allParams, BudgetEntryDto.class, "budget-entries", BudgetEntry.class);
+    public ResponseEntity<?> export(@RequestParam MultiValueMap<String, String> allParams) {
+        if (!allParams.isEmpty()) {
+            return super.exportAll(allParams, BudgetEntryDto.class, "budget-entries", BudgetEntry.class);
+        }
+        StreamingResponseBody body = out -> {
+            try (BudgetEntryExcelWriter writer = new BudgetEntryExcelWriter()) {
+                budgetEntryService.forEachExportRow(writer::append);
+                writer.writeTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"budget-entries.xlsx\"")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
     }
 
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ImportResult> importData(@RequestParam("file") MultipartFile file) {
-        return super.importAll(file, BudgetEntryRequestDto.class);
+        ResponseEntity<ImportResult> response = super.importAll(file, BudgetEntryRequestDto.class);
+        // budget entries are not owned - every user's dashboard shows them
+        dashboardCache.invalidateAll();
+        return response;
     }
 
     @GetMapping("/categories")
@@ -149,6 +173,7 @@ public class BudgetEntryRestController extends BaseController<BudgetEntry, UUID>
         model.setModificationDate(LocalDateTime.now());
         model.setDeleted(false);
         BudgetEntry saved = budgetEntryService.save(model);
+        dashboardCache.invalidateAll();
         return ResponseEntity.status(HttpStatus.CREATED).body(toDto(saved));
     }
 
@@ -176,6 +201,7 @@ public class BudgetEntryRestController extends BaseController<BudgetEntry, UUID>
             return ResponseEntity.badRequest().body(new com.bervan.common.controller.ValidationErrorResponse(errors2));
         entry.setModificationDate(LocalDateTime.now());
         BudgetEntry saved = budgetEntryService.save(entry);
+        dashboardCache.invalidateAll();
         return ResponseEntity.ok(toDto(saved));
     }
 
@@ -213,6 +239,7 @@ public class BudgetEntryRestController extends BaseController<BudgetEntry, UUID>
                 .filter(e -> e.getId().equals(id)).findFirst();
         if (match.isEmpty()) return ResponseEntity.notFound().build();
         budgetEntryService.delete(match.get());
+        dashboardCache.invalidateAll();
         return ResponseEntity.noContent().build();
     }
 
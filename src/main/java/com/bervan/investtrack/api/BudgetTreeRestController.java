@@ -5,7 +5,7 @@ import com.bervan.budget.entry.BudgetEntryService;
 import com.bervan.common.search.SearchRequest;
 import com.bervan.common.search.model.SearchOperation;
 import com.bervan.common.search.model.SortDirection;
-import com.bervan.investtrack.service.CurrencyConverter;
+import com.bervan.investtrack.service.FxRateHistory;
 import jakarta.annotation.security.RolesAllowed;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -24,11 +24,11 @@ import java.util.stream.Collectors;
 public class BudgetTreeRestController {
 
     private final BudgetEntryService budgetEntryService;
-    private final CurrencyConverter currencyConverter;
+    private final FxRateHistory fxRateHistory;
 
-    public BudgetTreeRestController(BudgetEntryService budgetEntryService, CurrencyConverter currencyConverter) {
+    public BudgetTreeRestController(BudgetEntryService budgetEntryService, FxRateHistory fxRateHistory) {
         this.budgetEntryService = budgetEntryService;
-        this.currencyConverter = currencyConverter;
+        this.fxRateHistory = fxRateHistory;
     }
 
     record EntryDto(UUID id, String name, String entryType, String paymentMethod,
@@ -114,14 +114,14 @@ public class BudgetTreeRestController {
 
     private BigDecimal toPlnSigned(BudgetEntry e) {
         if (e.getValue() == null) return BigDecimal.ZERO;
-        BigDecimal pln = toPlnSafe(e.getValue(), e.getCurrency());
+        BigDecimal pln = toPlnSafe(e.getValue(), e.getCurrency(), e.getEntryDate());
         return "Expense".equals(e.getEntryType()) ? pln.negate() : pln;
     }
 
-    private BigDecimal toPlnSafe(BigDecimal amount, String currency) {
+    private BigDecimal toPlnSafe(BigDecimal amount, String currency, LocalDate date) {
         if (currency == null || "PLN".equals(currency)) return amount;
         try {
-            return currencyConverter.convert(amount, CurrencyConverter.Currency.of(currency), CurrencyConverter.Currency.PLN);
+            return fxRateHistory.convert(amount, currency, "PLN", date);
         } catch (Exception e) {
             return amount;
         }
@@ -2,17 +2,23 @@ package com.bervan.investtrack.api;
 
 import com.bervan.investtrack.model.Wallet;
 import com.bervan.investtrack.model.WalletSnapshot;
+import com.bervan.investtrack.service.WalletMetricsService;
 import com.bervan.investtrack.service.WalletService;
+import com.bervan.investtrack.service.WalletSnapshotExportRow;
 import com.bervan.investtrack.service.WalletSnapshotService;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,59 +30,50 @@ public class DataIERestController {
 
     private final WalletSnapshotService snapshotService;
     private final WalletService walletService;
+    private final WalletMetricsService metricsService;
+    private final InvestDashboardCache dashboardCache;
     private final ObjectMapper mapper;
 
-    public DataIERestController(WalletSnapshotService snapshotService, WalletService walletService, ObjectMapper mapper) {
+    public DataIERestController(WalletSnapshotService snapshotService, WalletService walletService,
+                                WalletMetricsService metricsService, InvestDashboardCache dashboardCache,
+                                ObjectMapper mapper) {
         this.snapshotService = snapshotService;
         this.walletService = walletService;
+        this.metricsService = metricsService;
+        this.dashboardCache = dashboardCache;
         this.mapper = mapper;
     }
 
-    record SnapshotExportDto(
-            UUID id,
-            UUID walletId,
-            String walletName,
-            LocalDate snapshotDate,
-            BigDecimal portfolioValue,
-            BigDecimal monthlyDeposit,
-            BigDecimal monthlyWithdrawal,
-            BigDecimal monthlyEarnings,
-            String notes
-    ) {}
-
     record ImportResultDto(int imported, int skipped, List<String> errors) {}
 
-    private SnapshotExportDto toExportDto(WalletSnapshot s) {
-        return new SnapshotExportDto(
-                s.getId(),
-                s.getWallet() != null ? s.getWallet().getId() : null,
-                s.getWallet() != null ? s.getWallet().getName() : null,
-                s.getSnapshotDate(),
-                s.getPortfolioValue(),
-                s.getMonthlyDeposit(),
-                s.getMonthlyWithdrawal(),
-                s.getMonthlyEarnings(),
-                s.getNotes()
-        );
-    }
-
     @GetMapping("/export")
-    public ResponseEntity<byte[]> export(@RequestParam(defaultValue = "json") String format) {
-
-        try {
-            Set<WalletSnapshot> all = snapshotService.load(Pageable.ofSize(1000000));
-            List<SnapshotExportDto> dtos = all.stream().map(this::toExportDto).toList();
-
-            byte[] data = mapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(dtos);
-            String filename = "wallet-snapshots-" + LocalDate.now() + ".json";
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "json") String format) {
+        // wallets are resolved on the request thread, rows are streamed from the database while writing
+        List<UUID> walletIds = walletService.load(Pageable.ofSize(1000000)).stream().map(Wallet::getId).toList();
+        String filename = "wallet-snapshots-" + LocalDate.now() + ".json";
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter rowWriter = mapper.writerFor(WalletSnapshotExportRow.class);
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartArray();
+                snapshotService.forEachExportRow(walletIds, row -> {
+                    try {
+                        rowWriter.writeValue(generator, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(data);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @PostMapping("/import")
@@ -93,6 +90,7 @@ public class DataIERestController {
             Set<Wallet> wallets = walletService.load(Pageable.ofSize(10000));
             Map<UUID, Wallet> walletById = new HashMap<>();
             for (Wallet w : wallets) walletById.put(w.getId(), w);
+            Set<UUID> importedWallets = new LinkedHashSet<>();
 
             for (Map<String, Object> item : items) {
                 try {
@@ -115,6 +113,7 @@ public class DataIERestController {
                     snap.setDeleted(false);
 
                     snapshotService.save(snap);
+                    importedWallets.add(walletId);
                     imported++;
                 } catch (Exception e) {
                     skipped++;
@@ -122,6 +121,14 @@ public class DataIERestController {
                 }
             }
 
+            // bulk import - metrics are rebuilt once per wallet instead of per snapshot
+            for (UUID walletId : importedWallets) {
+                metricsService.rebuild(walletId, snapshotService.findByWalletId(walletId));
+            }
+            if (!importedWallets.isEmpty()) {
+                dashboardCache.invalidate();
+            }
+
             return ResponseEntity.ok(new ImportResultDto(imported, skipped, errors));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ImportResultDto(0, 0, List.of("Parse error: " + e.getMessage())));
@@ -0,0 +1,100 @@
+package com.bervan.investtrack.api;
+
+import com.bervan.budget.RecurringBudgetEntriesAddedEvent;
+import com.bervan.common.service.AuthService;
+import com.bervan.investtrack.service.CurrencyConverter;
+import com.bervan.investtrack.service.ETFDataService;
+import com.bervan.investtrack.service.WalletService;
+import com.bervan.logging.JsonLogger;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard payload per owner. An entry is dropped when the owner changes a wallet or a snapshot, and
+ * for everyone when budget entries (not owned, every dashboard shows the same ones), FX rates or
+ * benchmark data change; the owner's next dashboard load computes it again. Nothing is computed in the background - that would
+ * need the owner's authentication outside their request. Each owner has a version number bumped on every
+ * invalidation - a result computed while a mutation happened is never stored as current.
+ */
+@Service
+public class InvestDashboardCache {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final WalletService walletService;
+    private final InvestDashboardHelper investDashboardHelper;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<UUID, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public InvestDashboardCache(WalletService walletService, InvestDashboardHelper investDashboardHelper,
+                                CurrencyConverter currencyConverter, ETFDataService ETFDataService) {
+        this.walletService = walletService;
+        this.investDashboardHelper = investDashboardHelper;
+        currencyConverter.addRatesListener(this::invalidateAll);
+        ETFDataService.addRefreshListener(this::invalidateAll);
+    }
+
+    public Map<String, Object> getDashboard() {
+        UUID owner = loggedUserId();
+        long version = version(owner).get();
+        Entry entry = entries.get(owner);
+        if (entry != null && entry.version() == version) {
+            return entry.dashboard();
+        }
+        return compute(owner, version);
+    }
+
+    /**
+     * Drops the logged user's dashboard after they changed their own wallets or snapshots.
+     */
+    public void invalidate() {
+        invalidate(loggedUserId());
+    }
+
+    /**
+     * Drops every dashboard, for changes to data all of them are built from.
+     */
+    public void invalidateAll() {
+        versions.keySet().forEach(this::invalidate);
+    }
+
+    @EventListener
+    public void onRecurringBudgetEntriesAdded(RecurringBudgetEntriesAddedEvent event) {
+        // new entries, and the dashboard's 12-month budget window has moved
+        invalidateAll();
+    }
+
+    private void invalidate(UUID owner) {
+        version(owner).incrementAndGet();
+        entries.remove(owner);
+    }
+
+    private Map<String, Object> compute(UUID owner, long version) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> dashboard = investDashboardHelper.getDashboard(walletService.loadAllWithSnapshots());
+
+        // stored only if no invalidation happened meanwhile
+        entries.compute(owner, (id, current) -> {
+            if (version(id).get() == version) {
+                return new Entry(version, dashboard);
+            }
+            return current;
+        });
+        log.debug("Computed dashboard of {} in {} ms", owner, System.currentTimeMillis() - start);
+        return dashboard;
+    }
+
+    private AtomicLong version(UUID owner) {
+        return versions.computeIfAbsent(owner, id -> new AtomicLong());
+    }
+
+    private static UUID loggedUserId() {
+        return AuthService.getLoggedUser().get().getId();
+    }
+
+    private record Entry(long version, Map<String, Object> dashboard) {
+    }
+}
@@ -5,30 +5,49 @@ import com.bervan.investtrack.model.WalletSnapshot;
 import com.bervan.investtrack.service.BudgetChartDataService;
 import com.bervan.investtrack.service.CurrencyConverter;
 import com.bervan.investtrack.service.ETFDataService;
+import com.bervan.investtrack.service.FxRateHistory;
 import com.bervan.investtrack.service.InvestmentCalculationService;
+import com.bervan.investtrack.service.PortfolioSeries;
+import com.bervan.investtrack.service.WalletWithSnapshots;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
+import static com.bervan.investtrack.service.ETFDataService.*;
+
 
 @Service
 public class InvestDashboardHelper {
 
+    private static final String PORTFOLIO_XIRR_KEY = "portfolio";
+    // response key -> benchmark, evaluated together in one pass over the dates
+    private static final Map<String, ETFDataService.Benchmark> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("sp500", new ETFDataService.Benchmark(SP500_TICKER, "USD"));
+        BENCHMARKS.put("wig20", new ETFDataService.Benchmark(WIG20_TICKER, "PLN"));
+        BENCHMARKS.put("nasdaq", new ETFDataService.Benchmark(NASDAQ_TICKER, "USD"));
+        BENCHMARKS.put("dji", new ETFDataService.Benchmark(DJI_TICKER, "USD"));
+        BENCHMARKS.put("fixedDeposit3_5", new ETFDataService.Benchmark(FIXED_DEPOSIT_TICKER_3_5, "PLN"));
+    }
+
     private final ETFDataService ETFDataService;
     private final InvestmentCalculationService calculationService;
     private final CurrencyConverter currencyConverter;
+    private final FxRateHistory fxRateHistory;
     private final BudgetChartDataService budgetChartDataService;
 
     public InvestDashboardHelper(
-            ETFDataService ETFDataService, InvestmentCalculationService calculationService, CurrencyConverter currencyConverter, BudgetChartDataService budgetChartDataService) {
+            ETFDataService ETFDataService, InvestmentCalculationService calculationService, CurrencyConverter currencyConverter,
+            FxRateHistory fxRateHistory, BudgetChartDataService budgetChartDataService) {
         this.ETFDataService = ETFDataService;
         this.calculationService = calculationService;
         this.currencyConverter = currencyConverter;
+        this.fxRateHistory = fxRateHistory;
         this.budgetChartDataService = budgetChartDataService;
     }
 
@@ -38,113 +57,220 @@ public class InvestDashboardHelper {
 
     private BigDecimal toPln(BigDecimal amount, String currency) {
         if (amount == null) return BigDecimal.ZERO;
-        return currencyConverter.convert(amount, CurrencyConverter.Currency.of(currency), CurrencyConverter.Currency.PLN);
+        return currencyConverter.convert(amount, currency, "PLN");
+    }
+
+    /** At the rate of the given day, for amounts of past snapshots. */
+    private BigDecimal toPln(BigDecimal amount, String currency, LocalDate date) {
+        return fxRateHistory.convert(amount, currency, "PLN", date);
     }
 
     private BigDecimal round(BigDecimal v) {
         return v.setScale(2, RoundingMode.HALF_UP);
     }
 
-    private double monthsSpan(List<Wallet> wallets) {
-        Optional<LocalDate> min = wallets.stream()
-                .flatMap(w -> w.getSnapshots().stream())
-                .map(WalletSnapshot::getSnapshotDate).min(Comparator.naturalOrder());
-        Optional<LocalDate> max = wallets.stream()
-                .flatMap(w -> w.getSnapshots().stream())
-                .map(WalletSnapshot::getSnapshotDate).max(Comparator.naturalOrder());
-        if (min.isEmpty() || max.isEmpty()) return 1;
-        return ChronoUnit.MONTHS.between(min.get(), max.get()) + 1;
+    private BigDecimal money(double v) {
+        return BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private List<Map<String, Object>> buildTimeSeries(
-            Map<LocalDate, InvestmentCalculationService.PortfolioPoint> ts) {
+    private double monthsSpan(List<WalletColumns> wallets) {
+        LocalDate min = null;
+        LocalDate max = null;
+        for (WalletColumns w : wallets) {
+            if (w.snapshots().isEmpty()) continue;
+            LocalDate first = w.snapshots().get(0).getSnapshotDate();
+            LocalDate last = w.snapshots().get(w.snapshots().size() - 1).getSnapshotDate();
+            if (min == null || first.isBefore(min)) min = first;
+            if (max == null || last.isAfter(max)) max = last;
+        }
+        if (min == null) return 1;
+        return ChronoUnit.MONTHS.between(min, max) + 1;
+    }
+
+    private List<Map<String, Object>> buildTimeSeries(PortfolioSeries ts) {
         List<Map<String, Object>> list = new ArrayList<>();
-        BigDecimal cum = BigDecimal.ZERO;
-        for (Map.Entry<LocalDate, InvestmentCalculationService.PortfolioPoint> e : ts.entrySet()) {
-            cum = cum.add(e.getValue().cashFlow());
+        double cum = 0;
+        for (int i = 0; i < ts.size(); i++) {
+            cum += ts.cashFlow(i);
             Map<String, Object> point = new LinkedHashMap<>();
-            point.put("date", e.getKey().toString());
-            point.put("balance", e.getValue().balance().setScale(2, RoundingMode.HALF_UP));
-            point.put("cumDeposit", cum.setScale(2, RoundingMode.HALF_UP));
+            point.put("date", ts.date(i).toString());
+            point.put("balance", money(ts.balance(i)));
+            point.put("cumDeposit", money(cum));
             list.add(point);
         }
         return list;
     }
 
-    private List<Map<String, Object>> buildTimeSeriesWithBenchmarks(
-            Map<LocalDate, InvestmentCalculationService.PortfolioPoint> ts) {
+    /**
+     * Deposits as outflows, the final balance as inflow - the same convention as
+     * {@link InvestmentCalculationService#snapshotsToCashFlows(List)}.
+     */
+    private List<InvestmentCalculationService.CashFlow> portfolioCashFlows(PortfolioSeries ts) {
+        List<InvestmentCalculationService.CashFlow> cashFlows = new ArrayList<>();
+        for (int i = 0; i < ts.size(); i++) {
+            if (ts.cashFlow(i) != 0) {
+                cashFlows.add(new InvestmentCalculationService.CashFlow(ts.date(i), BigDecimal.valueOf(-ts.cashFlow(i))));
+            }
+        }
+        if (!ts.isEmpty()) {
+            int last = ts.size() - 1;
+            cashFlows.add(new InvestmentCalculationService.CashFlow(ts.date(last), BigDecimal.valueOf(ts.balance(last))));
+        }
+        return cashFlows;
+    }
+
+    /**
+     * All benchmarks for the given dates and flows, keyed like {@link #BENCHMARKS}; zeros where there is no data.
+     */
+    private Map<String, double[]> benchmarks(List<LocalDate> dates, double[] netDeposits, String currency) {
+        double[][] curves = ETFDataService.calculateBenchmarkCurves(
+                new ArrayList<>(BENCHMARKS.values()), dates, netDeposits, currency);
+        Map<String, double[]> result = new LinkedHashMap<>();
+        int b = 0;
+        for (String key : BENCHMARKS.keySet()) {
+            double[] curve = curves[b++];
+            result.put(key, curve != null ? curve : new double[dates.size()]);
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> buildTimeSeriesWithBenchmarks(PortfolioSeries ts) {
         List<Map<String, Object>> list = new ArrayList<>();
-        BigDecimal cum = BigDecimal.ZERO;
+        double cum = 0;
 
-        List<String> datesDdMmYyyy = new ArrayList<>();
-        List<BigDecimal> netDeposits = new ArrayList<>();
-        DateTimeFormatter bfmt = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        for (LocalDate date : ts.keySet()) {
-            datesDdMmYyyy.add(date.format(bfmt));
-            netDeposits.add(ts.get(date).cashFlow());
+        List<LocalDate> dates = new ArrayList<>(ts.size());
+        double[] netDeposits = new double[ts.size()];
+        for (int i = 0; i < ts.size(); i++) {
+            dates.add(ts.date(i));
+            netDeposits[i] = ts.cashFlow(i);
         }
+        Map<String, double[]> benchmarkValues = benchmarks(dates, netDeposits, "PLN");
 
-        List<BigDecimal> sp500Vals = ETFDataService.calculateBenchmarkValuesForTicker(
-                ETFDataService.SP500_TICKER, "USD", datesDdMmYyyy, netDeposits, "PLN");
-        List<BigDecimal> wig20Vals = ETFDataService.calculateBenchmarkValuesForTicker(
-                ETFDataService.WIG20_TICKER, "PLN", datesDdMmYyyy, netDeposits, "PLN");
-        List<BigDecimal> nasdaqVals = ETFDataService.calculateBenchmarkValuesForTicker(
-                ETFDataService.NASDAQ_TICKER, "USD", datesDdMmYyyy, netDeposits, "PLN");
-        List<BigDecimal> djiVals = ETFDataService.calculateBenchmarkValuesForTicker(
-                ETFDataService.DJI_TICKER, "USD", datesDdMmYyyy, netDeposits, "PLN");
-        List<BigDecimal> fixedDeposit3_5 = ETFDataService.calculateBenchmarkValuesForTicker(
-                ETFDataService.FIXED_DEPOSIT_TICKER_3_5, "PLN", datesDdMmYyyy, netDeposits, "PLN");
-
-        int i = 0;
-        for (Map.Entry<LocalDate, InvestmentCalculationService.PortfolioPoint> e : ts.entrySet()) {
-            cum = cum.add(e.getValue().cashFlow());
+        for (int i = 0; i < ts.size(); i++) {
+            cum += ts.cashFlow(i);
             Map<String, Object> point = new LinkedHashMap<>();
-            point.put("date", e.getKey().toString());
-            point.put("balance", e.getValue().balance().setScale(2, RoundingMode.HALF_UP));
-            point.put("cumDeposit", cum.setScale(2, RoundingMode.HALF_UP));
-            point.put("sp500", i < sp500Vals.size() ? sp500Vals.get(i).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            point.put("wig20", i < wig20Vals.size() ? wig20Vals.get(i).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            point.put("nasdaq", i < nasdaqVals.size() ? nasdaqVals.get(i).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            point.put("dji", i < djiVals.size() ? djiVals.get(i).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
-            point.put("fixedDeposit3_5", i < fixedDeposit3_5.size() ? fixedDeposit3_5.get(i).setScale(2, RoundingMode.HALF_UP) : BigDecimal.ZERO);
+            point.put("date", ts.date(i).toString());
+            point.put("balance", money(ts.balance(i)));
+            point.put("cumDeposit", money(cum));
+            for (Map.Entry<String, double[]> benchmark : benchmarkValues.entrySet()) {
+                point.put(benchmark.getKey(), money(benchmark.getValue()[i]));
+            }
             list.add(point);
-            i++;
         }
         return list;
     }
 
-    private Map<String, BigDecimal> buildHeatmap(
-            Map<LocalDate, InvestmentCalculationService.PortfolioPoint> ts) {
+    private Map<String, BigDecimal> buildHeatmap(PortfolioSeries ts) {
         Map<String, BigDecimal> result = new LinkedHashMap<>();
-        List<LocalDate> dates = new ArrayList<>(ts.keySet());
-        for (int i = 1; i < dates.size(); i++) {
-            LocalDate prev = dates.get(i - 1);
-            LocalDate curr = dates.get(i);
-            InvestmentCalculationService.PortfolioPoint prevPt = ts.get(prev);
-            InvestmentCalculationService.PortfolioPoint currPt = ts.get(curr);
-            BigDecimal beginValue = prevPt.balance().add(currPt.cashFlow());
-            if (beginValue.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal ret = currPt.balance().subtract(beginValue)
-                        .divide(beginValue, 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100));
+        for (int i = 1; i < ts.size(); i++) {
+            double beginValue = ts.balance(i - 1) + ts.cashFlow(i);
+            if (beginValue > 0) {
+                LocalDate curr = ts.date(i);
                 String key = String.format("%d-%02d", curr.getYear(), curr.getMonthValue());
-                result.put(key, ret.setScale(2, RoundingMode.HALF_UP));
+                result.put(key, money((ts.balance(i) - beginValue) / beginValue * 100));
             }
         }
         return result;
     }
 
-    public Map<String, Object> getDashboard(List<Wallet> allWallets) {
-        List<Wallet> investWallets = allWallets.stream().filter(Wallet::isInvestmentLike).toList();
-        List<Wallet> savingsWallets = allWallets.stream().filter(w -> !w.isInvestmentLike()).toList();
+    /**
+     * Per-wallet series (Balance / Earnings tabs); amounts in PLN, benchmarks bought in the wallet currency.
+     */
+    private List<Map<String, Object>> buildWalletSeries(WalletColumns w) {
+        List<WalletSnapshot> snaps = w.snapshots();
+        List<LocalDate> dates = new ArrayList<>(snaps.size());
+        List<BigDecimal> netDeposits = new ArrayList<>(snaps.size());
+        double[] netFlows = new double[snaps.size()];
+        for (int idx = 0; idx < snaps.size(); idx++) {
+            dates.add(snaps.get(idx).getSnapshotDate());
+            netDeposits.add(netFlow(snaps.get(idx)));
+            netFlows[idx] = netDeposits.get(idx).doubleValue();
+        }
+        String currency = w.wallet().getCurrency();
+        Map<String, double[]> benchmarkValues = benchmarks(dates, netFlows, currency);
+
+        List<Map<String, Object>> series = new ArrayList<>(snaps.size());
+        BigDecimal cum = BigDecimal.ZERO;
+        for (int idx = 0; idx < snaps.size(); idx++) {
+            WalletSnapshot snap = snaps.get(idx);
+            LocalDate date = snap.getSnapshotDate();
+            cum = cum.add(toPln(netDeposits.get(idx), currency, date));
+            BigDecimal pv = snap.getPortfolioValue() != null ? snap.getPortfolioValue() : BigDecimal.ZERO;
+            Map<String, Object> pt = new LinkedHashMap<>();
+            pt.put("date", date.toString());
+            pt.put("balance", toPln(pv, currency, date).setScale(2, RoundingMode.HALF_UP));
+            pt.put("cumDeposit", cum.setScale(2, RoundingMode.HALF_UP));
+            for (Map.Entry<String, double[]> benchmark : benchmarkValues.entrySet()) {
+                // rounded in the wallet currency first, as the amounts it is shown next to
+                BigDecimal valuePln = toPln(money(benchmark.getValue()[idx]), currency, date);
+                pt.put(benchmark.getKey(), valuePln.setScale(2, RoundingMode.HALF_UP));
+            }
+            series.add(pt);
+        }
+        return series;
+    }
+
+    /**
+     * Deposits as outflows, the final value as inflow, in the wallet currency.
+     */
+    private List<InvestmentCalculationService.CashFlow> walletCashFlows(WalletColumns w) {
+        List<InvestmentCalculationService.CashFlow> cashFlows = new ArrayList<>();
+        for (WalletSnapshot snap : w.snapshots()) {
+            BigDecimal net = netFlow(snap);
+            if (net.signum() != 0) {
+                cashFlows.add(new InvestmentCalculationService.CashFlow(snap.getSnapshotDate(), net.negate()));
+            }
+        }
+        if (!w.snapshots().isEmpty()) {
+            WalletSnapshot last = w.snapshots().get(w.snapshots().size() - 1);
+            cashFlows.add(new InvestmentCalculationService.CashFlow(last.getSnapshotDate(),
+                    last.getPortfolioValue() != null ? last.getPortfolioValue() : BigDecimal.ZERO));
+        }
+        return cashFlows;
+    }
+
+    private static BigDecimal netFlow(WalletSnapshot snap) {
+        BigDecimal dep = snap.getMonthlyDeposit() != null ? snap.getMonthlyDeposit() : BigDecimal.ZERO;
+        BigDecimal wdr = snap.getMonthlyWithdrawal() != null ? snap.getMonthlyWithdrawal() : BigDecimal.ZERO;
+        return dep.subtract(wdr);
+    }
+
+    private WalletColumns columns(WalletWithSnapshots source) {
+        Wallet wallet = source.wallet();
+        List<WalletSnapshot> snaps = source.snapshots().stream()
+                .filter(s -> s.getSnapshotDate() != null)
+                .sorted(Comparator.comparing(WalletSnapshot::getSnapshotDate))
+                .toList();
+        String currency = wallet.getCurrency();
+        // deposits cost what they cost in PLN on their day; only the current value is at today's rate
+        BigDecimal netDepositsPln = BigDecimal.ZERO;
+        for (WalletSnapshot snap : snaps) {
+            netDepositsPln = netDepositsPln.add(toPln(netFlow(snap), currency, snap.getSnapshotDate()));
+        }
+        double plnRate = currencyConverter.rate(currency, "PLN");
+        PortfolioSeries.Column column = PortfolioSeries.Column.of(snaps, day -> {
+            double rate = fxRateHistory.rate(day, currency, "PLN");
+            return rate > 0 && rate < Double.POSITIVE_INFINITY ? rate : plnRate;
+        });
+        return new WalletColumns(wallet, snaps, column,
+                toPln(source.getCurrentValue(), currency), netDepositsPln, source.getReturnRate());
+    }
+
+    public Map<String, Object> getDashboard(List<WalletWithSnapshots> allWallets) {
+        // every wallet is sorted and converted to PLN once; all series and KPIs are derived from these columns
+        List<WalletColumns> allColumns = new ArrayList<>(allWallets.size());
+        for (WalletWithSnapshots w : allWallets) {
+            allColumns.add(columns(w));
+        }
+        List<WalletColumns> investColumns = allColumns.stream().filter(w -> w.wallet().isInvestmentLike()).toList();
+        List<WalletColumns> savingsColumns = allColumns.stream().filter(w -> !w.wallet().isInvestmentLike()).toList();
 
         // ── Investment KPIs ──────────────────────────────────────────────────────
         BigDecimal investBalance = BigDecimal.ZERO;
         BigDecimal investNetDeposits = BigDecimal.ZERO;
-        for (Wallet w : investWallets) {
-            investBalance = investBalance.add(toPln(w.getCurrentValue(), w.getCurrency()));
-            investNetDeposits = investNetDeposits.add(
-                    toPln(w.getTotalDeposits(), w.getCurrency()));
+        for (WalletColumns w : investColumns) {
+            investBalance = investBalance.add(w.currentValuePln());
+            investNetDeposits = investNetDeposits.add(w.netDepositsPln());
         }
         BigDecimal investReturn = investBalance.subtract(investNetDeposits);
         BigDecimal investReturnPct = investNetDeposits.compareTo(BigDecimal.ZERO) > 0
@@ -152,12 +278,11 @@ public class InvestDashboardHelper {
                 : BigDecimal.ZERO;
 
         // TWR for investments
-        Map<LocalDate, InvestmentCalculationService.PortfolioPoint> investTs =
-                calculationService.buildAggregatedTimeSeries(investWallets, this::toPln);
+        PortfolioSeries investTs = PortfolioSeries.aggregate(investColumns.stream().map(WalletColumns::column).toList());
         BigDecimal investTwr = pct(calculationService.calculateAggregatedTWR(investTs));
 
         // CAGR for investments (first snapshot to last)
-        double investYears = monthsSpan(investWallets) / 12.0;
+        double investYears = monthsSpan(investColumns) / 12.0;
         BigDecimal investCagr = BigDecimal.ZERO;
         if (investYears > 0.1 && investNetDeposits.compareTo(BigDecimal.ZERO) > 0) {
             investCagr = pct(calculationService.calculateCAGR(investNetDeposits, investBalance, Math.max(investYears, 0.1)));
@@ -166,10 +291,9 @@ public class InvestDashboardHelper {
         // ── Savings KPIs ────────────────────────────────────────────────────────
         BigDecimal savingsBalance = BigDecimal.ZERO;
         BigDecimal savingsNetDeposits = BigDecimal.ZERO;
-        for (Wallet w : savingsWallets) {
-            savingsBalance = savingsBalance.add(toPln(w.getCurrentValue(), w.getCurrency()));
-            savingsNetDeposits = savingsNetDeposits.add(
-                    toPln(w.getTotalDeposits(), w.getCurrency()));
+        for (WalletColumns w : savingsColumns) {
+            savingsBalance = savingsBalance.add(w.currentValuePln());
+            savingsNetDeposits = savingsNetDeposits.add(w.netDepositsPln());
         }
         BigDecimal savingsGrowth = savingsBalance.subtract(savingsNetDeposits);
         BigDecimal netWorth = investBalance.add(savingsBalance);
@@ -179,18 +303,17 @@ public class InvestDashboardHelper {
         List<Map<String, Object>> investTimeSeries = buildTimeSeriesWithBenchmarks(investTs);
 
         // all wallets (net worth)
-        Map<LocalDate, InvestmentCalculationService.PortfolioPoint> allTs =
-                calculationService.buildAggregatedTimeSeries(allWallets, this::toPln);
+        PortfolioSeries allTs = PortfolioSeries.aggregate(allColumns.stream().map(WalletColumns::column).toList());
         List<Map<String, Object>> netWorthTimeSeries = buildTimeSeriesWithBenchmarks(allTs);
 
         // ── Asset allocation ────────────────────────────────────────────────────
         List<Map<String, Object>> allocation = new ArrayList<>();
-        for (Wallet w : allWallets) {
-            BigDecimal valuePln = toPln(w.getCurrentValue(), w.getCurrency());
+        for (WalletColumns w : allColumns) {
+            BigDecimal valuePln = w.currentValuePln();
             if (valuePln.compareTo(BigDecimal.ZERO) > 0) {
                 Map<String, Object> entry = new LinkedHashMap<>();
-                entry.put("name", w.getName());
-                entry.put("type", w.getWalletType());
+                entry.put("name", w.wallet().getName());
+                entry.put("type", w.wallet().getWalletType());
                 entry.put("valuePln", valuePln.setScale(2, RoundingMode.HALF_UP));
                 allocation.add(entry);
             }
@@ -214,70 +337,25 @@ public class InvestDashboardHelper {
             budgetSeries.add(point);
         }
 
+        // ── XIRR for the portfolio and every wallet, solved in one batch ───────
+        Map<String, List<InvestmentCalculationService.CashFlow>> xirrCashFlows = new LinkedHashMap<>();
+        xirrCashFlows.put(PORTFOLIO_XIRR_KEY, portfolioCashFlows(investTs));
+        for (WalletColumns w : allColumns) {
+            xirrCashFlows.put(w.wallet().getId().toString(), walletCashFlows(w));
+        }
+        Map<String, BigDecimal> xirr = calculationService.calculateXIRR(xirrCashFlows);
+
         // ── Per-wallet time series (Balance / Earnings tabs) ───────────────────
         List<Map<String, Object>> walletSeriesList = new ArrayList<>();
-        for (Wallet w : allWallets) {
-            List<WalletSnapshot> snaps = w.getSnapshots().stream()
-                    .filter(s -> s.getSnapshotDate() != null)
-                    .sorted(Comparator.comparing(WalletSnapshot::getSnapshotDate))
-                    .toList();
-            BigDecimal cum = BigDecimal.ZERO;
-            List<Map<String, Object>> series = new ArrayList<>();
-
-            List<String> datesDdMmYyyy = new ArrayList<>();
-            List<BigDecimal> netDeposits = new ArrayList<>();
-            java.time.format.DateTimeFormatter bfmt = java.time.format.DateTimeFormatter.ofPattern("dd-MM-yyyy");
-            for (WalletSnapshot snap : snaps) {
-                datesDdMmYyyy.add(snap.getSnapshotDate().format(bfmt));
-                BigDecimal dep = snap.getMonthlyDeposit() != null ? snap.getMonthlyDeposit() : BigDecimal.ZERO;
-                BigDecimal wdr = snap.getMonthlyWithdrawal() != null ? snap.getMonthlyWithdrawal() : BigDecimal.ZERO;
-                netDeposits.add(dep.subtract(wdr));
-            }
-
-            List<BigDecimal> sp500Vals = ETFDataService.calculateBenchmarkValuesForTicker(
-                    ETFDataService.SP500_TICKER, "USD", datesDdMmYyyy, netDeposits, w.getCurrency());
-            List<BigDecimal> wig20Vals = ETFDataService.calculateBenchmarkValuesForTicker(
-                    ETFDataService.WIG20_TICKER, "PLN", datesDdMmYyyy, netDeposits, w.getCurrency());
-            List<BigDecimal> nasdaqVals = ETFDataService.calculateBenchmarkValuesForTicker(
-                    ETFDataService.NASDAQ_TICKER, "USD", datesDdMmYyyy, netDeposits, w.getCurrency());
-            List<BigDecimal> djiVals = ETFDataService.calculateBenchmarkValuesForTicker(
-                    ETFDataService.DJI_TICKER, "USD", datesDdMmYyyy, netDeposits, w.getCurrency());
-            List<BigDecimal> fixedDeposit3_5Vals = ETFDataService.calculateBenchmarkValuesForTicker(
-                    ETFDataService.FIXED_DEPOSIT_TICKER_3_5, "PLN", datesDdMmYyyy, netDeposits, w.getCurrency());
-
-            int idx = 0;
-            for (WalletSnapshot snap : snaps) {
-                BigDecimal dep = snap.getMonthlyDeposit() != null ? snap.getMonthlyDeposit() : BigDecimal.ZERO;
-                BigDecimal wdr = snap.getMonthlyWithdrawal() != null ? snap.getMonthlyWithdrawal() : BigDecimal.ZERO;
-                cum = cum.add(toPln(dep.subtract(wdr), w.getCurrency()));
-                BigDecimal pv = snap.getPortfolioValue() != null ? snap.getPortfolioValue() : BigDecimal.ZERO;
-                Map<String, Object> pt = new LinkedHashMap<>();
-                pt.put("date", snap.getSnapshotDate().toString());
-                pt.put("balance", toPln(pv, w.getCurrency()).setScale(2, RoundingMode.HALF_UP));
-                pt.put("cumDeposit", cum.setScale(2, RoundingMode.HALF_UP));
-
-                BigDecimal sp500Pln = idx < sp500Vals.size() ? toPln(sp500Vals.get(idx), w.getCurrency()) : BigDecimal.ZERO;
-                BigDecimal wig20Pln = idx < wig20Vals.size() ? toPln(wig20Vals.get(idx), w.getCurrency()) : BigDecimal.ZERO;
-                BigDecimal nasdaqPln = idx < nasdaqVals.size() ? toPln(nasdaqVals.get(idx), w.getCurrency()) : BigDecimal.ZERO;
-                BigDecimal djiPln = idx < djiVals.size() ? toPln(djiVals.get(idx), w.getCurrency()) : BigDecimal.ZERO;
-                BigDecimal fixedDeposit3_5Pln = idx < fixedDeposit3_5Vals.size() ? toPln(fixedDeposit3_5Vals.get(idx), w.getCurrency()) : BigDecimal.ZERO;
-
-
-                pt.put("sp500", sp500Pln.setScale(2, RoundingMode.HALF_UP));
-                pt.put("wig20", wig20Pln.setScale(2, RoundingMode.HALF_UP));
-                pt.put("nasdaq", nasdaqPln.setScale(2, RoundingMode.HALF_UP));
-                pt.put("dji", djiPln.setScale(2, RoundingMode.HALF_UP));
-                pt.put("fixedDeposit3_5", fixedDeposit3_5Pln.setScale(2, RoundingMode.HALF_UP));
-
-                series.add(pt);
-                idx++;
-            }
+        for (WalletColumns w : allColumns) {
+            Wallet wallet = w.wallet();
             Map<String, Object> entry = new LinkedHashMap<>();
-            entry.put("walletId", w.getId().toString());
-            entry.put("walletName", w.getName());
-            entry.put("isInvestment", w.isInvestmentLike());
-            entry.put("returnRate", w.getReturnRate() != null ? round(pct(w.getReturnRate())) : BigDecimal.ZERO);
-            entry.put("series", series);
+            entry.put("walletId", wallet.getId().toString());
+            entry.put("walletName", wallet.getName());
+            entry.put("isInvestment", wallet.isInvestmentLike());
+            entry.put("returnRate", w.returnRate() != null ? round(pct(w.returnRate())) : BigDecimal.ZERO);
+            entry.put("series", buildWalletSeries(w));
+            entry.put("xirr", round(pct(xirr.get(wallet.getId().toString()))));
             walletSeriesList.add(entry);
         }
 
@@ -295,6 +373,7 @@ public class InvestDashboardHelper {
         kpi.put("investReturnPct", round(investReturnPct));
         kpi.put("investTwr", round(investTwr));
         kpi.put("investCagr", round(investCagr));
+        kpi.put("investXirr", round(pct(xirr.get(PORTFOLIO_XIRR_KEY))));
         kpi.put("savingsBalance", round(savingsBalance));
         kpi.put("savingsGrowth", round(savingsGrowth));
         kpi.put("netWorth", round(netWorth));
@@ -311,4 +390,11 @@ public class InvestDashboardHelper {
 
         return result;
     }
+
+    /**
+     * A wallet with its date-sorted snapshots and PLN totals, computed once per dashboard.
+     */
+    private record WalletColumns(Wallet wallet, List<WalletSnapshot> snapshots, PortfolioSeries.Column column,
+                                 BigDecimal currentValuePln, BigDecimal netDepositsPln, BigDecimal returnRate) {
+    }
 }
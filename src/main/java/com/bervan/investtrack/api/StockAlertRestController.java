@@ -21,10 +21,12 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/api/invest-track/stock-alerts")
 public class StockAlertRestController extends BaseOwnedController<StockPriceAlert, UUID> {
+    private final StockPriceAlertService stockPriceAlertService;
 
     protected StockAlertRestController(StockPriceAlertService service, BervanDTOMapper mapper,
                                        EntityConfigValidator validator) {
         super(service, mapper, validator, "StockPriceAlert");
+        this.stockPriceAlertService = service;
     }
 
     @GetMapping
@@ -61,6 +63,7 @@ public class StockAlertRestController extends BaseOwnedController<StockPriceAler
         if (!errors.isEmpty()) return ResponseEntity.badRequest().body(new com.bervan.investtrack.api.ValidationErrorResponse(errors));
 
         StockPriceAlert saved = service.save(alert);
+        stockPriceAlertService.alertSaved(saved);
         return ResponseEntity.ok(mapper.map(saved, StockAlertDto.class));
     }
 
@@ -92,12 +95,17 @@ public class StockAlertRestController extends BaseOwnedController<StockPriceAler
         if (req.getAnotherNotificationEachPercentage() != null) config.setAnotherNotificationEachPercentage(req.getAnotherNotificationEachPercentage());
 
         StockPriceAlert saved = service.save(alert);
+        stockPriceAlertService.alertSaved(saved);
         return ResponseEntity.ok(mapper.map(saved, StockAlertDto.class));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable UUID id) {
-        return super.delete(id);
+        ResponseEntity<?> response = super.delete(id);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            stockPriceAlertService.alertDeleted(id);
+        }
+        return response;
     }
 
     @GetMapping("/export")
@@ -107,6 +115,8 @@ public class StockAlertRestController extends BaseOwnedController<StockPriceAler
 
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ImportResult> importData(@RequestParam("file") MultipartFile file) {
-        return super.importAll(file, StockAlertDto.class);
+        ResponseEntity<ImportResult> response = super.importAll(file, StockAlertDto.class);
+        stockPriceAlertService.reloadAlertBook();
+        return response;
     }
 }
@@ -5,7 +5,14 @@ import com.bervan.asynctask.AsyncTaskService;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
 import com.bervan.investtrack.service.StockPriceReportService;
+import com.bervan.investtrack.service.recommendations.BacktestResult;
+import com.bervan.investtrack.service.recommendations.StrategyBacktestService;
+import com.bervan.investtrack.service.session.StockTickStore;
 import com.bervan.logging.BaseProcessContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +22,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -23,12 +31,17 @@ public class StockReportRestController {
 
     private final StockPriceReportService reportService;
     private final AsyncTaskService asyncTaskService;
+    private final StrategyBacktestService backtestService;
+    private final ObjectMapper mapper;
     private final BaseProcessContext ctx = BaseProcessContext.builder()
             .processName("stockReport").build();
 
-    public StockReportRestController(StockPriceReportService reportService, AsyncTaskService asyncTaskService) {
+    public StockReportRestController(StockPriceReportService reportService, AsyncTaskService asyncTaskService,
+                                     StrategyBacktestService backtestService, ObjectMapper mapper) {
         this.reportService = reportService;
         this.asyncTaskService = asyncTaskService;
+        this.backtestService = backtestService;
+        this.mapper = mapper;
     }
 
     record StockDto(String symbol, String date, BigDecimal price, BigDecimal change, BigDecimal changePercent, Integer transactions) {}
@@ -92,6 +105,59 @@ public class StockReportRestController {
         ));
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<byte[]> exportSession(
+            @RequestParam(required = false) String date,
+            @RequestParam(defaultValue = StockTickStore.MORNING) String session
+    ) {
+        if (!StockTickStore.isValidSession(session)) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDate reportDate = date != null ? LocalDate.parse(date) : LocalDate.now();
+        try {
+            Optional<byte[]> data = reportService.exportSessionToExcel(reportDate, session);
+            if (data.isEmpty()) return ResponseEntity.notFound().build();
+
+            String filename = "STOCKS_PL_" + reportDate + "_" + session + ".xlsx";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                    .body(data.get());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/backtest")
+    public ResponseEntity<Map<String, String>> backtest(
+            @RequestParam String strategy,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to
+    ) {
+        if (!reportService.getStrategyNames().contains(strategy)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Unknown strategy: " + strategy));
+        }
+        LocalDate toDate = to != null ? LocalDate.parse(to) : LocalDate.now();
+        LocalDate fromDate = from != null ? LocalDate.parse(from) : toDate.minusYears(2);
+
+        SecurityContext context = SecurityContextHolder.getContext();
+        AsyncTask task = asyncTaskService.createAndStoreAsyncTask();
+        new Thread(() -> {
+            SecurityContextHolder.setContext(context);
+            AsyncTask running = asyncTaskService.setInProgress(task, "Backtest of " + strategy + " is running.");
+            try {
+                BacktestResult result = backtestService.backtest(strategy, fromDate, toDate);
+                asyncTaskService.setFinished(running, mapper.writeValueAsString(result));
+            } catch (Exception e) {
+                asyncTaskService.setFailed(running, e.getMessage());
+            }
+        }).start();
+        return ResponseEntity.accepted().body(Map.of(
+                "message", "Backtest started.",
+                "taskId", String.valueOf(task.getId())
+        ));
+    }
+
     @PostMapping("/trigger/morning")
     public ResponseEntity<Map<String, String>> triggerMorning() {
         SecurityContext context = SecurityContextHolder.getContext();
@@ -2,7 +2,6 @@ package com.bervan.investtrack.api;
 
 import com.bervan.core.model.BaseDTO;
 import com.bervan.core.model.BaseModel;
-import com.bervan.core.model.PostCustomMappers;
 import com.bervan.investtrack.model.Wallet;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -17,7 +16,6 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@PostCustomMappers(mappers = {WalletToWalletDtoPostMapper.class})
 public class WalletDto implements BaseDTO<UUID> {
     private UUID id;
     private String name;
@@ -28,7 +26,7 @@ public class WalletDto implements BaseDTO<UUID> {
     private Boolean compareWithSP500;
     private LocalDateTime createdDate;
     private LocalDateTime modificationDate;
-    // computed from snapshots — set by WalletToWalletDtoPostMapper
+    // computed from snapshots — filled by WalletRestController from WalletMetrics
     private BigDecimal currentValue;
     private BigDecimal totalDeposits;
     private BigDecimal totalWithdrawals;
@@ -6,8 +6,10 @@ import com.bervan.common.controller.ImportResult;
 import com.bervan.common.mapper.BervanDTOMapper;
 import com.bervan.common.service.AuthService;
 import com.bervan.investtrack.model.Wallet;
+import com.bervan.investtrack.model.WalletMetrics;
 import com.bervan.investtrack.model.WalletSnapshot;
 import com.bervan.investtrack.service.InvestmentCalculationService;
+import com.bervan.investtrack.service.WalletMetricsService;
 import com.bervan.investtrack.service.WalletService;
 import com.bervan.investtrack.service.WalletSnapshotService;
 import org.springframework.data.domain.Page;
@@ -22,6 +24,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -31,13 +34,17 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
 
     private final WalletSnapshotService snapshotService;
     private final InvestmentCalculationService calculationService;
+    private final WalletMetricsService metricsService;
+    private final InvestDashboardCache dashboardCache;
 
     protected WalletRestController(WalletService walletService, WalletSnapshotService snapshotService,
-                                   InvestmentCalculationService calculationService,
-                                   BervanDTOMapper mapper, EntityConfigValidator validator) {
+                                   InvestmentCalculationService calculationService, WalletMetricsService metricsService,
+                                   InvestDashboardCache dashboardCache, BervanDTOMapper mapper, EntityConfigValidator validator) {
         super(walletService, mapper, validator, "Wallet");
         this.snapshotService = snapshotService;
         this.calculationService = calculationService;
+        this.metricsService = metricsService;
+        this.dashboardCache = dashboardCache;
     }
 
     @GetMapping
@@ -45,17 +52,32 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
             @RequestParam MultiValueMap<String, String> allParams,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
-        return super.search(allParams, page, size, WalletDto.class, Wallet.class);
+        ResponseEntity<Page<WalletDto>> response = super.search(allParams, page, size, WalletDto.class, Wallet.class);
+        if (response.getBody() != null) {
+            withMetrics(response.getBody().getContent());
+        }
+        return response;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<WalletDto> getById(@PathVariable UUID id) {
-        return super.getById(id, WalletDto.class);
+        ResponseEntity<WalletDto> response = super.getById(id, WalletDto.class);
+        if (response.getBody() != null) {
+            withMetrics(List.of(response.getBody()));
+        }
+        return response;
     }
 
     @PostMapping
     public ResponseEntity<?> create(@RequestBody WalletCreateRequest req) {
-        return super.create(req, WalletDto.class);
+        ResponseEntity<?> response = super.create(req, WalletDto.class);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            dashboardCache.invalidate();
+        }
+        if (response.getBody() instanceof WalletDto dto) {
+            withMetrics(List.of(dto));
+        }
+        return response;
     }
 
     @PutMapping("/{id}")
@@ -72,12 +94,37 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
         if (req.getCompareWithSP500() != null) wallet.setCompareWithSP500(req.getCompareWithSP500());
         wallet.setModificationDate(LocalDateTime.now());
         Wallet saved = service.save(wallet);
-        return ResponseEntity.ok(mapper.map(saved, WalletDto.class));
+        dashboardCache.invalidate();
+        WalletDto dto = mapper.map(saved, WalletDto.class);
+        withMetrics(List.of(dto));
+        return ResponseEntity.ok(dto);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable UUID id) {
-        return super.delete(id);
+        ResponseEntity<?> response = super.delete(id);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            metricsService.walletDeleted(id);
+            dashboardCache.invalidate();
+        }
+        return response;
+    }
+
+    /**
+     * Fills the computed totals from the stored {@link WalletMetrics} - one query for the whole page.
+     */
+    private void withMetrics(List<WalletDto> dtos) {
+        Map<UUID, WalletMetrics> metricsByWallet = metricsService.getMetrics(
+                dtos.stream().map(WalletDto::getId).filter(Objects::nonNull).toList());
+        for (WalletDto dto : dtos) {
+            WalletMetrics metrics = metricsByWallet.get(dto.getId());
+            if (metrics == null) continue;
+            dto.setCurrentValue(metrics.getCurrentValue());
+            dto.setTotalDeposits(metrics.getTotalDeposits());
+            dto.setTotalWithdrawals(metrics.getWithdrawalsSum());
+            dto.setTotalEarnings(metrics.getEarningsSum());
+            dto.setReturnRate(metrics.getReturnRate());
+        }
     }
 
     // ── Snapshot sub-resource ──────────────────────────────────────────────────
@@ -98,31 +145,27 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
         Optional<Wallet> walletOpt = service.loadById(id);
         if (walletOpt.isEmpty()) return ResponseEntity.notFound().build();
 
-        Wallet wallet = walletOpt.get();
-        List<WalletSnapshot> snapshots = snapshotService.findByWalletId(id);
+        WalletMetrics walletMetrics = metricsService.getMetrics(id);
 
         var metrics = new java.util.LinkedHashMap<String, Object>();
-        metrics.put("currentValue", wallet.getCurrentValue());
-        metrics.put("totalDeposits", wallet.getTotalDeposits());
-        metrics.put("totalWithdrawals", wallet.getTotalWithdrawals());
-        metrics.put("totalEarnings", wallet.getTotalEarnings());
-        metrics.put("returnRate", wallet.getReturnRate());
+        metrics.put("currentValue", walletMetrics.getCurrentValue());
+        metrics.put("totalDeposits", walletMetrics.getTotalDeposits());
+        metrics.put("totalWithdrawals", walletMetrics.getWithdrawalsSum());
+        metrics.put("totalEarnings", walletMetrics.getEarningsSum());
+        metrics.put("returnRate", walletMetrics.getReturnRate());
 
-        if (snapshots.size() >= 2) {
+        if (walletMetrics.getSnapshotCount() >= 2) {
             var scale = java.math.RoundingMode.HALF_UP;
-            BigDecimal twr = calculationService.calculateTWR(snapshots);
-            metrics.put("twr", twr.multiply(BigDecimal.valueOf(100)).setScale(2, scale));
-
-            WalletSnapshot first = snapshots.stream().min(java.util.Comparator.comparing(WalletSnapshot::getSnapshotDate)).get();
-            WalletSnapshot last = snapshots.stream().max(java.util.Comparator.comparing(WalletSnapshot::getSnapshotDate)).get();
-            double years = java.time.temporal.ChronoUnit.DAYS.between(first.getSnapshotDate(), last.getSnapshotDate()) / 365.0;
-            if (years > 0 && first.getPortfolioValue().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal cagr = calculationService.calculateCAGR(first.getPortfolioValue(), last.getPortfolioValue(), years);
+            metrics.put("twr", walletMetrics.getTwr().multiply(BigDecimal.valueOf(100)).setScale(2, scale));
+
+            double years = java.time.temporal.ChronoUnit.DAYS.between(walletMetrics.getFirstDate(), walletMetrics.getLatestDate()) / 365.0;
+            if (years > 0 && walletMetrics.getFirstValue().compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal cagr = calculationService.calculateCAGR(walletMetrics.getFirstValue(), walletMetrics.getLatestValue(), years);
                 metrics.put("cagr", cagr.multiply(BigDecimal.valueOf(100)).setScale(2, scale));
             }
 
-            metrics.put("monthlyReturns", calculationService.calculateMonthlyReturns(snapshots));
-            metrics.put("yearlyReturns", calculationService.calculateYearlyReturns(snapshots));
+            metrics.put("monthlyReturns", walletMetrics.getMonthlyReturns());
+            metrics.put("yearlyReturns", walletMetrics.getYearlyReturns());
         }
         return ResponseEntity.ok(metrics);
     }
@@ -145,6 +188,8 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
         snapshot.setDeleted(false);
         snapshot.addOwner(AuthService.getLoggedUser().get());
         WalletSnapshot saved = snapshotService.save(snapshot);
+        metricsService.snapshotCreated(walletId, saved);
+        dashboardCache.invalidate();
         return ResponseEntity.ok(new WalletSnapshotDto(saved.getId(), walletId, saved.getSnapshotDate(),
                 saved.getPortfolioValue(), saved.getMonthlyDeposit(), saved.getMonthlyWithdrawal(),
                 saved.getMonthlyEarnings(), saved.getNotes()));
@@ -166,6 +211,8 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
         if (req.getMonthlyEarnings() != null) snapshot.setMonthlyEarnings(req.getMonthlyEarnings());
         if (req.getNotes() != null) snapshot.setNotes(req.getNotes());
         WalletSnapshot saved = snapshotService.save(snapshot);
+        metricsService.snapshotsChanged(walletId, snapshots);
+        dashboardCache.invalidate();
         return ResponseEntity.ok(new WalletSnapshotDto(saved.getId(), walletId, saved.getSnapshotDate(),
                 saved.getPortfolioValue(), saved.getMonthlyDeposit(), saved.getMonthlyWithdrawal(),
                 saved.getMonthlyEarnings(), saved.getNotes()));
@@ -176,6 +223,8 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
         List<WalletSnapshot> snapshots = snapshotService.findByWalletId(walletId);
         if (snapshots.stream().noneMatch(s -> s.getId().equals(snapshotId))) return ResponseEntity.notFound().build();
         ((WalletService) service).deleteSnapshot(snapshotId);
+        metricsService.snapshotsChanged(walletId, snapshots.stream().filter(s -> !s.getId().equals(snapshotId)).toList());
+        dashboardCache.invalidate();
         return ResponseEntity.noContent().build();
     }
 
@@ -186,6 +235,8 @@ public class WalletRestController extends BaseOwnedController<Wallet, UUID> {
 
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ImportResult> importData(@RequestParam("file") MultipartFile file) {
-        return super.importAll(file, WalletDto.class);
+        ResponseEntity<ImportResult> response = super.importAll(file, WalletDto.class);
+        dashboardCache.invalidate();
+        return response;
     }
 }
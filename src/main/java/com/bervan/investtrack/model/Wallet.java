@@ -7,6 +7,7 @@ import com.bervan.ieentities.ExcelIEEntity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.Where;
 
 import java.math.BigDecimal;
@@ -35,8 +36,10 @@ public class Wallet extends BervanOwnedBaseEntity<UUID> implements PersistableTa
 
     private String walletType = WalletType.INVESTMENT.name();
 
-    @OneToMany(mappedBy = "wallet", cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true)
+    // bulk reads go through WalletService.loadAllWithSnapshots; lazy loads of a page of wallets are batched
+    @OneToMany(mappedBy = "wallet", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     @OrderBy("snapshotDate ASC")
+    @BatchSize(size = 50)
     @Where(clause = "deleted = false or deleted is null")
     private List<WalletSnapshot> snapshots = new ArrayList<>();
 
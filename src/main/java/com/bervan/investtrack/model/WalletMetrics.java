@@ -0,0 +1,205 @@
+package com.bervan.investtrack.model;
+
+import com.bervan.common.model.BervanBaseEntity;
+import com.bervan.common.model.PersistableTableData;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.SortNatural;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Running aggregates of a wallet's snapshots, keyed by the wallet id. Snapshots appended after the
+ * latest one are folded in without touching the history; any other change rebuilds the aggregate in
+ * one pass over the snapshots. Returns follow {@code InvestmentCalculationService}.
+ */
+@Entity
+@Getter
+@Setter
+@Inheritance(strategy = InheritanceType.TABLE_PER_CLASS)
+public class WalletMetrics extends BervanBaseEntity<UUID> implements PersistableTableData<UUID> {
+    private static final int SCALE = 8;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Id
+    private UUID id;
+    private int snapshotCount;
+    private BigDecimal depositsSum = BigDecimal.ZERO;
+    private BigDecimal withdrawalsSum = BigDecimal.ZERO;
+    private BigDecimal earningsSum = BigDecimal.ZERO;
+    private LocalDate firstDate;
+    private BigDecimal firstValue;
+    private LocalDate latestDate;
+    private BigDecimal latestValue;
+    private double twrProduct = 1.0;
+    // state of the latest year, needed to extend its yearly return
+    private BigDecimal latestYearStartValue;
+    private BigDecimal latestYearCashFlow = BigDecimal.ZERO;
+    private int latestYearSnapshots;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "wallet_metrics_monthly_return", joinColumns = @JoinColumn(name = "wallet_metrics_id"))
+    @MapKeyColumn(name = "period")
+    @Column(name = "return_pct")
+    @SortNatural
+    private SortedMap<String, BigDecimal> monthlyReturns = new TreeMap<>();
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "wallet_metrics_yearly_return", joinColumns = @JoinColumn(name = "wallet_metrics_id"))
+    @MapKeyColumn(name = "period")
+    @Column(name = "return_pct")
+    @SortNatural
+    private SortedMap<Integer, BigDecimal> yearlyReturns = new TreeMap<>();
+
+    private Boolean deleted = false;
+    private LocalDateTime modificationDate;
+
+    public WalletMetrics() {
+    }
+
+    public WalletMetrics(UUID walletId) {
+        this.id = walletId;
+    }
+
+    /**
+     * Whether the snapshot can be folded in with {@link #append} - it is dated after every snapshot seen so far.
+     */
+    public boolean canAppend(WalletSnapshot snapshot) {
+        return latestDate == null || snapshot.getSnapshotDate().isAfter(latestDate);
+    }
+
+    public void append(WalletSnapshot snapshot) {
+        BigDecimal value = orZero(snapshot.getPortfolioValue());
+        BigDecimal cashFlow = orZero(snapshot.getMonthlyDeposit()).subtract(orZero(snapshot.getMonthlyWithdrawal()));
+        LocalDate date = snapshot.getSnapshotDate();
+
+        if (latestDate == null) {
+            firstDate = date;
+            firstValue = value;
+        } else {
+            BigDecimal beginValue = latestValue.add(cashFlow);
+            if (beginValue.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal periodReturn = value.subtract(beginValue).divide(beginValue, SCALE, RoundingMode.HALF_UP);
+                twrProduct *= 1.0 + periodReturn.doubleValue();
+            }
+            if (latestValue.compareTo(BigDecimal.ZERO) > 0 && beginValue.compareTo(BigDecimal.ZERO) > 0) {
+                monthlyReturns.put(String.format("%d-%02d", date.getYear(), date.getMonthValue()),
+                        value.subtract(beginValue).divide(beginValue, SCALE, RoundingMode.HALF_UP).multiply(HUNDRED));
+            }
+        }
+
+        if (latestDate == null || latestDate.getYear() != date.getYear()) {
+            latestYearStartValue = value;
+            latestYearCashFlow = BigDecimal.ZERO;
+            latestYearSnapshots = 1;
+        } else {
+            latestYearCashFlow = latestYearCashFlow.add(cashFlow);
+            latestYearSnapshots++;
+            BigDecimal adjustedStart = latestYearStartValue.add(latestYearCashFlow);
+            BigDecimal yearReturn = adjustedStart.compareTo(BigDecimal.ZERO) > 0
+                    ? value.subtract(adjustedStart).divide(adjustedStart, SCALE, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+            yearlyReturns.put(date.getYear(), yearReturn.multiply(HUNDRED));
+        }
+
+        depositsSum = depositsSum.add(orZero(snapshot.getMonthlyDeposit()));
+        withdrawalsSum = withdrawalsSum.add(orZero(snapshot.getMonthlyWithdrawal()));
+        earningsSum = earningsSum.add(orZero(snapshot.getMonthlyEarnings()));
+        latestDate = date;
+        latestValue = value;
+        snapshotCount++;
+    }
+
+    /**
+     * Recomputes everything from the wallet's snapshots, in any order.
+     */
+    public void rebuild(Collection<WalletSnapshot> snapshots) {
+        snapshotCount = 0;
+        depositsSum = BigDecimal.ZERO;
+        withdrawalsSum = BigDecimal.ZERO;
+        earningsSum = BigDecimal.ZERO;
+        firstDate = null;
+        firstValue = null;
+        latestDate = null;
+        latestValue = null;
+        twrProduct = 1.0;
+        latestYearStartValue = null;
+        latestYearCashFlow = BigDecimal.ZERO;
+        latestYearSnapshots = 0;
+        monthlyReturns.clear();
+        yearlyReturns.clear();
+
+        List<WalletSnapshot> sorted = new ArrayList<>();
+        for (WalletSnapshot snapshot : snapshots) {
+            if (snapshot.getSnapshotDate() != null && !Boolean.TRUE.equals(snapshot.isDeleted())) {
+                sorted.add(snapshot);
+            }
+        }
+        sorted.sort(Comparator.comparing(WalletSnapshot::getSnapshotDate));
+        for (WalletSnapshot snapshot : sorted) {
+            append(snapshot);
+        }
+        modificationDate = LocalDateTime.now();
+    }
+
+    /**
+     * Net deposits - deposits minus withdrawals, same as {@link Wallet#getTotalDeposits()}.
+     */
+    public BigDecimal getTotalDeposits() {
+        return depositsSum.subtract(withdrawalsSum);
+    }
+
+    public BigDecimal getCurrentValue() {
+        return latestValue != null ? latestValue : BigDecimal.ZERO;
+    }
+
+    /**
+     * Same as {@link Wallet#getReturnRate()}: total return over net deposits, in percent.
+     */
+    public BigDecimal getReturnRate() {
+        BigDecimal netInvestment = getTotalDeposits();
+        if (netInvestment.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return getCurrentValue().subtract(netInvestment).divide(netInvestment, 4, RoundingMode.HALF_UP)
+                .multiply(HUNDRED);
+    }
+
+    public BigDecimal getTwr() {
+        return BigDecimal.valueOf(twrProduct - 1.0).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    @Override
+    public Boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public void setDeleted(Boolean value) {
+        this.deleted = value;
+    }
+
+    @Override
+    public LocalDateTime getModificationDate() {
+        return modificationDate;
+    }
+
+    @Override
+    public void setModificationDate(LocalDateTime modificationDate) {
+        this.modificationDate = modificationDate;
+    }
+
+    @Override
+    public String getTableFilterableColumnValue() {
+        return id.toString();
+    }
+}
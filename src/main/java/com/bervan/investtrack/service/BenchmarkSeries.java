@@ -0,0 +1,77 @@
+package com.bervan.investtrack.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable daily price series of one ticker as parallel arrays: ascending epoch days and the price on
+ * each of them. Lookups are binary searches, so evaluating a curve never walks the series.
+ */
+public final class BenchmarkSeries {
+    public static final BenchmarkSeries EMPTY = new BenchmarkSeries(new int[0], new double[0]);
+
+    private final int[] days;
+    private final double[] prices;
+
+    /**
+     * @param days ascending, without duplicates; the arrays are taken over, not copied
+     */
+    public BenchmarkSeries(int[] days, double[] prices) {
+        if (days.length != prices.length) {
+            throw new IllegalArgumentException("days and prices differ in length");
+        }
+        this.days = days;
+        this.prices = prices;
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+
+    public int day(int i) {
+        return days[i];
+    }
+
+    public double price(int i) {
+        return prices[i];
+    }
+
+    public int lastDay() {
+        return days[days.length - 1];
+    }
+
+    /**
+     * Price of the latest point at or before {@code day} and at most {@code maxAgeDays} older, NaN if there is none.
+     */
+    public double priceAt(int day, int maxAgeDays) {
+        int i = Arrays.binarySearch(days, day);
+        if (i < 0) {
+            i = -i - 2; // insertion point - 1: the last day before
+        }
+        if (i < 0 || day - days[i] > maxAgeDays) {
+            return Double.NaN;
+        }
+        return prices[i];
+    }
+
+    /**
+     * This series with the points of {@code newer} replacing everything from its first day on.
+     */
+    public BenchmarkSeries merge(BenchmarkSeries newer) {
+        if (newer.isEmpty()) {
+            return this;
+        }
+        int keep = Arrays.binarySearch(days, newer.days[0]);
+        if (keep < 0) {
+            keep = -keep - 1;
+        }
+        int[] mergedDays = Arrays.copyOf(days, keep + newer.size());
+        double[] mergedPrices = Arrays.copyOf(prices, keep + newer.size());
+        System.arraycopy(newer.days, 0, mergedDays, keep, newer.size());
+        System.arraycopy(newer.prices, 0, mergedPrices, keep, newer.size());
+        return new BenchmarkSeries(mergedDays, mergedPrices);
+    }
+}
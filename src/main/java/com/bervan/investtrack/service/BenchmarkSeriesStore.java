@@ -0,0 +1,308 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.logging.JsonLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Daily Yahoo Finance series of the tickers in {@link BenchmarkTickerRegistry}, kept on local disk - one
+ * {@code <ticker>.csv} file of {@code yyyy-MM-dd,price} lines per series - so a restart does not download
+ * 25 years of history again. Readers get an immutable {@link Snapshot} without locking; a refresh
+ * fetches only the days since the last stored point (the last day again, it may have been intraday),
+ * merges them into a new snapshot and publishes it at once. At most one refresh runs at a time - callers
+ * asking for one while it runs share its result. Registering a ticker starts a refresh.
+ */
+@Service
+public class BenchmarkSeriesStore {
+    private static final String YAHOO_BASE = "https://query1.finance.yahoo.com/v8/finance/chart/";
+    private static final String FULL_RANGE = "?interval=1d&range=25y";
+    private static final long TTL_MS = 24L * 60 * 60 * 1000;
+    // after a refresh in which some ticker could not be fetched
+    private static final long RETRY_TTL_MS = 5L * 60 * 1000;
+
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final Path directory;
+    private final BenchmarkTickerRegistry registry;
+    private final List<Runnable> refreshListeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+    // set by a registration; the running refresh may have read the tickers before it
+    private final AtomicBoolean tickersChanged = new AtomicBoolean();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "benchmark-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), 0L);
+
+    public BenchmarkSeriesStore(@Value("${invest-track.benchmarks.dir:benchmarks}") String directory,
+                                BenchmarkTickerRegistry registry) {
+        this.directory = Path.of(directory);
+        this.registry = registry;
+        registry.addRegistrationListener(ticker -> {
+            tickersChanged.set(true);
+            refresh();
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, BenchmarkSeries> series = new HashMap<>();
+        long fetchedAt = Long.MAX_VALUE;
+        for (String ticker : registry.tickers()) {
+            Path file = file(ticker);
+            if (!Files.exists(file)) {
+                fetchedAt = 0L;
+                continue;
+            }
+            try {
+                series.put(ticker, read(file));
+                fetchedAt = Math.min(fetchedAt, Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not read stored benchmark series {}", file.toAbsolutePath(), e);
+                fetchedAt = 0L;
+            }
+        }
+        if (!series.isEmpty()) {
+            snapshot = new Snapshot(series, fetchedAt);
+            log.info("Loaded {} stored benchmark series", series.size());
+        }
+        refreshIfStale();
+    }
+
+    /**
+     * The current series. A stale snapshot is returned as is while a background refresh runs; only when
+     * nothing was ever fetched or stored does the caller wait for the first fetch.
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current.fetchedAt() == 0L) {
+            return refresh().join();
+        }
+        if (current.isStale()) {
+            refresh();
+        }
+        return current;
+    }
+
+    public void refreshIfStale() {
+        if (snapshot.isStale()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Called after a refresh has published a new snapshot.
+     */
+    public void addRefreshListener(Runnable listener) {
+        refreshListeners.add(listener);
+    }
+
+    /**
+     * Starts a refresh, or joins the one already running.
+     */
+    public CompletableFuture<Snapshot> refresh() {
+        while (true) {
+            CompletableFuture<Snapshot> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<Snapshot> started = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, started)) {
+                refreshExecutor.execute(() -> {
+                    Snapshot next = null;
+                    Throwable failure = null;
+                    try {
+                        do {
+                            tickersChanged.set(false);
+                            next = fetchAndPublish();
+                        } while (tickersChanged.get());
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                    // cleared before completing, so callbacks of the future can start a new refresh
+                    inFlight.set(null);
+                    if (failure != null) {
+                        started.completeExceptionally(failure);
+                    } else {
+                        started.complete(next);
+                    }
+                    if (tickersChanged.get()) {
+                        refresh(); // registered between the last pass and clearing inFlight
+                    }
+                });
+                return started;
+            }
+        }
+    }
+
+    private Snapshot fetchAndPublish() {
+        Snapshot previous = snapshot;
+        Map<String, BenchmarkSeries> series = new HashMap<>(previous.series());
+        boolean complete = true;
+        for (String ticker : registry.tickers()) {
+            BenchmarkSeries stored = previous.series(ticker);
+            try {
+                BenchmarkSeries fetched = fetchSince(ticker, stored.isEmpty() ? null : LocalDate.ofEpochDay(stored.lastDay()));
+                BenchmarkSeries merged = stored.merge(fetched);
+                series.put(ticker, merged);
+                write(ticker, merged);
+                log.info("Fetched {} daily {} data points", fetched.size(), ticker);
+            } catch (Exception e) {
+                log.warn("Could not fetch {} data: {}", ticker, e.getMessage()); // keep stored data
+                complete = false;
+            }
+        }
+        Snapshot next = new Snapshot(series, System.currentTimeMillis(), complete);
+        snapshot = next;
+        refreshListeners.forEach(Runnable::run);
+        return next;
+    }
+
+    // package-private for tests
+    BenchmarkSeries fetchSince(String ticker, LocalDate from) throws Exception {
+        String query = from == null ? FULL_RANGE
+                : "?interval=1d&period1=" + from.atStartOfDay().toEpochSecond(ZoneOffset.UTC)
+                + "&period2=" + LocalDate.now().plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(YAHOO_BASE + ticker + query))
+                .header("User-Agent", "Mozilla/5.0 (compatible; investment-tracker/1.0)")
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new RuntimeException("Yahoo Finance returned HTTP " + response.statusCode() + " for " + ticker);
+        }
+        return parseYahooChart(response.body());
+    }
+
+    private BenchmarkSeries parseYahooChart(String json) throws Exception {
+        JsonNode root = objectMapper.readTree(json);
+        JsonNode result = root.path("chart").path("result");
+        if (!result.isArray() || result.isEmpty()) {
+            throw new RuntimeException("Unexpected Yahoo Finance response structure");
+        }
+
+        JsonNode chartResult = result.get(0);
+        JsonNode timestamps = chartResult.path("timestamp");
+
+        // Prefer adjclose; fall back to quote close
+        JsonNode adjCloseNode = chartResult.path("indicators").path("adjclose");
+        JsonNode priceArray;
+        if (adjCloseNode.isArray() && !adjCloseNode.isEmpty()) {
+            priceArray = adjCloseNode.get(0).path("adjclose");
+        } else {
+            priceArray = chartResult.path("indicators").path("quote").get(0).path("close");
+        }
+
+        if (!timestamps.isArray() || !priceArray.isArray()) {
+            throw new RuntimeException("Missing timestamp or price arrays in Yahoo Finance response");
+        }
+
+        int size = Math.min(timestamps.size(), priceArray.size());
+        int[] days = new int[size];
+        double[] prices = new double[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            JsonNode priceNode = priceArray.get(i);
+            if (priceNode == null || priceNode.isNull()) continue;
+
+            int day = (int) Math.floorDiv(timestamps.get(i).asLong(), 86400L);
+            if (count > 0 && days[count - 1] >= day) {
+                count--; // last entry per day wins
+            }
+            days[count] = day;
+            prices[count] = priceNode.asDouble();
+            count++;
+        }
+        return new BenchmarkSeries(Arrays.copyOf(days, count), Arrays.copyOf(prices, count));
+    }
+
+    private Path file(String ticker) {
+        // tickers are URL-encoded (%5EGSPC) - keep only file name safe characters
+        return directory.resolve(ticker.replaceAll("[^A-Za-z0-9]", "_") + ".csv");
+    }
+
+    // a file of the former monthly format fails to parse and is fetched again in full
+    private static BenchmarkSeries read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        int[] days = new int[lines.size()];
+        double[] prices = new double[lines.size()];
+        int count = 0;
+        for (String line : lines) {
+            int comma = line.indexOf(',');
+            if (comma > 0) {
+                days[count] = (int) LocalDate.parse(line.substring(0, comma)).toEpochDay();
+                prices[count] = Double.parseDouble(line.substring(comma + 1).trim());
+                count++;
+            }
+        }
+        return new BenchmarkSeries(Arrays.copyOf(days, count), Arrays.copyOf(prices, count));
+    }
+
+    private void write(String ticker, BenchmarkSeries prices) throws IOException {
+        Files.createDirectories(directory);
+        StringBuilder content = new StringBuilder(prices.size() * 24);
+        for (int i = 0; i < prices.size(); i++) {
+            content.append(LocalDate.ofEpochDay(prices.day(i))).append(',').append(prices.price(i)).append('\n');
+        }
+        Path target = file(ticker);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, content, StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Immutable set of series, as of {@code fetchedAt} (epoch millis, 0 when never fetched). A snapshot
+     * that misses some ticker because its fetch failed goes stale after minutes instead of a day.
+     */
+    public record Snapshot(Map<String, BenchmarkSeries> series, long fetchedAt, boolean complete) {
+
+        public Snapshot {
+            series = Map.copyOf(series);
+        }
+
+        public Snapshot(Map<String, BenchmarkSeries> series, long fetchedAt) {
+            this(series, fetchedAt, true);
+        }
+
+        public BenchmarkSeries series(String ticker) {
+            return series.getOrDefault(ticker, BenchmarkSeries.EMPTY);
+        }
+
+        public boolean isStale() {
+            return System.currentTimeMillis() - fetchedAt >= (complete ? TTL_MS : RETRY_TTL_MS);
+        }
+    }
+}
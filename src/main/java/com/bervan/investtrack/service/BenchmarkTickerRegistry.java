@@ -0,0 +1,80 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.logging.JsonLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Yahoo Finance tickers kept in {@link BenchmarkSeriesStore}, each with the currency it is quoted in.
+ * Besides the built-in indices, tickers can be configured with
+ * {@code invest-track.benchmarks.extra-tickers} ({@code TICKER:CURRENCY,...}) or registered at runtime;
+ * the USD FX pair of every quote currency is registered along with it.
+ */
+@Service
+public class BenchmarkTickerRegistry {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final Map<String, String> quoteCurrencies = new LinkedHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public BenchmarkTickerRegistry(@Value("${invest-track.benchmarks.extra-tickers:}") String extraTickers) {
+        register(ETFDataService.SP500_TICKER, "USD");
+        register(ETFDataService.WIG20_TICKER, "PLN");
+        register(ETFDataService.NASDAQ_TICKER, "USD");
+        register(ETFDataService.DJI_TICKER, "USD");
+        register(ETFDataService.USDEUR_TICKER, "EUR");
+        for (String entry : extraTickers.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length == 2 && !parts[0].isBlank() && !parts[1].isBlank()) {
+                register(parts[0].trim(), parts[1].trim());
+            } else if (!entry.isBlank()) {
+                log.warn("Ignoring benchmark ticker '{}', expected TICKER:CURRENCY", entry);
+            }
+        }
+    }
+
+    /**
+     * Yahoo ticker of the rate "units of {@code currency} per 1 USD", e.g. {@code USDPLN%3DX}.
+     */
+    public static String fxTicker(String currency) {
+        return "USD" + currency.toUpperCase() + "%3DX";
+    }
+
+    /**
+     * Adds a ticker; the store fetches its history with the next refresh, started right away.
+     */
+    public void register(String ticker, String quoteCurrency) {
+        String currency = quoteCurrency.toUpperCase();
+        List<String> added = new ArrayList<>(2);
+        synchronized (quoteCurrencies) {
+            if (quoteCurrencies.putIfAbsent(ticker, currency) == null) {
+                added.add(ticker);
+            }
+            if (!"USD".equals(currency) && quoteCurrencies.putIfAbsent(fxTicker(currency), currency) == null) {
+                added.add(fxTicker(currency));
+            }
+        }
+        for (String t : added) {
+            listeners.forEach(listener -> listener.accept(t));
+        }
+    }
+
+    public Optional<String> quoteCurrency(String ticker) {
+        synchronized (quoteCurrencies) {
+            return Optional.ofNullable(quoteCurrencies.get(ticker));
+        }
+    }
+
+    public List<String> tickers() {
+        synchronized (quoteCurrencies) {
+            return List.copyOf(quoteCurrencies.keySet());
+        }
+    }
+
+    public void addRegistrationListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
@@ -14,29 +14,44 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.EnumMap;
-import java.util.Map;
-
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts amounts at the current rates of the fawazahmed0 currency feed. The rates are an immutable
+ * {@link Rates} table - every currency of the feed, as PLN per 1 unit - swapped in whole by
+ * {@link #updateRates()}, so a conversion always sees one consistent set of rates without locking.
+ */
 @Service
 public class CurrencyConverter {
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
 
-    private final Map<Currency, BigDecimal> plnPerUnit = new EnumMap<>(Currency.class);
+    private final AtomicReference<Rates> rates;
     private final int scale;
     private final RoundingMode roundingMode;
+    private final List<Runnable> ratesListeners = new CopyOnWriteArrayList<>();
 
     public CurrencyConverter() {
-        this.scale = 4;
-        this.roundingMode = RoundingMode.HALF_UP;
-        plnPerUnit.put(Currency.PLN, BigDecimal.ONE);
-        plnPerUnit.put(Currency.EUR, new BigDecimal("4.30"));
-        plnPerUnit.put(Currency.USD, new BigDecimal("3.70"));
+        this(Map.of(
+                Currency.PLN, BigDecimal.ONE,
+                Currency.EUR, new BigDecimal("4.30"),
+                Currency.USD, new BigDecimal("3.70")), 4, RoundingMode.HALF_UP);
     }
 
     public CurrencyConverter(Map<Currency, BigDecimal> initialRates, int scale, RoundingMode roundingMode) {
         this.scale = scale;
         this.roundingMode = roundingMode;
-        plnPerUnit.putAll(initialRates);
+        Map<String, BigDecimal> plnPerUnit = new HashMap<>();
+        initialRates.forEach((currency, rate) -> plnPerUnit.put(currency.name(), rate));
+        this.rates = new AtomicReference<>(Rates.of(plnPerUnit));
+    }
+
+    /**
+     * Called after {@link #updateRates()} has fetched new rates.
+     */
+    public void addRatesListener(Runnable listener) {
+        ratesListeners.add(listener);
     }
 
     @PostConstruct
@@ -60,18 +75,26 @@ public class CurrencyConverter {
 
             // Parse JSON response
             ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.body());
-
-            // Extract PLN and EUR values relative to USD
-            // 1 USD = X PLN
-            BigDecimal usdToPln = root.get("usd").get("pln").decimalValue();
-            BigDecimal usdToEur = root.get("usd").get("eur").decimalValue();
-
-            setRate(Currency.PLN, BigDecimal.valueOf(1));
-            setRate(Currency.USD, usdToPln);
-            setRate(Currency.EUR, usdToPln.divide(usdToEur, MathContext.DECIMAL64));
-
-            log.info("Updated currency rates: {}", plnPerUnit.entrySet());
+            JsonNode usd = mapper.readTree(response.body()).get("usd");
+
+            // 1 USD = X units of each currency; PLN per unit = (PLN per USD) / (units per USD)
+            BigDecimal usdToPln = usd.get("pln").decimalValue();
+            Map<String, BigDecimal> plnPerUnit = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = usd.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isNumber() && field.getValue().decimalValue().signum() > 0) {
+                    plnPerUnit.put(field.getKey().toUpperCase(), usdToPln.divide(field.getValue().decimalValue(), MathContext.DECIMAL64));
+                }
+            }
+            plnPerUnit.put("PLN", BigDecimal.ONE);
+            plnPerUnit.put("USD", usdToPln);
+
+            Rates updated = Rates.of(plnPerUnit);
+            rates.set(updated);
+            log.info("Updated currency rates of {} currencies: PLN per EUR {}, PLN per USD {}",
+                    plnPerUnit.size(), plnPerUnit.get("EUR"), plnPerUnit.get("USD"));
+            ratesListeners.forEach(Runnable::run);
         } catch (Exception e) {
             log.error("Failed to update currency rates: {}", e.getMessage(), e);
         }
@@ -85,22 +108,127 @@ public class CurrencyConverter {
      * @return converted amount in 'to' currency
      */
     public BigDecimal convert(BigDecimal amount, Currency from, Currency to) {
+        return convert(amount, from.name(), to.name());
+    }
+
+    /**
+     * Same as {@link #convert(BigDecimal, Currency, Currency)} for any currency of the feed, by ISO code.
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
         if (amount == null) throw new IllegalArgumentException("amount must not be null");
-        BigDecimal rateFrom = plnPerUnit.get(from);
-        BigDecimal rateTo = plnPerUnit.get(to);
-        if (rateFrom == null || rateTo == null) throw new IllegalStateException("Missing rate for from/to currency");
+        Rates current = rates.get();
+        return convert(amount, current.exact(current.index(from)), current.exact(current.index(to)));
+    }
+
+    /**
+     * Display-grade conversion in {@code double} arithmetic, without rounding.
+     */
+    public double convert(double amount, String from, String to) {
+        return amount * rate(from, to);
+    }
+
+    /**
+     * Units of {@code to} per 1 {@code from}, as a {@code double}.
+     */
+    public double rate(String from, String to) {
+        Rates current = rates.get();
+        return current.approx(current.index(from)) / current.approx(current.index(to));
+    }
+
+    /**
+     * Converts a column of amounts against one rate table; null amounts stay null.
+     */
+    public List<BigDecimal> convertAll(List<BigDecimal> amounts, String from, String to) {
+        Rates current = rates.get();
+        BigDecimal rateFrom = current.exact(current.index(from));
+        BigDecimal rateTo = current.exact(current.index(to));
+        List<BigDecimal> converted = new ArrayList<>(amounts.size());
+        for (BigDecimal amount : amounts) {
+            converted.add(amount != null ? convert(amount, rateFrom, rateTo) : null);
+        }
+        return converted;
+    }
 
+    /**
+     * {@code double} counterpart of {@link #convertAll(List, String, String)}, into a new array.
+     */
+    public double[] convertAll(double[] amounts, String from, String to) {
+        double rate = rate(from, to);
+        double[] converted = new double[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            converted[i] = amounts[i] * rate;
+        }
+        return converted;
+    }
+
+    public boolean supports(String currency) {
+        return currency != null && rates.get().index().containsKey(currency.trim().toUpperCase());
+    }
+
+    private BigDecimal convert(BigDecimal amount, BigDecimal rateFrom, BigDecimal rateTo) {
         // Convert 'amount' -> PLN, then PLN -> target currency
         BigDecimal amountInPln = amount.multiply(rateFrom);
         return amountInPln.divide(rateTo, scale, roundingMode);
     }
 
+    public int getScale() {
+        return scale;
+    }
+
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+
     /** Update a single currency rate (PLN per 1 unit). */
     public void setRate(Currency currency, BigDecimal plnPerUnitRate) {
         if (currency == null || plnPerUnitRate == null) throw new IllegalArgumentException("args must not be null");
-        plnPerUnit.put(currency, plnPerUnitRate);
+        rates.updateAndGet(current -> current.with(currency.name(), plnPerUnitRate));
     }
 
+    /**
+     * Immutable rate table: currency code to position, and PLN per 1 unit at that position, exact and as
+     * {@code double}.
+     */
+    private record Rates(Map<String, Integer> index, BigDecimal[] exact, double[] approx) {
+
+        static Rates of(Map<String, BigDecimal> plnPerUnit) {
+            Map<String, Integer> index = new HashMap<>();
+            BigDecimal[] exact = new BigDecimal[plnPerUnit.size()];
+            double[] approx = new double[plnPerUnit.size()];
+            for (Map.Entry<String, BigDecimal> entry : plnPerUnit.entrySet()) {
+                int i = index.size();
+                index.put(entry.getKey(), i);
+                exact[i] = entry.getValue();
+                approx[i] = entry.getValue().doubleValue();
+            }
+            return new Rates(Map.copyOf(index), exact, approx);
+        }
+
+        Rates with(String currency, BigDecimal plnPerUnit) {
+            Map<String, BigDecimal> copy = new HashMap<>();
+            index.forEach((code, i) -> copy.put(code, exact[i]));
+            copy.put(currency, plnPerUnit);
+            return of(copy);
+        }
+
+        int index(String currency) {
+            Integer i = currency != null ? index.get(currency.trim().toUpperCase()) : null;
+            if (i == null) throw new IllegalStateException("Missing rate for currency " + currency);
+            return i;
+        }
+
+        BigDecimal exact(int i) {
+            return exact[i];
+        }
+
+        double approx(int i) {
+            return approx[i];
+        }
+    }
+
+    /**
+     * Currencies with a built-in default rate; any other currency of the feed converts by its code.
+     */
     public enum Currency {
         PLN, EUR, USD;
 
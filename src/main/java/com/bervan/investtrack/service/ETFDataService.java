@@ -1,35 +1,31 @@
 package com.bervan.investtrack.service;
 
-import com.bervan.logging.JsonLogger;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.math.RoundingMode;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 /**
- * Fetches monthly S&P 500 (^GSPC) prices and historical USD/PLN, USD/EUR FX rates
+ * Reads daily S&P 500 (^GSPC) and other index prices and historical USD/PLN, USD/EUR FX rates
  * from Yahoo Finance, then calculates a benchmark portfolio value:
  * "if you had put each deposit into S&P 500 instead, accounting for real exchange rates."
  *
  * Algorithm:
- *   For each monthly deposit in portfolio currency (PLN/EUR/USD):
- *     1. Convert deposit to USD at the historical FX rate for that month
+ *   For each deposit in portfolio currency (PLN/EUR/USD):
+ *     1. Convert deposit to USD at the historical FX rate for that day
  *     2. Buy fractional S&P 500 units: units += deposit_usd / sp500_price
  *   Benchmark value at each date = accumulated_units × sp500_price[date] × fx_rate[date]
  *
- * All data is cached for 24 hours.
+ * Series are read from {@link BenchmarkSeriesStore}, which keeps them on disk and refreshes them every 24 hours;
+ * any ticker registered in {@link BenchmarkTickerRegistry} can be used as a benchmark. Prices are looked up for
+ * the exact day, falling back to the last close before it; FX rates come from {@link FxRateHistory}.
  */
 @Service
 public class ETFDataService {
@@ -38,26 +34,41 @@ public class ETFDataService {
     public static final String WIG20_TICKER = "%5EWIG20";    // ^WIG20
     public static final String NASDAQ_TICKER = "%5ENDX";      // ^NDX
     public static final String DJI_TICKER = "%5EDJI";      // ^DJI
-    private static final String YAHOO_BASE = "https://query1.finance.yahoo.com/v8/finance/chart/";
-    private static final String USDPLN_TICKER = "USDPLN%3DX"; // USDPLN=X  (PLN per 1 USD, e.g. 4.2)
-    private static final String USDEUR_TICKER = "USDEUR%3DX"; // USDEUR=X  (EUR per 1 USD, e.g. 0.92)
-    private static final String INTERVAL_RANGE = "?interval=1mo&range=25y";
-    private static final long CACHE_TTL_MS = 24L * 60 * 60 * 1000;
+    public static final String USDPLN_TICKER = "USDPLN%3DX"; // USDPLN=X  (PLN per 1 USD, e.g. 4.2)
+    public static final String USDEUR_TICKER = "USDEUR%3DX"; // USDEUR=X  (EUR per 1 USD, e.g. 0.92)
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    // a price or rate older than this is a gap in the data rather than the last close before a holiday
+    private static final int MAX_PRICE_AGE_DAYS = 62;
+
+    private final BenchmarkSeriesStore store;
+    private final FxRateHistory fxRateHistory;
+    // fixed deposit curve derived from the S&P 500 months of one store snapshot
+    private volatile DerivedSeries derived;
+
+    public ETFDataService(BenchmarkSeriesStore store, FxRateHistory fxRateHistory) {
+        this.store = store;
+        this.fxRateHistory = fxRateHistory;
+    }
 
-    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    // ── public API ────────────────────────────────────────────────────────────
 
-    private Map<YearMonth, BigDecimal> cachedSP500 = null;
-    private Map<YearMonth, BigDecimal> cachedFixedDeposit3_5 = null;
-    private Map<YearMonth, BigDecimal> cachedWig20 = null;
-    private Map<YearMonth, BigDecimal> cachedNasdaq = null;
-    private Map<YearMonth, BigDecimal> cachedDji = null;
-    private Map<YearMonth, BigDecimal> cachedUsdPln = null;
-    private Map<YearMonth, BigDecimal> cachedUsdEur = null;
-    private long cacheTimestamp = 0L;
+    /**
+     * Called after the cached index and FX data has been fetched again.
+     */
+    public void addRefreshListener(Runnable listener) {
+        store.addRefreshListener(listener);
+    }
 
-    // ── public API ────────────────────────────────────────────────────────────
+    /**
+     * Re-fetches expired data ahead of the next calculation, so that readers caching benchmark values
+     * learn about new data through {@link #addRefreshListener} instead of on their next miss.
+     */
+    @Scheduled(cron = "0 0 * * * *")
+    public void refresh() {
+        store.refreshIfStale();
+    }
 
     /**
      * Calculates benchmark portfolio values with historical FX conversion.
@@ -81,223 +92,184 @@ public class ETFDataService {
                                                               List<String> dates,
                                                               List<BigDecimal> monthlyNetDeposits,
                                                               String portfolioCurrency) {
+        return calculateBenchmarkValues(List.of(new Benchmark(ticker, indexCurrency)), dates, monthlyNetDeposits, portfolioCurrency).get(0);
+    }
+
+    /**
+     * Same as {@link #calculateBenchmarkValuesForTicker} for several benchmarks at once.
+     *
+     * @return benchmark values per benchmark, in the order of {@code benchmarks}
+     * @see #calculateBenchmarkCurves
+     */
+    public List<List<BigDecimal>> calculateBenchmarkValues(List<Benchmark> benchmarks,
+                                                           List<String> dates,
+                                                           List<BigDecimal> monthlyNetDeposits,
+                                                           String portfolioCurrency) {
+        List<List<BigDecimal>> results = new ArrayList<>(benchmarks.size());
         if (dates == null || dates.isEmpty() || monthlyNetDeposits == null) {
-            return Collections.emptyList();
+            for (int b = 0; b < benchmarks.size(); b++) {
+                results.add(Collections.emptyList());
+            }
+            return results;
         }
 
-        refreshCacheIfNeeded();
-        Map<YearMonth, BigDecimal> indexPrices = getCacheForTicker(ticker);
-        if (indexPrices == null || indexPrices.isEmpty()) {
-            return Collections.emptyList();
+        int n = dates.size();
+        int[] days = new int[n];
+        double[] flows = new double[n];
+        for (int i = 0; i < n; i++) {
+            days[i] = parseDay(dates.get(i));
+            BigDecimal netFlow = i < monthlyNetDeposits.size() ? monthlyNetDeposits.get(i) : null;
+            flows[i] = netFlow != null ? netFlow.doubleValue() : 0.0;
         }
 
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        BigDecimal units = BigDecimal.ZERO;          // fractional units of index held
-        List<BigDecimal> result = new ArrayList<>(dates.size());
-        BigDecimal lastValue = BigDecimal.ZERO;
-
-        for (int i = 0; i < dates.size(); i++) {
-            LocalDate date;
-            try {
-                date = LocalDate.parse(dates.get(i), fmt);
-            } catch (DateTimeParseException e) {
-                result.add(lastValue);
+        for (double[] curve : curves(benchmarks, days, flows, portfolioCurrency)) {
+            if (curve == null) {
+                results.add(Collections.emptyList());
                 continue;
             }
+            List<BigDecimal> result = new ArrayList<>(n);
+            for (double value : curve) {
+                result.add(BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP));
+            }
+            results.add(result);
+        }
+        return results;
+    }
 
-            YearMonth ym = YearMonth.from(date);
-            BigDecimal indexPrice = findNearest(indexPrices, ym);
+    /**
+     * Benchmark values for typed dates and flows, unrounded.
+     *
+     * @param dates             snapshot dates; a null date repeats the previous value
+     * @param netFlows          net deposit for each date, in portfolioCurrency; missing entries count as 0
+     * @param portfolioCurrency currency of the flows and of the result
+     * @return one curve aligned to {@code dates} per benchmark, in the order of {@code benchmarks};
+     *         null for a benchmark without price data
+     */
+    public double[][] calculateBenchmarkCurves(List<Benchmark> benchmarks,
+                                               List<LocalDate> dates,
+                                               double[] netFlows,
+                                               String portfolioCurrency) {
+        int[] days = new int[dates.size()];
+        for (int i = 0; i < days.length; i++) {
+            LocalDate date = dates.get(i);
+            days[i] = date != null ? (int) date.toEpochDay() : NO_DAY;
+        }
+        return curves(benchmarks, days, netFlows, portfolioCurrency);
+    }
 
-            if (indexPrice == null || indexPrice.compareTo(BigDecimal.ZERO) <= 0) {
-                result.add(lastValue);
+    /**
+     * Each index is first priced in portfolioCurrency at every date - FX rates from {@link FxRateHistory},
+     * once per date and currency - then all curves advance together in one pass over the dates.
+     */
+    private double[][] curves(List<Benchmark> benchmarks, int[] days, double[] flows, String portfolioCurrency) {
+        BenchmarkSeriesStore.Snapshot snapshot = store.current();
+        int n = days.length;
+        int count = benchmarks.size();
+
+        // portfolio currency units per 1 index currency unit at each date, per index currency
+        Map<String, double[]> ratesByCurrency = new HashMap<>();
+
+        double[][] portfolioPrices = new double[count][];     // index price in portfolioCurrency; NaN if unknown
+        double[][] curves = new double[count][];
+        for (int b = 0; b < count; b++) {
+            Benchmark benchmark = benchmarks.get(b);
+            BenchmarkSeries prices = getSeries(snapshot, benchmark.ticker());
+            if (prices.isEmpty()) {
                 continue;
             }
+            double[] fx = ratesByCurrency.computeIfAbsent(benchmark.indexCurrency().toUpperCase(),
+                    c -> fxRateHistory.rates(days, c, portfolioCurrency));
+            double[] aligned = new double[n];
+            for (int i = 0; i < n; i++) {
+                double indexPrice = days[i] == NO_DAY ? Double.NaN : prices.priceAt(days[i], MAX_PRICE_AGE_DAYS);
+                aligned[i] = indexPrice * fx[i];
+            }
+            portfolioPrices[b] = aligned;
+            curves[b] = new double[n];
+        }
 
-            BigDecimal netFlow = i < monthlyNetDeposits.size() ? monthlyNetDeposits.get(i) : BigDecimal.ZERO;
-            if (netFlow != null && netFlow.compareTo(BigDecimal.ZERO) != 0) {
-                // Convert flow from portfolioCurrency to indexCurrency
-                BigDecimal netFlowIndex = convertCurrency(netFlow.abs(), portfolioCurrency, indexCurrency, ym);
-                if (netFlowIndex == null) {
-                    result.add(lastValue);
+        double[] units = new double[count];                   // fractional units of index held
+        double[] lastValue = new double[count];
+        for (int i = 0; i < n; i++) {
+            double netFlow = i < flows.length ? flows[i] : 0.0;
+            for (int b = 0; b < count; b++) {
+                if (curves[b] == null) {
                     continue;
                 }
-
-                BigDecimal unitsDelta = netFlowIndex.divide(indexPrice, 10, RoundingMode.HALF_UP);
-                if (netFlow.compareTo(BigDecimal.ZERO) > 0) {
-                    // Deposit: buy fractional index units
-                    units = units.add(unitsDelta);
-                } else {
-                    // Withdrawal: sell units; clamp to 0 to avoid negative holdings
-                    units = units.subtract(unitsDelta).max(BigDecimal.ZERO);
+                double price = portfolioPrices[b][i];
+                if (price > 0 && price < Double.POSITIVE_INFINITY) {
+                    if (netFlow > 0) {
+                        // Deposit: buy fractional index units
+                        units[b] += netFlow / price;
+                    } else if (netFlow < 0) {
+                        // Withdrawal: sell units; clamp to 0 to avoid negative holdings
+                        units[b] = Math.max(0.0, units[b] + netFlow / price);
+                    }
+                    lastValue[b] = units[b] * price;
                 }
+                curves[b][i] = lastValue[b];
             }
-
-            // Benchmark value in index currency
-            BigDecimal valueIndex = units.multiply(indexPrice);
-            // Convert benchmark value from indexCurrency to portfolioCurrency
-            BigDecimal valuePortfolio = convertCurrency(valueIndex, indexCurrency, portfolioCurrency, ym);
-            if (valuePortfolio == null) {
-                result.add(lastValue);
-                continue;
-            }
-
-            lastValue = valuePortfolio.setScale(2, RoundingMode.HALF_UP);
-            result.add(lastValue);
         }
-
-        return result;
+        return curves;
     }
 
-    private Map<YearMonth, BigDecimal> getCacheForTicker(String ticker) {
-        return switch (ticker) {
-            case SP500_TICKER -> cachedSP500;
-            case WIG20_TICKER -> cachedWig20;
-            case NASDAQ_TICKER -> cachedNasdaq;
-            case DJI_TICKER -> cachedDji;
-            case FIXED_DEPOSIT_TICKER_3_5 -> cachedFixedDeposit3_5;
-            default -> Collections.emptyMap();
-        };
+    public record Benchmark(String ticker, String indexCurrency) {
     }
 
-    private BigDecimal convertCurrency(BigDecimal amount, String fromCurr, String toCurr, YearMonth ym) {
-        if (fromCurr.equalsIgnoreCase(toCurr)) {
-            return amount;
-        }
-        BigDecimal rateFrom = getFxRate(fromCurr, ym);
-        BigDecimal rateTo = getFxRate(toCurr, ym);
-        if (rateFrom == null || rateFrom.compareTo(BigDecimal.ZERO) <= 0
-                || rateTo == null || rateTo.compareTo(BigDecimal.ZERO) <= 0) {
-            return null;
-        }
-        BigDecimal amountUsd = amount.divide(rateFrom, 10, RoundingMode.HALF_UP);
-        return amountUsd.multiply(rateTo);
+    private record DerivedSeries(BenchmarkSeriesStore.Snapshot source, BenchmarkSeries fixedDeposit3_5) {
     }
 
-    // ── internals ─────────────────────────────────────────────────────────────
-
-    private void refreshCacheIfNeeded() {
-        if (cachedSP500 != null && System.currentTimeMillis() - cacheTimestamp < CACHE_TTL_MS) {
-            return;
+    private BenchmarkSeries getSeries(BenchmarkSeriesStore.Snapshot snapshot, String ticker) {
+        if (FIXED_DEPOSIT_TICKER_3_5.equals(ticker)) {
+            return derived(snapshot).fixedDeposit3_5();
         }
-        cachedSP500 = fetchSafe(SP500_TICKER, "S&P 500", cachedSP500);
-        cachedWig20 = fetchSafe(WIG20_TICKER, "WIG20", cachedWig20);
-        cachedNasdaq = fetchSafe(NASDAQ_TICKER, "NASDAQ-100", cachedNasdaq);
-        cachedDji = fetchSafe(DJI_TICKER, "Dow Jones", cachedDji);
-        cachedUsdEur = fetchSafe(USDEUR_TICKER, "USD/EUR", cachedUsdEur);
-        //based on SP500 cached
-        cachedFixedDeposit3_5 = calculateFixedDeposit(3.5, 12); // 3.5% annual interest, monthly compounding
-        cacheTimestamp = System.currentTimeMillis();
+        return snapshot.series(ticker);
     }
 
-    private Map<YearMonth, BigDecimal> calculateFixedDeposit(
-            double annualInterest,
-            int compoundingFrequency) {
-
-        Map<YearMonth, BigDecimal> fixedDepositMap = new TreeMap<>();
-        List<YearMonth> sortedYearMonth = cachedSP500.keySet().stream().sorted().toList();
-
-        fixedDepositMap.put(sortedYearMonth.get(0), BigDecimal.ONE);
-
-        BigDecimal rate = BigDecimal.valueOf(annualInterest / 100.0);
-        BigDecimal factor = BigDecimal.ONE.add(
-                rate.divide(BigDecimal.valueOf(compoundingFrequency), MathContext.DECIMAL64));
-
-        for (int i = 1; i < sortedYearMonth.size(); i++) {
-            YearMonth yearMonth = sortedYearMonth.get(i);
-            BigDecimal previousValue = fixedDepositMap.get(sortedYearMonth.get(i - 1));
-
-            fixedDepositMap.put(yearMonth, previousValue.multiply(factor));
-        }
-
-        return fixedDepositMap;
-    }
+    // ── internals ─────────────────────────────────────────────────────────────
 
-    private Map<YearMonth, BigDecimal> fetchSafe(String ticker, String name, Map<YearMonth, BigDecimal> fallbackMap) {
+    private static int parseDay(String date) {
         try {
-            Map<YearMonth, BigDecimal> data = fetchFromYahoo(ticker);
-            log.info("Fetched {} monthly {} data points", data.size(), name);
-            return data;
-        } catch (Exception e) {
-            log.warn("Could not fetch {} data: {}", name, e.getMessage());
-            return fallbackMap != null ? fallbackMap : Collections.emptyMap(); // keep stale if available
+            return (int) LocalDate.parse(date, DATE_FORMAT).toEpochDay();
+        } catch (DateTimeParseException | NullPointerException e) {
+            return NO_DAY;
         }
     }
 
-    private Map<YearMonth, BigDecimal> fetchFromYahoo(String ticker) throws Exception {
-        String url = YAHOO_BASE + ticker + INTERVAL_RANGE;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("User-Agent", "Mozilla/5.0 (compatible; investment-tracker/1.0)")
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("Yahoo Finance returned HTTP " + response.statusCode() + " for " + ticker);
+    private DerivedSeries derived(BenchmarkSeriesStore.Snapshot snapshot) {
+        DerivedSeries current = derived;
+        if (current == null || current.source() != snapshot) {
+            // based on SP500 months; 3.5% annual interest, monthly compounding
+            current = new DerivedSeries(snapshot, calculateFixedDeposit(snapshot.series(SP500_TICKER), 3.5, 12));
+            derived = current;
         }
-        return parseYahooChart(response.body());
-    }
-
-    private Map<YearMonth, BigDecimal> parseYahooChart(String json) throws Exception {
-        JsonNode root = objectMapper.readTree(json);
-        JsonNode result = root.path("chart").path("result");
-        if (!result.isArray() || result.isEmpty()) {
-            throw new RuntimeException("Unexpected Yahoo Finance response structure");
-        }
-
-        JsonNode chartResult = result.get(0);
-        JsonNode timestamps = chartResult.path("timestamp");
-
-        // Prefer adjclose; fall back to quote close
-        JsonNode adjCloseNode = chartResult.path("indicators").path("adjclose");
-        JsonNode priceArray;
-        if (adjCloseNode.isArray() && !adjCloseNode.isEmpty()) {
-            priceArray = adjCloseNode.get(0).path("adjclose");
-        } else {
-            priceArray = chartResult.path("indicators").path("quote").get(0).path("close");
-        }
-
-        if (!timestamps.isArray() || !priceArray.isArray()) {
-            throw new RuntimeException("Missing timestamp or price arrays in Yahoo Finance response");
-        }
-
-        Map<YearMonth, BigDecimal> prices = new TreeMap<>();
-        for (int i = 0; i < timestamps.size() && i < priceArray.size(); i++) {
-            JsonNode priceNode = priceArray.get(i);
-            if (priceNode == null || priceNode.isNull()) continue;
-
-            long epochSec = timestamps.get(i).asLong();
-            LocalDate date = LocalDate.ofEpochDay(epochSec / 86400);
-            YearMonth ym = YearMonth.from(date);
-            BigDecimal price = BigDecimal.valueOf(priceNode.asDouble()).setScale(6, RoundingMode.HALF_UP);
-            prices.put(ym, price); // last entry per month wins
-        }
-        return prices;
-    }
-
-    /** Look up price for a YearMonth, searching up to 2 months back to handle gaps. */
-    private BigDecimal findNearest(Map<YearMonth, BigDecimal> prices, YearMonth ym) {
-        for (int offset = 0; offset <= 2; offset++) {
-            BigDecimal p = prices.get(ym.minusMonths(offset));
-            if (p != null) return p;
-        }
-        return null;
+        return current;
     }
 
     /**
-     * Returns FX rate: portfolio-currency units per 1 USD.
-     *  - PLN: USDPLN rate (e.g. 4.20) — 1 USD = 4.20 PLN
-     *  - EUR: USDEUR rate (e.g. 0.92) — 1 USD = 0.92 EUR
-     *  - USD: always 1.0
+     * One point per S&P 500 month, on its first trading day: 1.0 compounded for every month since the first one.
      */
-    private BigDecimal getFxRate(String currency, YearMonth ym) {
-        return switch (currency.toUpperCase()) {
-            case "USD" -> BigDecimal.ONE;
-            case "PLN" -> findNearest(cachedUsdPln != null ? cachedUsdPln : Collections.emptyMap(), ym);
-            case "EUR" -> findNearest(cachedUsdEur != null ? cachedUsdEur : Collections.emptyMap(), ym);
-            default -> null;
-        };
+    private static BenchmarkSeries calculateFixedDeposit(BenchmarkSeries sp500, double annualInterest, int compoundingFrequency) {
+        if (sp500.isEmpty()) {
+            return BenchmarkSeries.EMPTY;
+        }
+        double factor = 1.0 + annualInterest / 100.0 / compoundingFrequency;
+        int[] days = new int[sp500.size()];
+        double[] values = new double[sp500.size()];
+        YearMonth first = YearMonth.from(LocalDate.ofEpochDay(sp500.day(0)));
+        YearMonth previous = null;
+        int count = 0;
+        for (int i = 0; i < sp500.size(); i++) {
+            YearMonth yearMonth = YearMonth.from(LocalDate.ofEpochDay(sp500.day(i)));
+            if (yearMonth.equals(previous)) {
+                continue;
+            }
+            days[count] = sp500.day(i);
+            values[count] = Math.pow(factor, first.until(yearMonth, ChronoUnit.MONTHS));
+            count++;
+            previous = yearMonth;
+        }
+        return new BenchmarkSeries(Arrays.copyOf(days, count), Arrays.copyOf(values, count));
     }
 
     /** Convert an amount in portfolio currency to USD. fxRate = currency per 1 USD. */
@@ -0,0 +1,156 @@
+package com.bervan.investtrack.service;
+
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily FX rates of every currency with a {@code USD<currency>=X} series in {@link BenchmarkSeriesStore}
+ * (PLN and EUR are registered by default) - the same persisted history the benchmarks are priced with.
+ * Per store snapshot each currency is expanded once into a dense array of units per 1 USD indexed by
+ * epoch day, weekends and holidays carrying the last close, so a (date, from, to) lookup is two array reads.
+ * A currency the {@link CurrencyConverter} knows but the store has no series of is registered with the
+ * {@link BenchmarkTickerRegistry} on its first lookup, so its history is fetched by the refresh that starts;
+ * until then, and wherever the history has no rate, conversions fall back to the current converter rate.
+ */
+@Service
+public class FxRateHistory {
+    // how long the last known rate stays valid after the end of a series
+    private static final int MAX_STALE_DAYS = 62;
+    private static final String USD = "USD";
+
+    private final BenchmarkSeriesStore store;
+    private final BenchmarkTickerRegistry registry;
+    private final CurrencyConverter currencyConverter;
+    private volatile Tables tables;
+
+    public FxRateHistory(BenchmarkSeriesStore store, BenchmarkTickerRegistry registry, CurrencyConverter currencyConverter) {
+        this.store = store;
+        this.registry = registry;
+        this.currencyConverter = currencyConverter;
+    }
+
+    /**
+     * Units of {@code to} per 1 {@code from} on the given day; NaN when either rate is unknown.
+     */
+    public double rate(LocalDate date, String from, String to) {
+        return rate((int) date.toEpochDay(), from, to);
+    }
+
+    /**
+     * @param day epoch day
+     */
+    public double rate(int day, String from, String to) {
+        if (from.equalsIgnoreCase(to)) {
+            return 1.0;
+        }
+        Tables current = tables();
+        return perUsd(current, to).at(day) / perUsd(current, from).at(day);
+    }
+
+    /**
+     * {@link #rate(int, String, String)} for each of the epoch days, against one store snapshot.
+     */
+    public double[] rates(int[] days, String from, String to) {
+        double[] rates = new double[days.length];
+        if (from.equalsIgnoreCase(to)) {
+            Arrays.fill(rates, 1.0);
+            return rates;
+        }
+        Tables current = tables();
+        DenseRates fromRates = perUsd(current, from);
+        DenseRates toRates = perUsd(current, to);
+        for (int i = 0; i < days.length; i++) {
+            rates[i] = toRates.at(days[i]) / fromRates.at(days[i]);
+        }
+        return rates;
+    }
+
+    /**
+     * {@code amount} converted at the rate of {@code date}, rounded like {@link CurrencyConverter#convert};
+     * at the current rate when there is no historical one.
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to, LocalDate date) {
+        if (amount == null) {
+            return BigDecimal.ZERO;
+        }
+        double rate = date != null ? rate(date, from, to) : Double.NaN;
+        if (rate > 0 && rate < Double.POSITIVE_INFINITY) {
+            return amount.multiply(BigDecimal.valueOf(rate)).setScale(currencyConverter.getScale(), currencyConverter.getRoundingMode());
+        }
+        return currencyConverter.convert(amount, from, to);
+    }
+
+    private DenseRates perUsd(Tables current, String currency) {
+        DenseRates rates = current.perUsd(currency);
+        if (rates == DenseRates.NONE) {
+            String code = currency.toUpperCase();
+            String ticker = BenchmarkTickerRegistry.fxTicker(code);
+            if (currencyConverter.supports(code) && registry.quoteCurrency(ticker).isEmpty()) {
+                registry.register(ticker, code);
+            }
+        }
+        return rates;
+    }
+
+    private Tables tables() {
+        BenchmarkSeriesStore.Snapshot snapshot = store.current();
+        Tables current = tables;
+        if (current == null || current.source() != snapshot) {
+            current = new Tables(snapshot, new ConcurrentHashMap<>());
+            tables = current;
+        }
+        return current;
+    }
+
+    /**
+     * Dense rates of one store snapshot, expanded per currency on first use.
+     */
+    private record Tables(BenchmarkSeriesStore.Snapshot source, Map<String, DenseRates> byCurrency) {
+
+        DenseRates perUsd(String currency) {
+            String code = currency.toUpperCase();
+            if (USD.equals(code)) {
+                return DenseRates.ONE;
+            }
+            return byCurrency.computeIfAbsent(code, c -> DenseRates.of(source.series(BenchmarkTickerRegistry.fxTicker(c))));
+        }
+    }
+
+    private record DenseRates(int firstDay, double[] rates) {
+        static final DenseRates NONE = new DenseRates(0, new double[0]);
+        static final DenseRates ONE = new DenseRates(Integer.MIN_VALUE, null);
+
+        static DenseRates of(BenchmarkSeries series) {
+            if (series.isEmpty()) {
+                return NONE;
+            }
+            int firstDay = series.day(0);
+            double[] rates = new double[series.lastDay() - firstDay + 1];
+            int next = 0;
+            double last = Double.NaN;
+            for (int i = 0; i < rates.length; i++) {
+                if (next < series.size() && series.day(next) == firstDay + i) {
+                    last = series.price(next++);
+                }
+                rates[i] = last;
+            }
+            return new DenseRates(firstDay, rates);
+        }
+
+        double at(int day) {
+            if (rates == null) {
+                return 1.0;
+            }
+            long i = (long) day - firstDay;
+            if (i < 0 || rates.length == 0 || i >= rates.length + MAX_STALE_DAYS) {
+                return Double.NaN;
+            }
+            return rates[(int) Math.min(i, rates.length - 1)];
+        }
+    }
+}
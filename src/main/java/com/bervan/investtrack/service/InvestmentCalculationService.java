@@ -7,15 +7,12 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
 public class InvestmentCalculationService {
 
     private static final int SCALE = 8;
-    private static final int XIRR_MAX_ITERATIONS = 100;
-    private static final double XIRR_TOLERANCE = 1e-7;
 
     /**
      * CAGR - Compound Annual Growth Rate
@@ -113,7 +110,7 @@ public class InvestmentCalculationService {
 
     /**
      * XIRR - Extended Internal Rate of Return
-     * Uses Newton-Raphson method to find the rate that makes NPV = 0
+     * Uses Newton-Raphson method to find the rate that makes NPV = 0, with bisection as a fallback
      *
      * @param cashFlows list of cash flows with dates and amounts
      * @return XIRR as decimal
@@ -122,45 +119,34 @@ public class InvestmentCalculationService {
         if (cashFlows == null || cashFlows.size() < 2) {
             return BigDecimal.ZERO;
         }
+        return toXirr(XirrSolver.solve(XirrSolver.Flows.of(cashFlows)));
+    }
 
-        List<CashFlow> sorted = cashFlows.stream()
-                .sorted(Comparator.comparing(CashFlow::date))
-                .toList();
-
-        LocalDate firstDate = sorted.get(0).date();
-
-        // Initial guess
-        double rate = 0.1;
-
-        for (int i = 0; i < XIRR_MAX_ITERATIONS; i++) {
-            double npv = 0;
-            double dnpv = 0; // derivative
-
-            for (CashFlow cf : sorted) {
-                long days = ChronoUnit.DAYS.between(firstDate, cf.date());
-                double years = days / 365.0;
-                double factor = Math.pow(1 + rate, years);
-
-                npv += cf.amount().doubleValue() / factor;
-                dnpv -= years * cf.amount().doubleValue() / (factor * (1 + rate));
-            }
-
-            if (Math.abs(npv) < XIRR_TOLERANCE) {
-                return BigDecimal.valueOf(rate).setScale(SCALE, RoundingMode.HALF_UP);
-            }
-
-            if (Math.abs(dnpv) < 1e-10) {
-                break; // Avoid division by zero
-            }
-
-            rate = rate - npv / dnpv;
+    /**
+     * XIRR for many cash flow sets in one call, e.g. every wallet and the whole portfolio of a dashboard
+     *
+     * @param cashFlows cash flows per key
+     * @return XIRR as decimal per key, in the iteration order of the input
+     */
+    public <K> Map<K, BigDecimal> calculateXIRR(Map<K, List<CashFlow>> cashFlows) {
+        List<K> keys = new ArrayList<>(cashFlows.size());
+        List<XirrSolver.Flows> flows = new ArrayList<>(cashFlows.size());
+        for (Map.Entry<K, List<CashFlow>> entry : cashFlows.entrySet()) {
+            keys.add(entry.getKey());
+            flows.add(XirrSolver.Flows.of(entry.getValue() != null ? entry.getValue() : List.of()));
+        }
 
-            // Safety bounds
-            if (rate < -0.999) rate = -0.999;
-            if (rate > 10) rate = 10;
+        double[] rates = XirrSolver.solveAll(flows);
+        Map<K, BigDecimal> result = new LinkedHashMap<>();
+        for (int i = 0; i < rates.length; i++) {
+            result.put(keys.get(i), toXirr(rates[i]));
         }
+        return result;
+    }
 
-        return BigDecimal.valueOf(rate).setScale(SCALE, RoundingMode.HALF_UP);
+    // a set of flows without a rate (e.g. deposit and value on the same day) is reported as 0
+    private static BigDecimal toXirr(double rate) {
+        return Double.isNaN(rate) ? BigDecimal.ZERO : BigDecimal.valueOf(rate).setScale(SCALE, RoundingMode.HALF_UP);
     }
 
     /**
@@ -231,77 +217,24 @@ public class InvestmentCalculationService {
     /**
      * Build aggregated portfolio time series with carry-forward for multiple wallets
      * Returns a map of date -> (totalBalance, totalCashFlow)
-     * For dates where a wallet has no snapshot, uses the last known value
+     * For dates where a wallet has no snapshot, uses the last known value.
+     * Snapshots come from {@link WalletWithSnapshots}, the lazy {@link Wallet#getSnapshots()} is not touched.
      */
     public Map<LocalDate, PortfolioPoint> buildAggregatedTimeSeries(
-            List<Wallet> wallets,
+            List<WalletWithSnapshots> wallets,
             java.util.function.BiFunction<BigDecimal, String, BigDecimal> currencyConverter) {
+        return buildPortfolioSeries(wallets, currencyConverter).toMap();
+    }
 
-        // Collect all unique dates across all wallets
-        Set<LocalDate> allDates = new TreeSet<>();
-        for (Wallet wallet : wallets) {
-            for (WalletSnapshot s : wallet.getSnapshots()) {
-                allDates.add(s.getSnapshotDate());
-            }
-        }
-
-        if (allDates.isEmpty()) {
-            return Collections.emptyMap();
-        }
-
-        Map<LocalDate, PortfolioPoint> result = new TreeMap<>();
-
-        // For each wallet, build a map date -> snapshot for quick lookup
-        Map<UUID, Map<LocalDate, WalletSnapshot>> walletSnapshots = new HashMap<>();
-        for (Wallet wallet : wallets) {
-            Map<LocalDate, WalletSnapshot> snapshotMap = new HashMap<>();
-            for (WalletSnapshot s : wallet.getSnapshots()) {
-                snapshotMap.put(s.getSnapshotDate(), s);
-            }
-            walletSnapshots.put(wallet.getId(), snapshotMap);
-        }
-
-        // Track last known values for each wallet
-        Map<UUID, BigDecimal> lastKnownBalance = new HashMap<>();
-        Map<UUID, BigDecimal> lastKnownCumDeposit = new HashMap<>();
-
-        for (LocalDate date : allDates) {
-            BigDecimal totalBalance = BigDecimal.ZERO;
-            BigDecimal totalCashFlow = BigDecimal.ZERO;
-
-            for (Wallet wallet : wallets) {
-                UUID wId = wallet.getId();
-                Map<LocalDate, WalletSnapshot> snapshotMap = walletSnapshots.get(wId);
-                WalletSnapshot snapshot = snapshotMap.get(date);
-
-                BigDecimal balance;
-                BigDecimal cashFlow;
-
-                if (snapshot != null) {
-                    // Convert to PLN
-                    balance = currencyConverter.apply(snapshot.getPortfolioValue(), wallet.getCurrency());
-                    cashFlow = currencyConverter.apply(
-                            snapshot.getMonthlyDeposit().subtract(snapshot.getMonthlyWithdrawal()),
-                            wallet.getCurrency());
-
-                    // Update last known values
-                    lastKnownBalance.put(wId, balance);
-                    BigDecimal prevCum = lastKnownCumDeposit.getOrDefault(wId, BigDecimal.ZERO);
-                    lastKnownCumDeposit.put(wId, prevCum.add(cashFlow));
-                } else {
-                    // Use last known balance (carry-forward)
-                    balance = lastKnownBalance.getOrDefault(wId, BigDecimal.ZERO);
-                    cashFlow = BigDecimal.ZERO; // No cash flow on this date for this wallet
-                }
-
-                totalBalance = totalBalance.add(balance);
-                totalCashFlow = totalCashFlow.add(cashFlow);
-            }
-
-            result.put(date, new PortfolioPoint(totalBalance, totalCashFlow));
-        }
-
-        return result;
+    /**
+     * Same aggregation as {@link #buildAggregatedTimeSeries}, kept in columnar form
+     *
+     * @param currencyConverter converts an amount of a wallet's currency, must be linear in the amount
+     */
+    public PortfolioSeries buildPortfolioSeries(
+            List<WalletWithSnapshots> wallets,
+            java.util.function.BiFunction<BigDecimal, String, BigDecimal> currencyConverter) {
+        return PortfolioSeries.aggregate(wallets, currencyConverter);
     }
 
     /**
@@ -339,6 +272,16 @@ public class InvestmentCalculationService {
         return BigDecimal.valueOf(twrProduct - 1.0).setScale(SCALE, RoundingMode.HALF_UP);
     }
 
+    /**
+     * Calculate TWR for an aggregated portfolio series
+     */
+    public BigDecimal calculateAggregatedTWR(PortfolioSeries series) {
+        if (series == null || series.size() < 2) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(series.twr()).setScale(SCALE, RoundingMode.HALF_UP);
+    }
+
     public record PortfolioPoint(BigDecimal balance, BigDecimal cashFlow) {}
 
     /**
@@ -0,0 +1,101 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.common.service.EmailService;
+import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outgoing emails, sent by background workers so that a slow or failing SMTP server never blocks the
+ * caller. Failed sends are retried with exponential backoff up to {@code max-attempts} times. The outbox
+ * is in memory - emails still queued on shutdown are logged and dropped.
+ */
+@Service
+public class NotificationOutbox {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final EmailService emailService;
+    private final DelayQueue<PendingEmail> queue = new DelayQueue<>();
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public NotificationOutbox(EmailService emailService,
+                              @Value("${invest-track.notifications.workers:2}") int workers,
+                              @Value("${invest-track.notifications.max-attempts:5}") int maxAttempts,
+                              @Value("${invest-track.notifications.retry-backoff-ms:30000}") long retryBackoffMillis) {
+        this.emailService = emailService;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        for (int i = 1; i <= Math.max(1, workers); i++) {
+            Thread worker = new Thread(this::work, "notification-outbox-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    public void enqueue(String to, String subject, String body, String type) {
+        queue.add(new PendingEmail(to, subject, body, type, 1, System.nanoTime()));
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void work() {
+        while (running) {
+            PendingEmail email;
+            try {
+                email = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                emailService.sendEmail(email.to(), email.subject(), email.body(), email.type());
+            } catch (Exception e) {
+                if (email.attempt() >= maxAttempts) {
+                    log.error("Giving up sending email to {} after {} attempts: {}", email.to(), email.attempt(), email.subject(), e);
+                } else {
+                    long backoff = retryBackoffMillis << Math.min(email.attempt() - 1, 16);
+                    log.warn("Could not send email to {}, retrying in {} ms", email.to(), backoff, e);
+                    queue.add(email.retryAfter(backoff));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        if (!queue.isEmpty()) {
+            log.warn("Notification outbox stopped with {} unsent emails", queue.size());
+        }
+    }
+
+    private record PendingEmail(String to, String subject, String body, String type, int attempt,
+                                long dueAtNanos) implements Delayed {
+
+        PendingEmail retryAfter(long millis) {
+            return new PendingEmail(to, subject, body, type, attempt + 1, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAtNanos, ((PendingEmail) other).dueAtNanos);
+        }
+    }
+}
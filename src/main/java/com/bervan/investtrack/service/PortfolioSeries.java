@@ -0,0 +1,180 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.WalletSnapshot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Aggregated balance and cash flow of several wallets, one entry per date on which any of the wallets
+ * has a snapshot. Stored as parallel arrays indexed by date position; dates are epoch days. A wallet
+ * without a snapshot on a date contributes its last known balance and no cash flow.
+ */
+public final class PortfolioSeries {
+    private static final PortfolioSeries EMPTY = new PortfolioSeries(new int[0], new double[0], new double[0]);
+
+    private final int[] days;
+    private final double[] balance;
+    private final double[] cashFlow;
+
+    private PortfolioSeries(int[] days, double[] balance, double[] cashFlow) {
+        this.days = days;
+        this.balance = balance;
+        this.cashFlow = cashFlow;
+    }
+
+    /**
+     * @param wallets           wallets with their snapshots already loaded, see {@link WalletService#loadAllWithSnapshots()}
+     * @param currencyConverter converts an amount in the given currency to the series currency; it is
+     *                          called once per wallet for the rate, so it has to be linear in the amount
+     */
+    public static PortfolioSeries aggregate(List<WalletWithSnapshots> wallets, BiFunction<BigDecimal, String, BigDecimal> currencyConverter) {
+        List<Column> columns = new ArrayList<>(wallets.size());
+        for (WalletWithSnapshots wallet : wallets) {
+            columns.add(Column.of(wallet.snapshots(), currencyConverter.apply(BigDecimal.ONE, wallet.wallet().getCurrency()).doubleValue()));
+        }
+        return aggregate(columns);
+    }
+
+    public static PortfolioSeries aggregate(Collection<Column> columns) {
+        int total = 0;
+        for (Column column : columns) {
+            total += column.days().length;
+        }
+        if (total == 0) {
+            return EMPTY;
+        }
+        int[] allDays = new int[total];
+        int count = 0;
+        for (Column column : columns) {
+            System.arraycopy(column.days(), 0, allDays, count, column.days().length);
+            count += column.days().length;
+        }
+        Arrays.sort(allDays);
+        int size = 1;
+        for (int i = 1; i < count; i++) {
+            if (allDays[i] != allDays[size - 1]) {
+                allDays[size++] = allDays[i];
+            }
+        }
+        int[] days = Arrays.copyOf(allDays, size);
+
+        double[] balance = new double[size];
+        double[] cashFlow = new double[size];
+        for (Column column : columns) {
+            add(column, days, balance, cashFlow);
+        }
+        return new PortfolioSeries(days, balance, cashFlow);
+    }
+
+    // one pass over the dates with a cursor into the wallet's column
+    private static void add(Column column, int[] days, double[] balance, double[] cashFlow) {
+        int[] columnDays = column.days();
+        if (columnDays.length == 0) {
+            return;
+        }
+        int cursor = 0;
+        int d = 0;
+        double lastBalance = 0;
+        for (; d < days.length && cursor < columnDays.length; d++) {
+            double flow = 0;
+            // of several snapshots on the same date the last one counts
+            while (cursor < columnDays.length && columnDays[cursor] == days[d]) {
+                lastBalance = column.balance()[cursor];
+                flow = column.cashFlow()[cursor];
+                cursor++;
+            }
+            balance[d] += lastBalance;
+            cashFlow[d] += flow;
+        }
+        // carry the final balance forward
+        for (; d < days.length; d++) {
+            balance[d] += lastBalance;
+        }
+    }
+
+    private static double value(BigDecimal amount) {
+        return amount != null ? amount.doubleValue() : 0;
+    }
+
+    public int size() {
+        return days.length;
+    }
+
+    public boolean isEmpty() {
+        return days.length == 0;
+    }
+
+    public LocalDate date(int i) {
+        return LocalDate.ofEpochDay(days[i]);
+    }
+
+    public double balance(int i) {
+        return balance[i];
+    }
+
+    public double cashFlow(int i) {
+        return cashFlow[i];
+    }
+
+    /**
+     * Time-weighted return, the cash flow of each date counted at the start of its period.
+     */
+    public double twr() {
+        double product = 1.0;
+        for (int i = 1; i < days.length; i++) {
+            double beginValue = balance[i - 1] + cashFlow[i];
+            if (beginValue > 0) {
+                product *= balance[i] / beginValue;
+            }
+        }
+        return product - 1.0;
+    }
+
+    public Map<LocalDate, InvestmentCalculationService.PortfolioPoint> toMap() {
+        Map<LocalDate, InvestmentCalculationService.PortfolioPoint> result = new TreeMap<>();
+        for (int i = 0; i < days.length; i++) {
+            result.put(date(i), new InvestmentCalculationService.PortfolioPoint(
+                    BigDecimal.valueOf(balance[i]), BigDecimal.valueOf(cashFlow[i])));
+        }
+        return result;
+    }
+
+    /**
+     * One wallet's snapshots as date-sorted arrays, amounts already converted with the wallet's rate.
+     */
+    public record Column(int[] days, double[] balance, double[] cashFlow) {
+
+        public static Column of(Collection<WalletSnapshot> snapshots, double rate) {
+            return of(snapshots, day -> rate);
+        }
+
+        /**
+         * @param rateOnDay rate to the series currency on the given epoch day
+         */
+        public static Column of(Collection<WalletSnapshot> snapshots, IntToDoubleFunction rateOnDay) {
+            List<WalletSnapshot> sorted = new ArrayList<>(snapshots.size());
+            for (WalletSnapshot snapshot : snapshots) {
+                if (snapshot.getSnapshotDate() != null) {
+                    sorted.add(snapshot);
+                }
+            }
+            sorted.sort(Comparator.comparing(WalletSnapshot::getSnapshotDate));
+
+            int[] days = new int[sorted.size()];
+            double[] balance = new double[sorted.size()];
+            double[] cashFlow = new double[sorted.size()];
+            for (int i = 0; i < days.length; i++) {
+                WalletSnapshot snapshot = sorted.get(i);
+                days[i] = (int) snapshot.getSnapshotDate().toEpochDay();
+                double rate = rateOnDay.applyAsDouble(days[i]);
+                balance[i] = value(snapshot.getPortfolioValue()) * rate;
+                cashFlow[i] = (value(snapshot.getMonthlyDeposit()) - value(snapshot.getMonthlyWithdrawal())) * rate;
+            }
+            return new Column(days, balance, cashFlow);
+        }
+    }
+}
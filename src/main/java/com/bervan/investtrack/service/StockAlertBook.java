@@ -0,0 +1,156 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.StockPriceAlert;
+import com.bervan.investtrack.model.StockPriceAlertConfig;
+import com.bervan.investtrack.service.scrap.StockPriceFetcher.SymbolKey;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * In-memory book of active stock price alerts, per (exchange, symbol). {@code >=} and {@code <=}
+ * thresholds are kept in sorted maps, so the alerts triggered by a quote are found with one range
+ * lookup instead of checking every alert. Kept in sync by the alert service and controller; alerts
+ * without notifications left, deleted or incomplete alerts are not in the book.
+ */
+@Service
+public class StockAlertBook {
+    private static final String AT_OR_ABOVE = ">=";
+    private static final String AT_OR_BELOW = "<=";
+
+    private final Map<SymbolKey, SymbolBook> books = new HashMap<>();
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private boolean loaded;
+
+    public synchronized void replaceAll(Collection<StockPriceAlert> alerts) {
+        books.clear();
+        entries.clear();
+        for (StockPriceAlert alert : alerts) {
+            index(alert);
+        }
+        loaded = true;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds or re-indexes the alert; an alert that can no longer trigger is removed.
+     */
+    public synchronized void put(StockPriceAlert alert) {
+        if (alert.getId() == null) {
+            return;
+        }
+        remove(alert.getId());
+        index(alert);
+    }
+
+    public synchronized void remove(UUID id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        SymbolBook book = books.get(entry.key());
+        book.remove(entry);
+        if (book.isEmpty()) {
+            books.remove(entry.key());
+        }
+    }
+
+    /**
+     * Alerts of the symbol whose threshold is reached by the given price.
+     */
+    public synchronized List<StockPriceAlert> triggered(SymbolKey key, BigDecimal price) {
+        SymbolBook book = books.get(key);
+        if (book == null) {
+            return List.of();
+        }
+        List<StockPriceAlert> triggered = new ArrayList<>();
+        for (Map<UUID, StockPriceAlert> alerts : book.atOrAbove.headMap(price, true).values()) {
+            triggered.addAll(alerts.values());
+        }
+        for (Map<UUID, StockPriceAlert> alerts : book.atOrBelow.tailMap(price, true).values()) {
+            triggered.addAll(alerts.values());
+        }
+        return triggered;
+    }
+
+    /**
+     * Alerts whose check interval has elapsed, grouped by symbol - the symbols worth fetching now.
+     */
+    public synchronized Map<SymbolKey, List<StockPriceAlert>> dueAlerts(LocalDateTime now) {
+        Map<SymbolKey, List<StockPriceAlert>> due = new LinkedHashMap<>();
+        for (Entry entry : entries.values()) {
+            StockPriceAlertConfig config = entry.alert().getStockPriceAlertConfig();
+            LocalDateTime checked = config.getPreviouslyCheckedDate();
+            Integer interval = config.getCheckIntervalMinutes();
+            if (checked == null || interval == null || now.minusMinutes(interval).isAfter(checked)) {
+                due.computeIfAbsent(entry.key(), k -> new ArrayList<>()).add(entry.alert());
+            }
+        }
+        return due;
+    }
+
+    private void index(StockPriceAlert alert) {
+        if (!isActive(alert)) {
+            return;
+        }
+        StockPriceAlertConfig config = alert.getStockPriceAlertConfig();
+        Entry entry = new Entry(new SymbolKey(alert.getExchange(), alert.getSymbol().trim()),
+                AT_OR_ABOVE.equals(config.getOperator()), config.getPrice(), alert);
+        books.computeIfAbsent(entry.key(), k -> new SymbolBook()).add(entry);
+        entries.put(alert.getId(), entry);
+    }
+
+    private static boolean isActive(StockPriceAlert alert) {
+        StockPriceAlertConfig config = alert.getStockPriceAlertConfig();
+        return alert.getId() != null
+                && !Boolean.TRUE.equals(alert.isDeleted())
+                && alert.getSymbol() != null
+                && alert.getExchange() != null
+                && alert.getEmails() != null && !alert.getEmails().isEmpty()
+                && config != null
+                && config.getPrice() != null
+                && (AT_OR_ABOVE.equals(config.getOperator()) || AT_OR_BELOW.equals(config.getOperator()))
+                && config.getAmountOfNotifications() != null && config.getAmountOfNotifications() > 0;
+    }
+
+    private record Entry(SymbolKey key, boolean atOrAbove, BigDecimal threshold, StockPriceAlert alert) {
+    }
+
+    private static class SymbolBook {
+        // threshold -> alerts; ">=" alerts fire for thresholds <= price, "<=" alerts for thresholds >= price
+        private final NavigableMap<BigDecimal, Map<UUID, StockPriceAlert>> atOrAbove = new TreeMap<>();
+        private final NavigableMap<BigDecimal, Map<UUID, StockPriceAlert>> atOrBelow = new TreeMap<>();
+
+        void add(Entry entry) {
+            side(entry).computeIfAbsent(entry.threshold(), t -> new LinkedHashMap<>()).put(entry.alert().getId(), entry.alert());
+        }
+
+        void remove(Entry entry) {
+            NavigableMap<BigDecimal, Map<UUID, StockPriceAlert>> side = side(entry);
+            Map<UUID, StockPriceAlert> alerts = side.get(entry.threshold());
+            if (alerts != null) {
+                alerts.remove(entry.alert().getId());
+                if (alerts.isEmpty()) {
+                    side.remove(entry.threshold());
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return atOrAbove.isEmpty() && atOrBelow.isEmpty();
+        }
+
+        private NavigableMap<BigDecimal, Map<UUID, StockPriceAlert>> side(Entry entry) {
+            return entry.atOrAbove() ? atOrAbove : atOrBelow;
+        }
+    }
+}
@@ -4,11 +4,12 @@ import com.bervan.common.search.SearchRequest;
 import com.bervan.common.search.SearchService;
 import com.bervan.common.search.model.SearchOperation;
 import com.bervan.common.service.BaseService;
-import com.bervan.common.service.EmailService;
 import com.bervan.investtrack.model.StockPriceAlert;
 import com.bervan.investtrack.model.StockPriceAlertConfig;
-import com.bervan.investtrack.service.scrap.ScrapStockPriceService;
+import com.bervan.investtrack.service.scrap.QuoteBus;
+import com.bervan.investtrack.service.scrap.StockPriceFetcher;
 import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PostConstruct;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -21,180 +22,318 @@ import java.util.*;
 @Service
 public class StockPriceAlertService extends BaseService<UUID, StockPriceAlert> {
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final EmailService emailService;
-    private final List<ScrapStockPriceService> scrapStockPriceServices;
-
-    protected StockPriceAlertService(EmailService emailService, StockPriceAlertRepository repository, SearchService searchService, List<ScrapStockPriceService> scrapStockPriceServices) {
+    private final NotificationOutbox notificationOutbox;
+    private final StockPriceAlertConfigRepository configRepository;
+    private final StockPriceFetcher stockPriceFetcher;
+    private final StockAlertBook alertBook;
+    private final QuoteBus quoteBus;
+    private final Object evaluationLock = new Object();
+
+    protected StockPriceAlertService(NotificationOutbox notificationOutbox, StockPriceAlertRepository repository, SearchService searchService,
+                                     StockPriceAlertConfigRepository configRepository, StockPriceFetcher stockPriceFetcher,
+                                     StockAlertBook alertBook, QuoteBus quoteBus) {
         super(repository, searchService);
-        this.emailService = emailService;
-        this.scrapStockPriceServices = scrapStockPriceServices;
+        this.notificationOutbox = notificationOutbox;
+        this.configRepository = configRepository;
+        this.stockPriceFetcher = stockPriceFetcher;
+        this.alertBook = alertBook;
+        this.quoteBus = quoteBus;
+    }
+
+    @PostConstruct
+    void subscribeToQuotes() {
+        quoteBus.subscribe(this::onQuotes);
     }
 
     @Scheduled(cron = "0 0/5 9-17 * * MON-FRI")
     public void notifyAboutStockPrices() {
         log.info("notifyAboutStockPrices[scheduled] started");
+        if (!alertBook.isLoaded()) {
+            reloadAlertBook();
+        }
+
+        // polling fallback for symbols no source pushes: fetched prices go through the quote bus like any other
+        LocalDateTime now = LocalDateTime.now();
+        Map<StockPriceFetcher.SymbolKey, List<StockPriceAlert>> dueAlerts = alertBook.dueAlerts(now);
+        Map<StockPriceFetcher.SymbolKey, Optional<BigDecimal>> prices = stockPriceFetcher.fetchAll(dueAlerts.keySet());
+
+        // the check date is persisted, so the hourly book reload does not make every alert due again
+        synchronized (evaluationLock) {
+            List<StockPriceAlert> checked = new ArrayList<>();
+            for (Map.Entry<StockPriceFetcher.SymbolKey, List<StockPriceAlert>> entry : dueAlerts.entrySet()) {
+                if (prices.getOrDefault(entry.getKey(), Optional.empty()).isPresent()) {
+                    for (StockPriceAlert alert : entry.getValue()) {
+                        alert.getStockPriceAlertConfig().setPreviouslyCheckedDate(now);
+                        checked.add(alert);
+                    }
+                }
+            }
+            saveAlertState(checked);
+        }
+
+        int published = 0;
+        for (Map.Entry<StockPriceFetcher.SymbolKey, List<StockPriceAlert>> entry : dueAlerts.entrySet()) {
+            Optional<BigDecimal> stockPrice = prices.getOrDefault(entry.getKey(), Optional.empty());
+            if (stockPrice.isEmpty()) {
+                log.warn("Could not get stock price for symbol: {}", entry.getKey().symbol());
+                continue;
+            }
+            if (quoteBus.publish(entry.getKey().exchange(), entry.getKey().symbol(), stockPrice.get())) {
+                published++;
+            }
+        }
+        log.info("notifyAboutStockPrices[scheduled] ended: {} symbols due, {} quotes published", dueAlerts.size(), published);
+    }
+
+    /**
+     * Evaluates pushed quotes against the alert book - only alerts whose threshold is reached are touched.
+     */
+    void onQuotes(List<QuoteBus.Quote> quotes) {
+        if (!alertBook.isLoaded()) {
+            reloadAlertBook();
+        }
+        synchronized (evaluationLock) {
+            List<StockPriceAlert> changed = new ArrayList<>();
+            for (QuoteBus.Quote quote : quotes) {
+                for (StockPriceAlert alert : alertBook.triggered(quote.key(), quote.price())) {
+                    try {
+                        if (isValid(alert) && evaluate(alert, Optional.of(quote.price()))) {
+                            changed.add(alert);
+                        }
+                    } catch (Exception e) {
+                        log.error("Could not notify about product prices: alert name = {}", alert.getName(), e);
+                    }
+                }
+            }
+            saveAlertState(changed);
+        }
+    }
 
+    /**
+     * Rebuilds the alert book from the database. Runs hourly as a safety net for changes made outside
+     * the alert controller.
+     */
+    @Scheduled(cron = "${invest-track.alerts.book-reload-cron:0 0 * * * *}")
+    public void reloadAlertBook() {
         SearchRequest request = new SearchRequest();
         request.setAddOwnerCriterion(false);
         request.addCriterion("NOTIFICATION_LEFT_MORE_THAN_0", StockPriceAlert.class, "stockPriceAlertConfig.amountOfNotifications", SearchOperation.GREATER_EQUAL_OPERATION, 1);
-        //todo store it in cache
         Set<StockPriceAlert> productAlerts = load(request, Pageable.ofSize(100000));
+        alertBook.replaceAll(productAlerts);
+        log.info("Alert book reloaded: {} active alerts", alertBook.size());
+    }
+
+    public void alertSaved(StockPriceAlert alert) {
+        alertBook.put(alert);
+    }
 
-        notifyAboutStockPrices(productAlerts);
-        log.info("notifyAboutStockPrices[scheduled] ended");
+    public void alertDeleted(UUID id) {
+        alertBook.remove(id);
     }
 
     public void notifyAboutStockPrices(Collection<StockPriceAlert> alerts) {
         log.info("notifyAboutStockPrices started");
+        // alerts on the same symbol share one fetch
+        Map<StockPriceFetcher.SymbolKey, List<StockPriceAlert>> dueAlerts = new LinkedHashMap<>();
         for (StockPriceAlert alert : alerts) {
             try {
-                notifyAboutStockPrices(alert);
+                if (isDue(alert)) {
+                    dueAlerts.computeIfAbsent(new StockPriceFetcher.SymbolKey(alert.getExchange(), alert.getSymbol().trim()),
+                            k -> new ArrayList<>()).add(alert);
+                }
             } catch (Exception e) {
                 log.error("Could not notify about product prices: alert name = {}", alert.getName(), e);
             }
         }
+
+        Map<StockPriceFetcher.SymbolKey, Optional<BigDecimal>> prices = stockPriceFetcher.fetchAll(dueAlerts.keySet());
+        log.debug("Fetched {} distinct symbols for {} alerts", prices.size(), alerts.size());
+
+        synchronized (evaluationLock) {
+            // every evaluated alert is saved, its check date changed even when nothing was sent
+            List<StockPriceAlert> checked = new ArrayList<>();
+            for (Map.Entry<StockPriceFetcher.SymbolKey, List<StockPriceAlert>> entry : dueAlerts.entrySet()) {
+                Optional<BigDecimal> stockPrice = prices.getOrDefault(entry.getKey(), Optional.empty());
+                for (StockPriceAlert alert : entry.getValue()) {
+                    try {
+                        evaluate(alert, stockPrice);
+                        checked.add(alert);
+                    } catch (Exception e) {
+                        log.error("Could not notify about product prices: alert name = {}", alert.getName(), e);
+                    }
+                }
+            }
+            saveAlertState(checked);
+        }
         log.info("notifyAboutStockPrices ended");
     }
 
-    private void notifyAboutStockPrices(StockPriceAlert alert) {
+    private boolean isDue(StockPriceAlert alert) {
+        if (!isValid(alert)) {
+            return false;
+        }
+
+        if (alert.getStockPriceAlertConfig().getPreviouslyCheckedDate() != null) {
+            LocalDateTime previousCheckedDate = alert.getStockPriceAlertConfig().getPreviouslyCheckedDate();
+            LocalDateTime now = LocalDateTime.now();
+            Integer checkIntervalMinutes = alert.getStockPriceAlertConfig().getCheckIntervalMinutes();
+            if (now.minusMinutes(checkIntervalMinutes).isAfter(previousCheckedDate)) {
+                log.debug("Checking alert: {}", alert.getName());
+            } else {
+                log.debug("Alert was checked recently. Skipping.");
+                return false;
+            }
+        }
+
+        if (!stockPriceFetcher.supports(alert.getExchange())) {
+            log.warn("No price source for exchange {}. Skipping.", alert.getExchange());
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isValid(StockPriceAlert alert) {
         //todo refactor validation logic
         if (alert.getEmails() == null || alert.getEmails().isEmpty()) {
             log.warn("Alert without emails. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getStockPriceAlertConfig() == null) {
             log.warn("Alert without config. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getStockPriceAlertConfig().getOperator() == null) {
             log.warn("Alert without operator. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getStockPriceAlertConfig().getPrice() == null) {
             log.warn("Alert without price. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getStockPriceAlertConfig().getAmountOfNotifications() == null) {
             log.warn("Alert without amount of notifications. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getSymbol() == null) {
             log.warn("Alert without symbol. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getExchange() == null) {
             log.warn("Alert without exchange. Skipping.");
-            return;
+            return false;
         }
 
         if (alert.getStockPriceAlertConfig().getAmountOfNotifications() <= 0) {
             log.error("Alert with 0 or less notifications! Search did not work!");
-            return;
+            return false;
         }
+        return true;
+    }
 
-        if (alert.getStockPriceAlertConfig().getPreviouslyCheckedDate() != null) {
-            LocalDateTime previousCheckedDate = alert.getStockPriceAlertConfig().getPreviouslyCheckedDate();
-            LocalDateTime now = LocalDateTime.now();
-            Integer checkIntervalMinutes = alert.getStockPriceAlertConfig().getCheckIntervalMinutes();
-            if (now.minusMinutes(checkIntervalMinutes).isAfter(previousCheckedDate)) {
-                log.debug("Checking alert: {}", alert.getName());
-            } else {
-                log.debug("Alert was checked recently. Skipping.");
-                return;
-            }
+    /**
+     * Returns true when a notification was sent. Sets the check date either way; callers polling on the
+     * check interval persist it, quote-driven evaluation only persists alerts that notified.
+     */
+    private boolean evaluate(StockPriceAlert alert, Optional<BigDecimal> stockPrice) {
+        alert.getStockPriceAlertConfig().setPreviouslyCheckedDate(LocalDateTime.now());
+        if (stockPrice.isPresent()) {
+            return notifyIfTriggered(alert, stockPrice.get());
         }
+        log.warn("Could not get stock price for alert: {}", alert.getName());
+        return false;
+    }
 
+    /**
+     * One saveAll for every alert config changed in the run, then the book is re-indexed - alerts that
+     * ran out of notifications leave it.
+     */
+    private void saveAlertState(List<StockPriceAlert> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        configRepository.saveAll(changed.stream().map(StockPriceAlert::getStockPriceAlertConfig).toList());
+        changed.forEach(alertBook::put);
+        log.debug("Saved state of {} alerts", changed.size());
+    }
 
-        for (ScrapStockPriceService scrapStockPriceService : scrapStockPriceServices) {
-            if (scrapStockPriceService.supports(alert.getExchange())) {
-                Optional<BigDecimal> stockPrice = scrapStockPriceService.getStockPrice(alert.getSymbol());
-                alert.getStockPriceAlertConfig().setPreviouslyCheckedDate(LocalDateTime.now());
-                if (stockPrice.isPresent()) {
-                    BigDecimal actualPrice = stockPrice.get();
-                    StockPriceAlertConfig alertConfig = alert.getStockPriceAlertConfig();
-                    boolean shouldAlert = false;
-                    if (alertConfig.getOperator().equals(">=")) {
-                        shouldAlert = actualPrice.compareTo(alertConfig.getPrice()) >= 0;
-                    } else if (alertConfig.getOperator().equals("<=")) {
-                        shouldAlert = actualPrice.compareTo(alertConfig.getPrice()) <= 0;
-                    }
+    private boolean notifyIfTriggered(StockPriceAlert alert, BigDecimal actualPrice) {
+        StockPriceAlertConfig alertConfig = alert.getStockPriceAlertConfig();
+        boolean shouldAlert = false;
+        if (alertConfig.getOperator().equals(">=")) {
+            shouldAlert = actualPrice.compareTo(alertConfig.getPrice()) >= 0;
+        } else if (alertConfig.getOperator().equals("<=")) {
+            shouldAlert = actualPrice.compareTo(alertConfig.getPrice()) <= 0;
+        }
 
-                    if (!shouldAlert) {
-                        break;
-                    }
+        if (!shouldAlert) {
+            return false;
+        }
 
-                    if (alertConfig.getPreviouslyNotifiedPrice() != null) {
-                        Integer percentageStep = alertConfig.getAnotherNotificationEachPercentage();
-
-                        if (percentageStep != null) {
-                            BigDecimal changeInPercentage = actualPrice
-                                    .subtract(alertConfig.getPreviouslyNotifiedPrice())
-                                    .divide(alertConfig.getPreviouslyNotifiedPrice(), 4, RoundingMode.HALF_UP);
-
-                            BigDecimal threshold = BigDecimal.valueOf(percentageStep)
-                                    .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
-
-                            boolean percentageTrigger = false;
-
-                            if (alertConfig.getOperator().equals(">=")) {
-                                // trigger only if change is positive and >= threshold
-                                percentageTrigger = changeInPercentage.compareTo(threshold) >= 0;
-                            } else {
-                                // trigger only if change is negative and <= -threshold
-                                percentageTrigger = changeInPercentage.compareTo(threshold.negate()) <= 0;
-                            }
-
-                            if (!percentageTrigger) {
-                                log.debug("Percentage change not enough: {} vs threshold {}", changeInPercentage, threshold);
-                                shouldAlert = false;
-                            } else {
-                                log.debug("Percentage change enough: {} vs threshold {}", changeInPercentage, threshold);
-                                shouldAlert = true;
-                            }
-                        } else {
-                            log.error("No percentage step configured. Skipping notification.");
-                            shouldAlert = false;
-                        }
-                    }
+        if (alertConfig.getPreviouslyNotifiedPrice() != null) {
+            Integer percentageStep = alertConfig.getAnotherNotificationEachPercentage();
 
-                    if (!shouldAlert) {
-                        break;
-                    }
+            if (percentageStep != null) {
+                BigDecimal changeInPercentage = actualPrice
+                        .subtract(alertConfig.getPreviouslyNotifiedPrice())
+                        .divide(alertConfig.getPreviouslyNotifiedPrice(), 4, RoundingMode.HALF_UP);
 
-                    for (String email : alert.getEmails()) {
-                        String subject = "\uD83D\uDE45\u200D♂\uFE0F\uD83D\uDCB0 Stock Alert: " + alert.getName() + "!";
-                        emailService.sendEmail(email, subject, """
-                                        Hello!
-                                        <br>
-                                        Stock alert for: %s.
-                                        <br>
-                                        <br>
-                                        Current price: %s
-                                        Threshold: %s
-                                        <br>
-                                        Please review the situation and take action if necessary.
-                                
-                                """.formatted(alert.getSymbol(), actualPrice, alert.getStockPriceAlertConfig().getPrice()), "Stock Alert");
-                    }
+                BigDecimal threshold = BigDecimal.valueOf(percentageStep)
+                        .divide(BigDecimal.valueOf(100), 4, RoundingMode.HALF_UP);
+
+                boolean percentageTrigger = false;
 
-                    alertConfig.setPreviouslyNotifiedDate(LocalDateTime.now());
-                    alertConfig.setPreviouslyNotifiedPrice(actualPrice);
-                    alertConfig.setAmountOfNotifications(alertConfig.getAmountOfNotifications() - 1);
-                    alert.setStockPriceAlertConfig(alertConfig);
+                if (alertConfig.getOperator().equals(">=")) {
+                    // trigger only if change is positive and >= threshold
+                    percentageTrigger = changeInPercentage.compareTo(threshold) >= 0;
                 } else {
-                    log.warn("Could not get stock price for alert: {}", alert.getName());
+                    // trigger only if change is negative and <= -threshold
+                    percentageTrigger = changeInPercentage.compareTo(threshold.negate()) <= 0;
                 }
 
+                if (!percentageTrigger) {
+                    log.debug("Percentage change not enough: {} vs threshold {}", changeInPercentage, threshold);
+                    shouldAlert = false;
+                } else {
+                    log.debug("Percentage change enough: {} vs threshold {}", changeInPercentage, threshold);
+                    shouldAlert = true;
+                }
+            } else {
+                log.error("No percentage step configured. Skipping notification.");
+                shouldAlert = false;
             }
         }
 
-        repository.save(alert); //update changes
+        if (!shouldAlert) {
+            return false;
+        }
+
+        for (String email : alert.getEmails()) {
+            String subject = "\uD83D\uDE45\u200D♂\uFE0F\uD83D\uDCB0 Stock Alert: " + alert.getName() + "!";
+            notificationOutbox.enqueue(email, subject, """
+                            Hello!
+                            <br>
+                            Stock alert for: %s.
+                            <br>
+                            <br>
+                            Current price: %s
+                            Threshold: %s
+                            <br>
+                            Please review the situation and take action if necessary.
+                    
+                    """.formatted(alert.getSymbol(), actualPrice, alert.getStockPriceAlertConfig().getPrice()), "Stock Alert");
+        }
+
+        alertConfig.setPreviouslyNotifiedDate(LocalDateTime.now());
+        alertConfig.setPreviouslyNotifiedPrice(actualPrice);
+        alertConfig.setAmountOfNotifications(alertConfig.getAmountOfNotifications() - 1);
+        alert.setStockPriceAlertConfig(alertConfig);
+        return true;
     }
 
     public List<String> loadEmails(StockPriceAlert stockPriceAlert) {
@@ -1,49 +1,60 @@
 package com.bervan.investtrack.service;
 
 import com.bervan.asynctask.AsyncTaskService;
-import com.bervan.common.service.PlaywrightService;
-import com.bervan.filestorage.model.BervanMockMultiPartFile;
-import com.bervan.filestorage.service.FileDiskStorageService;
 import com.bervan.ieentities.BaseExcelExport;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.recommendations.ShortTermRecommendationStrategy;
+import com.bervan.investtrack.service.scrap.BankierQuoteScraper;
+import com.bervan.investtrack.service.scrap.GPWScrapStockPriceService;
+import com.bervan.investtrack.service.scrap.GpwIsinMap;
+import com.bervan.investtrack.service.scrap.QuoteBus;
+import com.bervan.investtrack.service.scrap.QuoteCache;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.StockTickStore;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
-import com.microsoft.playwright.Locator;
-import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class StockPriceReportService {
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
     private final BaseExcelExport baseExcelExport;
-    private final PlaywrightService playwrightService;
-    private final FileDiskStorageService fileDiskStorageService;
+    private final BankierQuoteScraper bankierQuoteScraper;
+    private final QuoteCache quoteCache;
+    private final GpwIsinMap gpwIsinMap;
+    private final QuoteBus quoteBus;
+    private final SessionDataRepository sessionDataRepository;
     private final AsyncTaskService asyncTaskService;
-    private final String URL = "https://www.bankier.pl/gielda/notowania/akcje";
     private final BaseProcessContext loadStockPricesContext = BaseProcessContext.builder()
             .processName("loadStockPrices").build();
     private final Map<String, ShortTermRecommendationStrategy> strategies;
 
-    protected StockPriceReportService(PlaywrightService playwrightService,
-                                      FileDiskStorageService fileDiskStorageService,
+    protected StockPriceReportService(BankierQuoteScraper bankierQuoteScraper,
+                                      QuoteCache quoteCache,
+                                      GpwIsinMap gpwIsinMap,
+                                      QuoteBus quoteBus,
+                                      SessionDataRepository sessionDataRepository,
                                       AsyncTaskService asyncTaskService,
                                       Map<String, ShortTermRecommendationStrategy> strategies) {
-        this.playwrightService = playwrightService;
-        this.fileDiskStorageService = fileDiskStorageService;
+        this.bankierQuoteScraper = bankierQuoteScraper;
+        this.quoteCache = quoteCache;
+        this.gpwIsinMap = gpwIsinMap;
+        this.quoteBus = quoteBus;
+        this.sessionDataRepository = sessionDataRepository;
         this.asyncTaskService = asyncTaskService;
         this.strategies = strategies;
         baseExcelExport = new BaseExcelExport();
@@ -54,28 +65,42 @@ public class StockPriceReportService {
         return new ArrayList<>(strategies.keySet());
     }
 
-    @Scheduled(cron = "0 30 9 * * MON-FRI", zone = "Europe/Warsaw")
+    @Scheduled(cron = "${invest-track.sessions.morning-cron:0 30 9 * * MON-FRI}", zone = "Europe/Warsaw")
     public void loadStockPricesMorning() {
         log.info(loadStockPricesContext.map(), "loadStockPricesMorning started");
         try {
-            loadStockPrices("Morning");
+            loadStockPrices(StockTickStore.MORNING);
         } catch (Exception e) {
             log.error(loadStockPricesContext.map(), "Error loading morning stock prices", e);
         }
         log.info(loadStockPricesContext.map(), "loadStockPricesMorning finished");
     }
 
-    @Scheduled(cron = "0 30 17 * * MON-FRI", zone = "Europe/Warsaw")
+    @Scheduled(cron = "${invest-track.sessions.evening-cron:0 30 17 * * MON-FRI}", zone = "Europe/Warsaw")
     public void loadStockPricesEvening() {
         log.info(loadStockPricesContext.map(), "loadStockPricesEvening started");
         try {
-            loadStockPrices("Evening");
+            loadStockPrices(StockTickStore.EVENING);
         } catch (Exception e) {
             log.error(loadStockPricesContext.map(), "Error loading evening stock prices", e);
         }
         log.info(loadStockPricesContext.map(), "loadStockPricesEvening finished");
     }
 
+    /**
+     * Intraday snapshot, stored as a delta against the previous one. Set the cron to "-" to disable.
+     */
+    @Scheduled(cron = "${invest-track.intraday.cron:0 0/15 9-17 * * MON-FRI}", zone = "Europe/Warsaw")
+    public void loadStockPricesIntraday() {
+        log.debug(loadStockPricesContext.map(), "loadStockPricesIntraday started");
+        try {
+            loadStockPrices(StockTickStore.INTRADAY);
+        } catch (Exception e) {
+            log.error(loadStockPricesContext.map(), "Error loading intraday stock prices", e);
+        }
+        log.debug(loadStockPricesContext.map(), "loadStockPricesIntraday finished");
+    }
+
     private void loadStockPrices(String x) {
         LocalDate now = LocalDate.now();
 
@@ -87,45 +112,8 @@ public class StockPriceReportService {
 
         log.debug(loadStockPricesContext.map(), "Loading stock prices for date: " + dateToCheck);
 
-        try (Playwright playwright = Playwright.create()) {
-            Page page = playwrightService.getPage(playwright, true);
-            page.navigate(URL);
-
-            List<Locator> rows = page.locator("tbody tr").all();
-
-            List<StockPriceData> results = new ArrayList<>();
-            long i = 0;
-
-            for (Locator row : rows) {
-                try {
-                    List<Locator> cols = row.locator("td").all();
-
-                    StockPriceData item = new StockPriceData();
-                    item.setId(i++);
-
-                    item.setSymbol(cols.get(0).locator("a").innerText().trim());
-
-                    item.setPrice(getBigDecimal(cols.get(1).innerText().trim()));
-
-                    item.setChangePercent(getBigDecimal(cols.get(2).innerText().trim()));
-
-                    item.setChange(getBigDecimal(cols.get(3).innerText().trim()));
-
-                    item.setTransactions(getInteger(cols.get(4).innerText().trim()));
-
-                    item.setDate(cols.get(9).innerText().trim());
-
-                    // Filter by today
-                    if (!item.getDate().contains(dateToCheck)) {
-                        continue;
-                    }
-
-                    results.add(item);
-
-                } catch (Exception e) {
-                    log.debug(loadStockPricesContext.map(), "Error loading stock price data", e);
-                }
-            }
+        try {
+            List<StockPriceData> results = bankierQuoteScraper.scrape(dateToCheck);
 
             log.info(loadStockPricesContext.map(), "Loaded " + results.size() + " stock prices");
 
@@ -133,42 +121,37 @@ public class StockPriceReportService {
                 log.warn(loadStockPricesContext.map(), "Not enough stock prices loaded!");
             }
 
-            String filename = "STOCKS_PL_" + now.getDayOfMonth() + "_"
-                    + now.getMonthValue() + "_" + x + ".xlsx";
-
-            try (Workbook workbook = baseExcelExport.exportExcel(results, null)) {
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                workbook.write(outputStream);
-                byte[] byteArray = outputStream.toByteArray();
-
-                fileDiskStorageService.storeTmp(
-                        new BervanMockMultiPartFile(
-                                filename,
-                                filename,
-                                Files.probeContentType(Path.of(filename)),
-                                new ByteArrayInputStream(byteArray)
-                        ),
-                        filename
-                );
-
-                log.info(loadStockPricesContext.map(), "Saved stock data excel file: " + filename);
+            sessionDataRepository.save(now, x, results);
+            log.info(loadStockPricesContext.map(), "Saved " + x + " session to tick store for " + now);
+
+            // alert checks on these symbols can use the fresh prices instead of scraping them one by one;
+            // GPW alerts look shares up by ISIN, Bankier rows carry tickers
+            Map<String, BigDecimal> byTicker = new HashMap<>();
+            for (StockPriceData row : results) {
+                byTicker.putIfAbsent(row.getSymbol(), row.getPrice());
             }
+            Map<String, BigDecimal> prices = gpwIsinMap.byIsin(byTicker);
+            quoteCache.seed(GPWScrapStockPriceService.GPW, prices, Instant.now());
+            quoteBus.publishAll(GPWScrapStockPriceService.GPW, prices);
 
         } catch (Exception e) {
             log.error(loadStockPricesContext.map(), "Failed to load stock prices", e);
         }
     }
 
-
-    private BigDecimal getBigDecimal(String text) {
-        return BigDecimal.valueOf(Double.parseDouble(text.replace(",", ".")
-                .replace(" ", "")
-                .replace("%", "")
-                .replace(" ", "")));
-    }
-
-    private Integer getInteger(String text) {
-        return Integer.valueOf(text.replace(" ", "").replace(" ", "").trim());
+    /**
+     * XLSX rendering of a stored session for humans - the tick store stays the system of record.
+     */
+    public Optional<byte[]> exportSessionToExcel(LocalDate day, String session) throws IOException {
+        Optional<SessionData> data = sessionDataRepository.get(day, session);
+        if (data.isEmpty()) {
+            return Optional.empty();
+        }
+        try (Workbook workbook = baseExcelExport.exportExcel(data.get().rows(), null)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return Optional.of(outputStream.toByteArray());
+        }
     }
 
     public ReportData loadReportData(LocalDate date, BaseProcessContext recommendationContext, String strategyName) {
@@ -0,0 +1,12 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.history.model.BaseRepository;
+import com.bervan.investtrack.model.WalletMetrics;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface WalletMetricsRepository extends BaseRepository<WalletMetrics, UUID> {
+
+}
@@ -0,0 +1,103 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.WalletMetrics;
+import com.bervan.investtrack.model.WalletSnapshot;
+import com.bervan.logging.JsonLogger;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link WalletMetrics} in step with snapshot writes, so reading a wallet's metrics does not walk
+ * its history. A snapshot dated after the latest one is folded in; edits, deletes and back-dated
+ * snapshots rebuild the metrics from the snapshot list the caller already holds. Metrics missing for a
+ * wallet (e.g. created before this store existed) are built on first read.
+ * <p>
+ * Reads take no lock. Writes and the build-on-miss take a per-wallet lock, so two requests never rebuild
+ * the same wallet at once while other wallets stay unaffected.
+ */
+@Service
+public class WalletMetricsService {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final Map<UUID, Object> locks = new ConcurrentHashMap<>();
+    private final WalletMetricsRepository repository;
+    private final WalletSnapshotService snapshotService;
+
+    public WalletMetricsService(WalletMetricsRepository repository, WalletSnapshotService snapshotService) {
+        this.repository = repository;
+        this.snapshotService = snapshotService;
+    }
+
+    public WalletMetrics getMetrics(UUID walletId) {
+        return repository.findById(walletId).orElseGet(() -> buildMissing(walletId));
+    }
+
+    /**
+     * Metrics of several wallets in one query, keyed by wallet id - for list pages.
+     */
+    public Map<UUID, WalletMetrics> getMetrics(Collection<UUID> walletIds) {
+        Map<UUID, WalletMetrics> result = new HashMap<>();
+        for (WalletMetrics metrics : repository.findAllById(walletIds)) {
+            result.put(metrics.getId(), metrics);
+        }
+        for (UUID walletId : walletIds) {
+            if (!result.containsKey(walletId)) {
+                result.put(walletId, buildMissing(walletId));
+            }
+        }
+        return result;
+    }
+
+    public void snapshotCreated(UUID walletId, WalletSnapshot snapshot) {
+        synchronized (lock(walletId)) {
+            WalletMetrics metrics = repository.findById(walletId).orElse(null);
+            if (metrics == null || !metrics.canAppend(snapshot)) {
+                rebuild(walletId, snapshotService.findByWalletId(walletId));
+                return;
+            }
+            metrics.append(snapshot);
+            metrics.setModificationDate(LocalDateTime.now());
+            repository.save(metrics);
+        }
+    }
+
+    /**
+     * After an edit or delete - {@code snapshots} is the wallet's current snapshot list.
+     */
+    public void snapshotsChanged(UUID walletId, Collection<WalletSnapshot> snapshots) {
+        rebuild(walletId, snapshots);
+    }
+
+    public void walletDeleted(UUID walletId) {
+        synchronized (lock(walletId)) {
+            repository.findById(walletId).ifPresent(repository::delete);
+        }
+        locks.remove(walletId);
+    }
+
+    public WalletMetrics rebuild(UUID walletId, Collection<WalletSnapshot> snapshots) {
+        synchronized (lock(walletId)) {
+            WalletMetrics metrics = repository.findById(walletId).orElseGet(() -> new WalletMetrics(walletId));
+            metrics.rebuild(snapshots);
+            log.debug("Rebuilt metrics of wallet {} from {} snapshots", walletId, metrics.getSnapshotCount());
+            return repository.save(metrics);
+        }
+    }
+
+    private WalletMetrics buildMissing(UUID walletId) {
+        synchronized (lock(walletId)) {
+            // another request may have built it while this one waited for the lock
+            return repository.findById(walletId)
+                    .orElseGet(() -> rebuild(walletId, snapshotService.findByWalletId(walletId)));
+        }
+    }
+
+    private Object lock(UUID walletId) {
+        return locks.computeIfAbsent(walletId, id -> new Object());
+    }
+}
@@ -6,12 +6,13 @@ import com.bervan.common.search.model.SearchOperation;
 import com.bervan.common.service.BaseService;
 import com.bervan.history.model.BaseRepository;
 import com.bervan.investtrack.model.Wallet;
+import com.bervan.investtrack.model.WalletSnapshot;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 public class WalletService extends BaseService<UUID, Wallet> {
@@ -64,6 +65,19 @@ public class WalletService extends BaseService<UUID, Wallet> {
         return wallet;
     }
 
+    /**
+     * All wallets of the logged user with their snapshots, in two queries regardless of the number of wallets.
+     */
+    public List<WalletWithSnapshots> loadAllWithSnapshots() {
+        List<Wallet> wallets = new ArrayList<>(load(PageRequest.of(0, Integer.MAX_VALUE)));
+        Map<UUID, List<WalletSnapshot>> snapshots = snapshotService.findByWalletIds(wallets.stream().map(Wallet::getId).toList());
+        List<WalletWithSnapshots> result = new ArrayList<>(wallets.size());
+        for (Wallet wallet : wallets) {
+            result.add(new WalletWithSnapshots(wallet, snapshots.getOrDefault(wallet.getId(), List.of())));
+        }
+        return result;
+    }
+
     @Override
     public Wallet findById(UUID walletId) {
         return repository.findById(walletId).orElseThrow(() -> new IllegalArgumentException("Wallet with id " + walletId + " not found"));
@@ -0,0 +1,22 @@
+package com.bervan.investtrack.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Snapshot as exported, selected straight from the database so streamed exports do not keep entities in
+ * the persistence context.
+ */
+public record WalletSnapshotExportRow(
+        UUID id,
+        UUID walletId,
+        String walletName,
+        LocalDate snapshotDate,
+        BigDecimal portfolioValue,
+        BigDecimal monthlyDeposit,
+        BigDecimal monthlyWithdrawal,
+        BigDecimal monthlyEarnings,
+        String notes
+) {
+}
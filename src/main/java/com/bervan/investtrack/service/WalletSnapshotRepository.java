@@ -2,11 +2,35 @@ package com.bervan.investtrack.service;
 
 import com.bervan.history.model.BaseRepository;
 import com.bervan.investtrack.model.WalletSnapshot;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface WalletSnapshotRepository extends BaseRepository<WalletSnapshot, UUID> {
 
+    @Query("SELECT s FROM WalletSnapshot s JOIN FETCH s.wallet w WHERE w.id IN :walletIds AND (s.deleted = false OR s.deleted IS NULL) ORDER BY s.snapshotDate")
+    List<WalletSnapshot> findAllByWalletIds(Collection<UUID> walletIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bervan.investtrack.service.WalletSnapshotExportRow(s.id, w.id, w.name, s.snapshotDate, s.portfolioValue, "
+            + "s.monthlyDeposit, s.monthlyWithdrawal, s.monthlyEarnings, s.notes) "
+            + "FROM WalletSnapshot s JOIN s.wallet w WHERE w.id IN :walletIds AND (s.deleted = false OR s.deleted IS NULL) "
+            + "ORDER BY w.name, s.snapshotDate")
+    Stream<WalletSnapshotExportRow> streamExportRows(Collection<UUID> walletIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.bervan.investtrack.service.WalletSnapshotExportRow(s.id, w.id, w.name, s.snapshotDate, s.portfolioValue, "
+            + "s.monthlyDeposit, s.monthlyWithdrawal, s.monthlyEarnings, s.notes) "
+            + "FROM WalletSnapshot s JOIN s.wallet w WHERE w.id = :walletId AND (s.deleted = false OR s.deleted IS NULL) "
+            + "ORDER BY s.snapshotDate DESC")
+    Stream<WalletSnapshotExportRow> streamExportRowsNewestFirst(UUID walletId);
 }
@@ -5,19 +5,21 @@ import com.bervan.common.search.SearchService;
 import com.bervan.common.search.model.SearchOperation;
 import com.bervan.common.search.model.SortDirection;
 import com.bervan.common.service.BaseService;
-import com.bervan.history.model.BaseRepository;
 import com.bervan.investtrack.model.WalletSnapshot;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class WalletSnapshotService extends BaseService<UUID, WalletSnapshot> {
-    protected WalletSnapshotService(BaseRepository<WalletSnapshot, UUID> repository, SearchService searchService) {
+    protected WalletSnapshotService(WalletSnapshotRepository repository, SearchService searchService) {
         super(repository, searchService);
     }
 
@@ -27,24 +29,59 @@ public class WalletSnapshotService extends BaseService<UUID, WalletSnapshot> {
         return load(searchRequest, Pageable.ofSize(1000000), "snapshotDate", SortDirection.DESC, null).stream().toList();
     }
 
-    public String exportSnapshotsToCsv(UUID walletId) {
-        List<WalletSnapshot> snapshots = findByWalletId(walletId);
-        StringBuilder csv = new StringBuilder();
+    /**
+     * Snapshots of all given wallets in one query, grouped by wallet id and sorted by date ascending.
+     */
+    public Map<UUID, List<WalletSnapshot>> findByWalletIds(Collection<UUID> walletIds) {
+        if (walletIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<UUID, List<WalletSnapshot>> result = new HashMap<>();
+        for (WalletSnapshot snapshot : ((WalletSnapshotRepository) repository).findAllByWalletIds(walletIds)) {
+            result.computeIfAbsent(snapshot.getWallet().getId(), id -> new ArrayList<>()).add(snapshot);
+        }
+        return result;
+    }
+
+    /**
+     * Streams the export rows of the given wallets, ordered by wallet name and date, to {@code action}.
+     * Rows are read through a database cursor and never collected, so memory stays flat however many
+     * snapshots there are.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExportRow(Collection<UUID> walletIds, Consumer<WalletSnapshotExportRow> action) {
+        if (walletIds.isEmpty()) {
+            return;
+        }
+        try (Stream<WalletSnapshotExportRow> rows = ((WalletSnapshotRepository) repository).streamExportRows(walletIds)) {
+            rows.forEach(action);
+        }
+    }
 
-        csv.append("Snapshot Date,Portfolio Value,Monthly Deposit,Monthly Withdrawal,Monthly Earnings,Monthly Return Rate,Notes\n");
+    /**
+     * Writes the wallet's snapshots as CSV, newest first like {@link #findByWalletId}, row by row.
+     * The cursor is opened in this method's own transaction - a self-call to {@link #forEachExportRow}
+     * would bypass the transactional proxy.
+     */
+    @Transactional(readOnly = true)
+    public void exportSnapshotsToCsv(UUID walletId, Writer out) throws IOException {
+        out.write("Snapshot Date,Portfolio Value,Monthly Deposit,Monthly Withdrawal,Monthly Earnings,Monthly Return Rate,Notes\n");
 
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        for (WalletSnapshot snapshot : snapshots) {
-            csv.append(snapshot.getSnapshotDate().format(dateFormatter)).append(",");
-            csv.append(snapshot.getPortfolioValue()).append(",");
-            csv.append(snapshot.getMonthlyDeposit()).append(",");
-            csv.append(snapshot.getMonthlyWithdrawal()).append(",");
-            csv.append(snapshot.getMonthlyEarnings()).append(",");
-            csv.append("\"").append(snapshot.getNotes() != null ? snapshot.getNotes().replace("\"", "\"\"") : "").append("\"");
-            csv.append("\n");
+        try (Stream<WalletSnapshotExportRow> rows = ((WalletSnapshotRepository) repository).streamExportRowsNewestFirst(walletId)) {
+            Iterator<WalletSnapshotExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                WalletSnapshotExportRow snapshot = iterator.next();
+                out.write(snapshot.snapshotDate().format(dateFormatter) + ",");
+                out.write(snapshot.portfolioValue() + ",");
+                out.write(snapshot.monthlyDeposit() + ",");
+                out.write(snapshot.monthlyWithdrawal() + ",");
+                out.write(snapshot.monthlyEarnings() + ",");
+                out.write("\"" + (snapshot.notes() != null ? snapshot.notes().replace("\"", "\"\"") : "") + "\"");
+                out.write("\n");
+            }
         }
-
-        return csv.toString();
+        out.flush();
     }
 
 }
@@ -0,0 +1,41 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.Wallet;
+import com.bervan.investtrack.model.WalletSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * A wallet with its snapshots sorted by date, loaded in bulk by {@link WalletService#loadAllWithSnapshots()}
+ * so that {@link Wallet#getSnapshots()} is never initialized. Totals follow the {@link Wallet} getters.
+ */
+public record WalletWithSnapshots(Wallet wallet, List<WalletSnapshot> snapshots) {
+
+    public BigDecimal getCurrentValue() {
+        if (snapshots.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal value = snapshots.get(snapshots.size() - 1).getPortfolioValue();
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getTotalDeposits() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (WalletSnapshot snapshot : snapshots) {
+            if (snapshot.getMonthlyDeposit() != null) total = total.add(snapshot.getMonthlyDeposit());
+            if (snapshot.getMonthlyWithdrawal() != null) total = total.subtract(snapshot.getMonthlyWithdrawal());
+        }
+        return total;
+    }
+
+    public BigDecimal getReturnRate() {
+        BigDecimal netInvestment = getTotalDeposits();
+        if (netInvestment.compareTo(BigDecimal.ZERO) > 0) {
+            return getCurrentValue().subtract(netInvestment).divide(netInvestment, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+        }
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,162 @@
+package com.bervan.investtrack.service;
+
+import java.util.List;
+
+/**
+ * XIRR over primitive arrays. Cash flows are turned once into year offsets from the first flow and
+ * double amounts, so an iteration is a single loop without date arithmetic or BigDecimal conversions.
+ * Newton-Raphson is tried first; when it does not converge the rate is searched by bisection in
+ * {@code [MIN_RATE, MAX_RATE]}, provided the NPV changes sign there. Where there is no rate - all flows on
+ * one day, no flow back, no root - the result is NaN, except for a total loss (nothing but outflows and
+ * zeros), which is -100%.
+ */
+public final class XirrSolver {
+
+    public static final double MIN_RATE = -0.999;
+    public static final double MAX_RATE = 10;
+
+    private static final double INITIAL_GUESS = 0.1;
+    private static final int NEWTON_MAX_ITERATIONS = 50;
+    private static final int BISECTION_MAX_ITERATIONS = 200;
+    private static final double TOLERANCE = 1e-7;
+    private static final double RATE_TOLERANCE = 1e-12;
+    private static final double DAYS_PER_YEAR = 365.0;
+    // samples used to find a sign change of the NPV before bisecting
+    private static final double[] BRACKET_POINTS = {MIN_RATE, -0.9, -0.5, -0.2, 0, 0.2, 0.5, 1, 2, 5, MAX_RATE};
+
+    private XirrSolver() {
+    }
+
+    /**
+     * Computes XIRR of every cash flow set in one call; sets with fewer than two flows get 0, sets without
+     * a rate NaN.
+     */
+    public static double[] solveAll(List<Flows> flows) {
+        double[] rates = new double[flows.size()];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = solve(flows.get(i));
+        }
+        return rates;
+    }
+
+    public static double solve(Flows flows) {
+        double[] years = flows.years();
+        double[] amounts = flows.amounts();
+        if (years.length < 2) {
+            return 0;
+        }
+        boolean anyInflow = false;
+        boolean anyOutflow = false;
+        boolean sameDay = true;
+        for (int j = 0; j < years.length; j++) {
+            anyInflow |= amounts[j] > 0;
+            anyOutflow |= amounts[j] < 0;
+            sameDay &= years[j] == years[0];
+        }
+        if (anyOutflow && !anyInflow) {
+            return -1; // everything paid in was lost
+        }
+        if (!anyOutflow || sameDay) {
+            return Double.NaN; // the NPV does not depend on the rate
+        }
+
+        double rate = INITIAL_GUESS;
+        for (int i = 0; i < NEWTON_MAX_ITERATIONS; i++) {
+            double logBase = Math.log1p(rate);
+            double npv = 0;
+            double dnpv = 0;
+            for (int j = 0; j < years.length; j++) {
+                double discounted = amounts[j] * Math.exp(-years[j] * logBase);
+                npv += discounted;
+                dnpv -= years[j] * discounted;
+            }
+            dnpv /= 1 + rate;
+
+            if (Math.abs(npv) < TOLERANCE) {
+                return rate;
+            }
+            if (Math.abs(dnpv) < 1e-10) {
+                break;
+            }
+            double next = Math.min(MAX_RATE, Math.max(MIN_RATE, rate - npv / dnpv));
+            if (Math.abs(next - rate) < RATE_TOLERANCE) {
+                if (next == MIN_RATE || next == MAX_RATE) {
+                    break; // pinned to a bound, not a root
+                }
+                return next;
+            }
+            rate = next;
+        }
+
+        // NaN when Newton failed and there is no sign change to bisect
+        return bisect(years, amounts);
+    }
+
+    private static double bisect(double[] years, double[] amounts) {
+        double lo = BRACKET_POINTS[0];
+        double npvLo = npv(years, amounts, lo);
+        double hi = Double.NaN;
+        for (int i = 1; i < BRACKET_POINTS.length; i++) {
+            double candidate = BRACKET_POINTS[i];
+            double npvCandidate = npv(years, amounts, candidate);
+            if (Math.signum(npvCandidate) != Math.signum(npvLo)) {
+                hi = candidate;
+                break;
+            }
+            lo = candidate;
+            npvLo = npvCandidate;
+        }
+        if (Double.isNaN(hi)) {
+            return Double.NaN;
+        }
+
+        for (int i = 0; i < BISECTION_MAX_ITERATIONS && hi - lo > RATE_TOLERANCE; i++) {
+            double mid = (lo + hi) / 2;
+            double npvMid = npv(years, amounts, mid);
+            if (Math.abs(npvMid) < TOLERANCE) {
+                return mid;
+            }
+            if (Math.signum(npvMid) == Math.signum(npvLo)) {
+                lo = mid;
+                npvLo = npvMid;
+            } else {
+                hi = mid;
+            }
+        }
+        return (lo + hi) / 2;
+    }
+
+    private static double npv(double[] years, double[] amounts, double rate) {
+        double logBase = Math.log1p(rate);
+        double npv = 0;
+        for (int j = 0; j < years.length; j++) {
+            npv += amounts[j] * Math.exp(-years[j] * logBase);
+        }
+        return npv;
+    }
+
+    /**
+     * Cash flows prepared for the solver: offset of each flow from the earliest one in years, and its amount.
+     * Flows do not need to be sorted.
+     */
+    public record Flows(double[] years, double[] amounts) {
+
+        public static Flows of(List<InvestmentCalculationService.CashFlow> cashFlows) {
+            int n = cashFlows.size();
+            long[] days = new long[n];
+            double[] amounts = new double[n];
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                InvestmentCalculationService.CashFlow cashFlow = cashFlows.get(i);
+                days[i] = cashFlow.date().toEpochDay();
+                amounts[i] = cashFlow.amount().doubleValue();
+                first = Math.min(first, days[i]);
+            }
+            double[] years = new double[n];
+            for (int i = 0; i < n; i++) {
+                years[i] = (days[i] - first) / DAYS_PER_YEAR;
+            }
+            return new Flows(years, amounts);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.bervan.investtrack.service.recommendations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Aggregated outcome of replaying one strategy over a date range. Returns are in percentage points
+ * (evening change % minus morning change %), drawdown is measured on the cumulative sum of daily mean returns.
+ */
+public record BacktestResult(String strategy, LocalDate from, LocalDate to, int tradingDays, List<TierStats> tiers) {
+
+    public record TierStats(String tier, int recommendations, int good, int bad,
+                            BigDecimal hitRate, BigDecimal meanReturn, BigDecimal maxDrawdown) {
+    }
+}
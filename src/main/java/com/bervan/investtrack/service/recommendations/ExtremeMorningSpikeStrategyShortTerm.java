@@ -1,113 +1,86 @@
 package com.bervan.investtrack.service.recommendations;
 
-import com.bervan.filestorage.service.FileDiskStorageService;
-import com.bervan.ieentities.BaseExcelImport;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.StockTickStore;
+import com.bervan.investtrack.service.session.SymbolTable;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service("Extreme Morning Spike Strategy")
 public class ExtremeMorningSpikeStrategyShortTerm implements ShortTermRecommendationStrategy {
 
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final BaseExcelImport baseExcelImport;
-    private final FileDiskStorageService fileDiskStorageService;
+    private final SessionDataRepository sessionDataRepository;
 
-    public ExtremeMorningSpikeStrategyShortTerm(FileDiskStorageService fileDiskStorageService) {
-        this.baseExcelImport = new BaseExcelImport(List.of(StockPriceData.class));
-        this.fileDiskStorageService = fileDiskStorageService;
+    public ExtremeMorningSpikeStrategyShortTerm(SessionDataRepository sessionDataRepository) {
+        this.sessionDataRepository = sessionDataRepository;
     }
 
     @Override
     public ReportData loadReportData(LocalDate day, BaseProcessContext ctx) {
-        ReportData reportData = new ReportData();
-
-        String todayMorning = fileName(day, "Morning");
-        String todayEvening = fileName(day, "Evening");
+        return loadReportData(day, ctx, sessionDataRepository);
+    }
 
-        if (!fileDiskStorageService.isTmpFile(todayMorning)) return reportData;
+    @Override
+    public ReportData loadReportData(LocalDate day, BaseProcessContext ctx, SessionSource sessions) {
+        ReportData reportData = new ReportData();
 
-        List<StockPriceData> morningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayMorning).toFile())) {
-            morningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "Morning load error", e);
+        Optional<SessionData> todayMorning = sessions.get(day, StockTickStore.MORNING);
+        if (todayMorning.isEmpty()) {
             return reportData;
         }
 
-        // --- Build morning map for later comparison ---
-        Map<String, BigDecimal> morningMap = morningData.stream()
-                .filter(d -> d.getSymbol() != null && d.getChangePercent() != null)
-                .collect(Collectors.toMap(
-                        StockPriceData::getSymbol,
-                        StockPriceData::getChangePercent,
-                        (a, b) -> a
-                ));
-
         // --- Select candidates ---
-        List<StockPriceData> candidates = morningData.stream()
-                .filter(d -> d.getSymbol() != null)
-                .filter(d -> d.getChangePercent() != null && d.getChangePercent().compareTo(BigDecimal.ZERO) > 0)
-                .filter(d -> d.getTransactions() != null && d.getTransactions() >= 10)
-                .sorted((a, b) -> b.getChangePercent().compareTo(a.getChangePercent()))
-                .limit(10)
-                .toList();
+        SessionFrame frame = todayMorning.get().frame();
+        int[] idx = new int[frame.size()];
+        int count = frame.select((f, i) -> f.symbolId(i) != SymbolTable.NO_SYMBOL
+                && f.hasChangePercent(i) && f.changePercent(i) > 0
+                && f.hasTransactions(i) && f.transactions(i) >= 10, idx);
+        frame.sort(idx, count, SessionFrame::changePercent, true);
+        int candidates = Math.min(10, count);
 
-        int bestSize = Math.min(3, candidates.size());
-        int goodSize = Math.min(4, Math.max(0, candidates.size() - bestSize));
+        int bestSize = Math.min(3, candidates);
+        int goodSize = Math.min(4, Math.max(0, candidates - bestSize));
 
-        List<StockPriceData> best = filterMorning(morningData, candidates.subList(0, bestSize));
-        List<StockPriceData> good = filterMorning(morningData, candidates.subList(bestSize, bestSize + goodSize));
-        List<StockPriceData> risky = filterMorning(morningData, candidates.subList(bestSize + goodSize, candidates.size()));
+        List<StockPriceData> best = filterMorning(frame, idx, 0, bestSize);
+        List<StockPriceData> good = filterMorning(frame, idx, bestSize, bestSize + goodSize);
+        List<StockPriceData> risky = filterMorning(frame, idx, bestSize + goodSize, candidates);
 
         reportData.setBestToInvest(best);
         reportData.setGoodToInvest(good);
         reportData.setRiskyToInvest(risky);
 
-        reportData.setMorningMap(
-                morningData.stream()
-                        .filter(d -> d.getSymbol() != null)
-                        .collect(Collectors.toMap(
-                                StockPriceData::getSymbol,
-                                Function.identity(),
-                                (a, b) -> a))
-        );
+        reportData.setMorningMap(todayMorning.get().bySymbol());
 
         // --- Evening ---
-        if (!fileDiskStorageService.isTmpFile(todayEvening)) return reportData;
-
-        List<StockPriceData> eveningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayEvening).toFile())) {
-            eveningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "Evening load error", e);
+        Optional<SessionData> todayEvening = sessions.get(day, StockTickStore.EVENING);
+        if (todayEvening.isEmpty()) {
             return reportData;
         }
 
-        reportData.setGoodInvestmentsBasedOnBestRecommendation(
-                getGoodComparedToMorning(best, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnGoodRecommendation(
-                getGoodComparedToMorning(good, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(
-                getGoodComparedToMorning(risky, eveningData, morningMap));
+        SessionFrame eveningFrame = todayEvening.get().frame();
+
+        SymbolJoin bestJoin = joinWithEvening(best, eveningFrame);
+        SymbolJoin goodJoin = joinWithEvening(good, eveningFrame);
+        SymbolJoin riskyJoin = joinWithEvening(risky, eveningFrame);
+
+        reportData.setGoodInvestmentsBasedOnBestRecommendation(bestJoin.good());
+        reportData.setGoodInvestmentsBasedOnGoodRecommendation(goodJoin.good());
+        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(riskyJoin.good());
 
-        reportData.setBadInvestmentsBasedOnBestRecommendation(
-                getBadComparedToMorning(best, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnGoodRecommendation(
-                getBadComparedToMorning(good, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnRiskyRecommendation(
-                getBadComparedToMorning(risky, eveningData, morningMap));
+        reportData.setBadInvestmentsBasedOnBestRecommendation(bestJoin.bad());
+        reportData.setBadInvestmentsBasedOnGoodRecommendation(goodJoin.bad());
+        reportData.setBadInvestmentsBasedOnRiskyRecommendation(riskyJoin.bad());
 
         reportData.setGoodInvestmentProbabilityBasedOnBestToday(
                 probability(reportData.getGoodInvestmentsBasedOnBestRecommendation(),
@@ -124,13 +97,4 @@ public class ExtremeMorningSpikeStrategyShortTerm implements ShortTermRecommenda
 
         return reportData;
     }
-
-    private List<StockPriceData> filterMorning(List<StockPriceData> morningData, List<StockPriceData> symbols) {
-        Set<String> symbolsSet = symbols.stream()
-                .map(StockPriceData::getSymbol)
-                .collect(Collectors.toSet());
-        return morningData.stream()
-                .filter(d -> d.getSymbol() != null && symbolsSet.contains(d.getSymbol()))
-                .toList();
-    }
-}
\ No newline at end of file
+}
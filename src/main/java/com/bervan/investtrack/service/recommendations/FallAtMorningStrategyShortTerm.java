@@ -1,22 +1,21 @@
 package com.bervan.investtrack.service.recommendations;
 
-import com.bervan.filestorage.service.FileDiskStorageService;
-import com.bervan.ieentities.BaseExcelImport;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.StockTickStore;
+import com.bervan.investtrack.service.session.SymbolTable;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service("Fall At Morning Strategy")
 public class FallAtMorningStrategyShortTerm implements ShortTermRecommendationStrategy {
@@ -30,80 +29,66 @@ public class FallAtMorningStrategyShortTerm implements ShortTermRecommendationSt
     public static BigDecimal maxPercentageChangeRiskyToInvest = BigDecimal.valueOf(-0.71);
     public static BigDecimal minPercentageChangeRiskyToInvest = BigDecimal.valueOf(-1.50);
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final BaseExcelImport baseExcelImport;
-    private final FileDiskStorageService fileDiskStorageService;
+    private final SessionDataRepository sessionDataRepository;
 
-    public FallAtMorningStrategyShortTerm(FileDiskStorageService fileDiskStorageService) {
-        this.baseExcelImport = new BaseExcelImport(List.of(StockPriceData.class));
-        this.fileDiskStorageService = fileDiskStorageService;
+    public FallAtMorningStrategyShortTerm(SessionDataRepository sessionDataRepository) {
+        this.sessionDataRepository = sessionDataRepository;
     }
 
+    @Override
     public ReportData loadReportData(LocalDate day, BaseProcessContext recommendationContext) {
-        ReportData reportData = new ReportData();
+        return loadReportData(day, recommendationContext, sessionDataRepository);
+    }
 
-        String todayMorning = "STOCKS_PL_" + day.getDayOfMonth() + "_"
-                + day.getMonthValue() + "_" + "Morning" + ".xlsx";
-        String todayEvening = "STOCKS_PL_" + day.getDayOfMonth() + "_"
-                + day.getMonthValue() + "_" + "Evening" + ".xlsx";
+    @Override
+    public ReportData loadReportData(LocalDate day, BaseProcessContext recommendationContext, SessionSource sessions) {
+        ReportData reportData = new ReportData();
 
+        Optional<SessionData> todayMorning = sessions.get(day, StockTickStore.MORNING);
+        if (todayMorning.isEmpty()) {
+            return reportData;
+        }
 
-        LocalDate dayBefore = day.minusDays(7);
+        SessionFrame frame = todayMorning.get().frame();
+        int[] bestIdx = new int[frame.size()];
+        int[] riskyIdx = new int[frame.size()];
+        int[] goodIdx = new int[frame.size()];
 
-        String yesterdayMorning = "STOCKS_PL_" + dayBefore.getDayOfMonth() + "_"
-                + dayBefore.getMonthValue() + "_" + "Morning" + ".xlsx";
-        String yesterdayEvening = "STOCKS_PL_" + dayBefore.getDayOfMonth() + "_"
-                + dayBefore.getMonthValue() + "_" + "Evening" + ".xlsx";
-        //check how many + stocks increased at Evening dayBefore and show %
+        int riskyCount = getRiskyToInvest(frame, riskyIdx);
+        int bestCount = getBestToInvest(frame, bestIdx);
+        int goodCount = getGoodToInvest(frame, goodIdx, bestIdx, bestCount, riskyIdx, riskyCount);
 
-        boolean todayMorningloaded = false;
-        if (fileDiskStorageService.isTmpFile(todayMorning)) {
-            Path tmpFile = fileDiskStorageService.getTmpFile(todayMorning);
-            log.debug(recommendationContext.map(), "Loading excel file: " + tmpFile.toAbsolutePath());
-            try (Workbook workbook = baseExcelImport.load(tmpFile.toFile())) {
+        List<StockPriceData> risky = frame.rows(riskyIdx, 0, riskyCount);
+        List<StockPriceData> best = frame.rows(bestIdx, 0, bestCount);
+        List<StockPriceData> good = frame.rows(goodIdx, 0, goodCount);
 
-                List<StockPriceData> data = (List<StockPriceData>) baseExcelImport.importExcel(workbook);
+        reportData.setBestToInvest(best);
+        reportData.setGoodToInvest(good);
+        reportData.setRiskyToInvest(risky);
 
-                Map<String, StockPriceData> morningBySymbol = data.stream()
-                        .filter(d -> d.getSymbol() != null)
-                        .collect(Collectors.toMap(StockPriceData::getSymbol, Function.identity(), (a, b) -> a));
+        reportData.setMorningMap(todayMorning.get().bySymbol());
 
-                List<StockPriceData> risky = getRiskyToInvest(data);
-                List<StockPriceData> best = getBestToInvest(data);
-                List<StockPriceData> good = getGoodToInvest(data, best, risky);
+        Optional<SessionData> todayEvening = sessions.get(day, StockTickStore.EVENING);
+        if (todayEvening.isEmpty()) {
+            return reportData;
+        }
 
-                reportData.setBestToInvest(best);
-                reportData.setGoodToInvest(good);
-                reportData.setRiskyToInvest(risky);
+        SessionFrame eveningFrame = todayEvening.get().frame();
+        SymbolJoin bestJoin = joinWithEvening(reportData.getBestToInvest(), eveningFrame);
+        SymbolJoin goodJoin = joinWithEvening(reportData.getGoodToInvest(), eveningFrame);
+        SymbolJoin riskyJoin = joinWithEvening(reportData.getRiskyToInvest(), eveningFrame);
 
-                reportData.setMorningMap(morningBySymbol);
+        reportData.setGoodInvestmentsBasedOnBestRecommendation(closedNotBelowZero(bestJoin.good()));
+        reportData.setGoodInvestmentsBasedOnGoodRecommendation(closedNotBelowZero(goodJoin.good()));
+        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(closedNotBelowZero(riskyJoin.good()));
+        reportData.setBadInvestmentsBasedOnBestRecommendation(bestJoin.bad());
+        reportData.setBadInvestmentsBasedOnGoodRecommendation(goodJoin.bad());
+        reportData.setBadInvestmentsBasedOnRiskyRecommendation(riskyJoin.bad());
 
-                todayMorningloaded = true;
-            } catch (IOException e) {
-                log.error(recommendationContext.map(), "Error loading excel file: " + tmpFile.toAbsolutePath(), e);
-            }
-        }
-
-        if (todayMorningloaded && fileDiskStorageService.isTmpFile(todayEvening)) {
-            Path tmpFile = fileDiskStorageService.getTmpFile(todayEvening);
-            log.debug(recommendationContext.map(), "Loading excel file: " + tmpFile.toAbsolutePath());
-            try (Workbook workbook = baseExcelImport.load(tmpFile.toFile())) {
-                List<StockPriceData> todayEveningData = (List<StockPriceData>) baseExcelImport.importExcel(workbook);
-
-                reportData.setGoodInvestmentsBasedOnBestRecommendation(getGoodInvestmentsBasedRecommendation(reportData.getBestToInvest(), todayEveningData));
-                reportData.setGoodInvestmentsBasedOnGoodRecommendation(getGoodInvestmentsBasedRecommendation(reportData.getGoodToInvest(), todayEveningData));
-                reportData.setGoodInvestmentsBasedOnRiskyRecommendation(getGoodInvestmentsBasedRecommendation(reportData.getRiskyToInvest(), todayEveningData));
-                reportData.setBadInvestmentsBasedOnBestRecommendation(getBadInvestmentsBasedRecommendation(reportData.getBestToInvest(), todayEveningData));
-                reportData.setBadInvestmentsBasedOnGoodRecommendation(getBadInvestmentsBasedRecommendation(reportData.getGoodToInvest(), todayEveningData));
-                reportData.setBadInvestmentsBasedOnRiskyRecommendation(getBadInvestmentsBasedRecommendation(reportData.getRiskyToInvest(), todayEveningData));
-
-                reportData.setGoodInvestmentProbabilityBasedOnBestToday(calculateProbability(reportData.getGoodInvestmentsBasedOnBestRecommendation(), reportData.getBadInvestmentsBasedOnBestRecommendation()));
-                reportData.setGoodInvestmentProbabilityBasedOnGoodToday(calculateProbability(reportData.getGoodInvestmentsBasedOnGoodRecommendation(), reportData.getBadInvestmentsBasedOnGoodRecommendation()));
-                reportData.setGoodInvestmentProbabilityBasedOnRiskyToday(calculateProbability(reportData.getGoodInvestmentsBasedOnRiskyRecommendation(), reportData.getBadInvestmentsBasedOnRiskyRecommendation()));
-                reportData.setGoodInvestmentTotalProbabilityBasedOnToday(calculateTotalProbability(reportData, recommendationContext));
-            } catch (IOException e) {
-                log.error(recommendationContext.map(), "Error loading excel file: " + tmpFile.toAbsolutePath(), e);
-            }
-        }
+        reportData.setGoodInvestmentProbabilityBasedOnBestToday(calculateProbability(reportData.getGoodInvestmentsBasedOnBestRecommendation(), reportData.getBadInvestmentsBasedOnBestRecommendation()));
+        reportData.setGoodInvestmentProbabilityBasedOnGoodToday(calculateProbability(reportData.getGoodInvestmentsBasedOnGoodRecommendation(), reportData.getBadInvestmentsBasedOnGoodRecommendation()));
+        reportData.setGoodInvestmentProbabilityBasedOnRiskyToday(calculateProbability(reportData.getGoodInvestmentsBasedOnRiskyRecommendation(), reportData.getBadInvestmentsBasedOnRiskyRecommendation()));
+        reportData.setGoodInvestmentTotalProbabilityBasedOnToday(calculateTotalProbability(reportData, recommendationContext));
 
         return reportData;
     }
@@ -147,82 +132,74 @@ public class FallAtMorningStrategyShortTerm implements ShortTermRecommendationSt
         return (l == null) ? 0 : l.size();
     }
 
-    private List<StockPriceData> getGoodInvestmentsBasedRecommendation(List<StockPriceData> recommendationData, List<StockPriceData> todayEveningData) {
-        Map<String, StockPriceData> afternoonMap = todayEveningData.stream()
-                .filter(d -> d.getSymbol() != null)
-                .filter(d -> d.getChangePercent().compareTo(BigDecimal.ZERO) >= 0)
-                .collect(Collectors.toMap(StockPriceData::getSymbol, Function.identity(), (a, b) -> a));
-
-        List<StockPriceData> good = new ArrayList<>();
-        for (StockPriceData rec : recommendationData) {
-            StockPriceData aft = afternoonMap.get(rec.getSymbol());
-            if (aft != null && aft.getChangePercent() != null && aft.getChangePercent().compareTo(rec.getChangePercent()) > 0) {
-                good.add(aft);
+    /**
+     * A rise against the morning only counts as a good investment when the stock also closed the day at or above zero.
+     */
+    private List<StockPriceData> closedNotBelowZero(List<StockPriceData> eveningRows) {
+        List<StockPriceData> result = new ArrayList<>(eveningRows.size());
+        for (StockPriceData row : eveningRows) {
+            if (row.getChangePercent().signum() >= 0) {
+                result.add(row);
             }
         }
-        return good;
+        return result;
     }
 
-    private List<StockPriceData> getBadInvestmentsBasedRecommendation(List<StockPriceData> recommendationData, List<StockPriceData> todayEveningData) {
-        Map<String, StockPriceData> afternoonMap = todayEveningData.stream()
-                .filter(d -> d.getSymbol() != null)
-                .collect(Collectors.toMap(StockPriceData::getSymbol, Function.identity(), (a, b) -> a));
+    private static boolean isFalling(SessionFrame f, int i) {
+        return f.hasChangePercent(i) && f.changePercent(i) < 0 && f.hasTransactions(i);
+    }
 
-        List<StockPriceData> bad = new ArrayList<>();
-        for (StockPriceData rec : recommendationData) {
-            StockPriceData aft = afternoonMap.get(rec.getSymbol());
-            if (aft != null && aft.getChangePercent() != null && aft.getChangePercent().compareTo(rec.getChangePercent()) < 0) {
-                bad.add(aft);
-            }
-        }
-        return bad;
+    /**
+     * Tier selection works on the frame's primitive columns and writes row indexes to {@code out};
+     * nothing is allocated per row.
+     */
+    private int getBestToInvest(SessionFrame frame, int[] out) {
+        int minTransactions = minAmountOfTransactionsBestToInvest;
+        long min = SessionFrame.fixed(minPercentageChangeBestToInvest);
+        long max = SessionFrame.fixed(maxPercentageChangeBestToInvest);
+        return frame.select((f, i) -> isFalling(f, i)
+                && f.transactions(i) >= minTransactions
+                && f.changePercent(i) <= max
+                && f.changePercent(i) >= min, out);
     }
 
-    private List<StockPriceData> getBestToInvest(List<StockPriceData> todayMorningData) {
-        return todayMorningData.stream()
-                .filter(e -> e.getChangePercent() != null)
-                .filter(e -> e.getChangePercent().compareTo(BigDecimal.ZERO) < 0)
-                .filter(e -> e.getTransactions() != null && e.getTransactions() >= minAmountOfTransactionsBestToInvest)
-                .filter(e -> e.getChangePercent().compareTo(minPercentageChangeBestToInvest) >= 0)
-                .filter(e -> e.getChangePercent().compareTo(maxPercentageChangeBestToInvest) <= 0)
-                .toList();
+    private int getRiskyToInvest(SessionFrame frame, int[] out) {
+        int maxTransactions = minAmountOfTransactionsGoodToInvest;
+        int minTransactions = minAmountOfTransactionsRiskyToInvest;
+        long min = SessionFrame.fixed(minPercentageChangeRiskyToInvest);
+        long max = SessionFrame.fixed(maxPercentageChangeRiskyToInvest);
+        return frame.select((f, i) -> isFalling(f, i)
+                && f.transactions(i) < maxTransactions
+                && f.transactions(i) >= minTransactions
+                && f.changePercent(i) >= min
+                && f.changePercent(i) <= max, out);
     }
 
-    private List<StockPriceData> getRiskyToInvest(List<StockPriceData> todayMorningData) {
-        return todayMorningData.stream()
-                .filter(e -> e.getChangePercent() != null)
-                .filter(e -> e.getChangePercent().compareTo(BigDecimal.ZERO) < 0)
-                .filter(e -> e.getTransactions() != null && e.getTransactions() < minAmountOfTransactionsGoodToInvest)
-                .filter(e -> e.getTransactions() >= minAmountOfTransactionsRiskyToInvest)
-                .filter(e -> e.getChangePercent().compareTo(minPercentageChangeRiskyToInvest) >= 0)
-                .filter(e -> e.getChangePercent().compareTo(maxPercentageChangeRiskyToInvest) <= 0)
-                .toList();
+    private int getGoodToInvest(SessionFrame frame, int[] out,
+                                int[] best, int bestCount,
+                                int[] risky, int riskyCount) {
+        BitSet taken = new BitSet(SymbolTable.size());
+        markSymbols(frame, best, bestCount, taken);
+        markSymbols(frame, risky, riskyCount, taken);
+
+        int maxTransactions = minAmountOfTransactionsBestToInvest;
+        int minTransactions = minAmountOfTransactionsGoodToInvest;
+        long min = SessionFrame.fixed(minPercentageChangeGoodToInvest);
+        long max = SessionFrame.fixed(maxPercentageChangeGoodToInvest);
+        return frame.select((f, i) -> isFalling(f, i)
+                && f.transactions(i) < maxTransactions
+                && f.transactions(i) >= minTransactions
+                && f.changePercent(i) >= min
+                && f.changePercent(i) <= max
+                && (f.symbolId(i) == SymbolTable.NO_SYMBOL || !taken.get(f.symbolId(i))), out);
     }
 
-    private List<StockPriceData> getGoodToInvest(
-            List<StockPriceData> todayMorningData,
-            List<StockPriceData> best,
-            List<StockPriceData> risky) {
-
-        Set<String> bestSymbols = best.stream()
-                .map(StockPriceData::getSymbol)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        Set<String> riskySymbols = risky.stream()
-                .map(StockPriceData::getSymbol)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        return todayMorningData.stream()
-                .filter(e -> e.getChangePercent() != null)
-                .filter(e -> e.getChangePercent().compareTo(BigDecimal.ZERO) < 0)
-                .filter(e -> e.getTransactions() != null && e.getTransactions() < minAmountOfTransactionsBestToInvest)
-                .filter(e -> e.getTransactions() >= minAmountOfTransactionsGoodToInvest)
-                .filter(e -> e.getChangePercent().compareTo(minPercentageChangeGoodToInvest) >= 0)
-                .filter(e -> e.getChangePercent().compareTo(maxPercentageChangeGoodToInvest) <= 0)
-                .filter(e -> !bestSymbols.contains(e.getSymbol()))
-                .filter(e -> !riskySymbols.contains(e.getSymbol()))
-                .toList();
+    private static void markSymbols(SessionFrame frame, int[] idx, int count, BitSet marks) {
+        for (int i = 0; i < count; i++) {
+            int symbolId = frame.symbolId(idx[i]);
+            if (symbolId != SymbolTable.NO_SYMBOL) {
+                marks.set(symbolId);
+            }
+        }
     }
 }
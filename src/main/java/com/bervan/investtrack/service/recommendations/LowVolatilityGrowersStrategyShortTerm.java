@@ -1,66 +1,59 @@
 package com.bervan.investtrack.service.recommendations;
 
-import com.bervan.filestorage.service.FileDiskStorageService;
-import com.bervan.ieentities.BaseExcelImport;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.StockTickStore;
+import com.bervan.investtrack.service.session.SymbolTable;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service("Low Volatility Growers Strategy")
 public class LowVolatilityGrowersStrategyShortTerm implements ShortTermRecommendationStrategy {
 
-    private static final BigDecimal MIN_CHANGE = BigDecimal.valueOf(0.5);
-    private static final BigDecimal MAX_CHANGE = BigDecimal.valueOf(2.0);
+    private static final long MIN_CHANGE = SessionFrame.fixed(BigDecimal.valueOf(0.5));
+    private static final long MAX_CHANGE = SessionFrame.fixed(BigDecimal.valueOf(2.0));
 
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final BaseExcelImport baseExcelImport;
-    private final FileDiskStorageService fileDiskStorageService;
+    private final SessionDataRepository sessionDataRepository;
 
-    public LowVolatilityGrowersStrategyShortTerm(FileDiskStorageService fileDiskStorageService) {
-        this.baseExcelImport = new BaseExcelImport(List.of(StockPriceData.class));
-        this.fileDiskStorageService = fileDiskStorageService;
+    public LowVolatilityGrowersStrategyShortTerm(SessionDataRepository sessionDataRepository) {
+        this.sessionDataRepository = sessionDataRepository;
     }
 
     @Override
     public ReportData loadReportData(LocalDate day, BaseProcessContext ctx) {
-        ReportData reportData = new ReportData();
-
-        String todayMorning = fileName(day, "Morning");
-        String todayEvening = fileName(day, "Evening");
+        return loadReportData(day, ctx, sessionDataRepository);
+    }
 
-        if (!fileDiskStorageService.isTmpFile(todayMorning)) {
-            return reportData;
-        }
+    @Override
+    public ReportData loadReportData(LocalDate day, BaseProcessContext ctx, SessionSource sessions) {
+        ReportData reportData = new ReportData();
 
-        List<StockPriceData> morningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayMorning).toFile())) {
-            morningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "LowVolatilityGrowersStrategy morning error", e);
+        Optional<SessionData> todayMorning = sessions.get(day, StockTickStore.MORNING);
+        if (todayMorning.isEmpty()) {
             return reportData;
         }
 
         // ---------- MORNING RECOMMENDATIONS ----------
-        List<StockPriceData> candidates = morningData.stream()
-                .filter(d -> d.getSymbol() != null)
-                .filter(d -> d.getChangePercent() != null)
-                .filter(d -> d.getChangePercent().compareTo(MIN_CHANGE) >= 0)
-                .filter(d -> d.getChangePercent().compareTo(MAX_CHANGE) <= 0)
-                .filter(d -> d.getTransactions() != null && d.getTransactions() >= 20)
-                .sorted(Comparator.comparing(StockPriceData::getChangePercent))
-                .limit(10)
-                .toList();
+        SessionFrame frame = todayMorning.get().frame();
+        int[] idx = new int[frame.size()];
+        int count = frame.select((f, i) -> f.symbolId(i) != SymbolTable.NO_SYMBOL
+                && f.hasChangePercent(i)
+                && f.changePercent(i) >= MIN_CHANGE
+                && f.changePercent(i) <= MAX_CHANGE
+                && f.hasTransactions(i) && f.transactions(i) >= 20, idx);
+        frame.sort(idx, count, SessionFrame::changePercent, false);
+        List<StockPriceData> candidates = frame.rows(idx, 0, Math.min(10, count));
 
         int bestSize = Math.min(3, candidates.size());
         int goodSize = Math.min(4, Math.max(0, candidates.size() - bestSize));
@@ -73,46 +66,28 @@ public class LowVolatilityGrowersStrategyShortTerm implements ShortTermRecommend
         reportData.setGoodToInvest(good);
         reportData.setRiskyToInvest(risky);
 
-        Map<String, BigDecimal> morningMap = morningData.stream()
-                .filter(d -> d.getSymbol() != null && d.getChangePercent() != null)
-                .collect(Collectors.toMap(StockPriceData::getSymbol, StockPriceData::getChangePercent, (a, b) -> a));
-
-        reportData.setMorningMap(
-                morningData.stream()
-                        .filter(d -> d.getSymbol() != null)
-                        .collect(Collectors.toMap(
-                                StockPriceData::getSymbol,
-                                Function.identity(),
-                                (a, b) -> a))
-        );
+        reportData.setMorningMap(todayMorning.get().bySymbol());
 
         // ---------- EVENING ----------
-        if (!fileDiskStorageService.isTmpFile(todayEvening)) {
+        Optional<SessionData> todayEvening = sessions.get(day, StockTickStore.EVENING);
+        if (todayEvening.isEmpty()) {
             return reportData;
         }
 
-        List<StockPriceData> eveningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayEvening).toFile())) {
-            eveningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "LowVolatilityGrowersStrategy evening error", e);
-            return reportData;
-        }
+        SessionFrame eveningFrame = todayEvening.get().frame();
 
         // compare evening with morning
-        reportData.setGoodInvestmentsBasedOnBestRecommendation(
-                getGoodComparedToMorning(best, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnGoodRecommendation(
-                getGoodComparedToMorning(good, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(
-                getGoodComparedToMorning(risky, eveningData, morningMap));
-
-        reportData.setBadInvestmentsBasedOnBestRecommendation(
-                getBadComparedToMorning(best, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnGoodRecommendation(
-                getBadComparedToMorning(good, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnRiskyRecommendation(
-                getBadComparedToMorning(risky, eveningData, morningMap));
+        SymbolJoin bestJoin = joinWithEvening(best, eveningFrame);
+        SymbolJoin goodJoin = joinWithEvening(good, eveningFrame);
+        SymbolJoin riskyJoin = joinWithEvening(risky, eveningFrame);
+
+        reportData.setGoodInvestmentsBasedOnBestRecommendation(bestJoin.good());
+        reportData.setGoodInvestmentsBasedOnGoodRecommendation(goodJoin.good());
+        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(riskyJoin.good());
+
+        reportData.setBadInvestmentsBasedOnBestRecommendation(bestJoin.bad());
+        reportData.setBadInvestmentsBasedOnGoodRecommendation(goodJoin.bad());
+        reportData.setBadInvestmentsBasedOnRiskyRecommendation(riskyJoin.bad());
 
         reportData.setGoodInvestmentProbabilityBasedOnBestToday(
                 probability(reportData.getGoodInvestmentsBasedOnBestRecommendation(),
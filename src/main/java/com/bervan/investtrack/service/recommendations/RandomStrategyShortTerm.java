@@ -1,63 +1,61 @@
 package com.bervan.investtrack.service.recommendations;
 
-import com.bervan.filestorage.service.FileDiskStorageService;
-import com.bervan.ieentities.BaseExcelImport;
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.StockTickStore;
 import com.bervan.logging.BaseProcessContext;
 import com.bervan.logging.JsonLogger;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service("Random Strategy")
 public class RandomStrategyShortTerm implements ShortTermRecommendationStrategy {
 
     private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
-    private final BaseExcelImport baseExcelImport;
-    private final FileDiskStorageService fileDiskStorageService;
+    private final SessionDataRepository sessionDataRepository;
 
-    public RandomStrategyShortTerm(FileDiskStorageService fileDiskStorageService) {
-        this.baseExcelImport = new BaseExcelImport(List.of(StockPriceData.class));
-        this.fileDiskStorageService = fileDiskStorageService;
+    public RandomStrategyShortTerm(SessionDataRepository sessionDataRepository) {
+        this.sessionDataRepository = sessionDataRepository;
     }
 
     @Override
     public ReportData loadReportData(LocalDate day, BaseProcessContext ctx) {
-        ReportData reportData = new ReportData();
-
-        String todayMorning = fileName(day, "Morning");
-        String todayEvening = fileName(day, "Evening");
+        return loadReportData(day, ctx, sessionDataRepository);
+    }
 
-        if (!fileDiskStorageService.isTmpFile(todayMorning)) {
-            return reportData;
-        }
+    @Override
+    public ReportData loadReportData(LocalDate day, BaseProcessContext ctx, SessionSource sessions) {
+        ReportData reportData = new ReportData();
 
-        List<StockPriceData> morningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayMorning).toFile())) {
-            morningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "RandomStrategy morning load error", e);
+        Optional<SessionData> todayMorning = sessions.get(day, StockTickStore.MORNING);
+        if (todayMorning.isEmpty()) {
             return reportData;
         }
 
         // ---------- MORNING ----------
-        List<StockPriceData> filtered = morningData.stream()
-                .filter(d -> d.getTransactions() != null && d.getTransactions() >= 10)
-                .toList();
-
-        List<StockPriceData> baseList = filtered.size() >= 10 ? filtered : morningData;
+        SessionFrame frame = todayMorning.get().frame();
+        int[] idx = new int[frame.size()];
+        int count = frame.select((f, i) -> f.hasTransactions(i) && f.transactions(i) >= 10, idx);
+        if (count < 10) {
+            count = frame.select((f, i) -> true, idx);
+        }
         Random random = new Random(day.toEpochDay()); // deterministic seed
-        List<StockPriceData> shuffled = new ArrayList<>(baseList);
-        Collections.shuffle(shuffled, random);
+        // same swap sequence as Collections.shuffle, so picks for a given day do not change
+        for (int i = count; i > 1; i--) {
+            int j = random.nextInt(i);
+            int tmp = idx[i - 1];
+            idx[i - 1] = idx[j];
+            idx[j] = tmp;
+        }
 
-        int limit = Math.min(10, shuffled.size());
-        List<StockPriceData> selected = shuffled.subList(0, limit);
+        int limit = Math.min(10, count);
+        List<StockPriceData> selected = frame.rows(idx, 0, limit);
 
         int bestSize = Math.min(3, selected.size());
         int goodSize = Math.min(4, Math.max(0, selected.size() - bestSize));
@@ -70,45 +68,27 @@ public class RandomStrategyShortTerm implements ShortTermRecommendationStrategy
         reportData.setGoodToInvest(good);
         reportData.setRiskyToInvest(risky);
 
-        Map<String, BigDecimal> morningMap = morningData.stream()
-                .filter(d -> d.getSymbol() != null && d.getChangePercent() != null)
-                .collect(Collectors.toMap(StockPriceData::getSymbol, StockPriceData::getChangePercent, (a, b) -> a));
-
-        reportData.setMorningMap(
-                morningData.stream()
-                        .filter(d -> d.getSymbol() != null)
-                        .collect(Collectors.toMap(
-                                StockPriceData::getSymbol,
-                                Function.identity(),
-                                (a, b) -> a))
-        );
+        reportData.setMorningMap(todayMorning.get().bySymbol());
 
         // ---------- EVENING ----------
-        if (!fileDiskStorageService.isTmpFile(todayEvening)) {
+        Optional<SessionData> todayEvening = sessions.get(day, StockTickStore.EVENING);
+        if (todayEvening.isEmpty()) {
             return reportData;
         }
 
-        List<StockPriceData> eveningData;
-        try (Workbook wb = baseExcelImport.load(fileDiskStorageService.getTmpFile(todayEvening).toFile())) {
-            eveningData = (List<StockPriceData>) baseExcelImport.importExcel(wb);
-        } catch (Exception e) {
-            log.error(ctx.map(), "RandomStrategy evening load error", e);
-            return reportData;
-        }
+        SessionFrame eveningFrame = todayEvening.get().frame();
+
+        SymbolJoin bestJoin = joinWithEvening(best, eveningFrame);
+        SymbolJoin goodJoin = joinWithEvening(good, eveningFrame);
+        SymbolJoin riskyJoin = joinWithEvening(risky, eveningFrame);
+
+        reportData.setGoodInvestmentsBasedOnBestRecommendation(bestJoin.good());
+        reportData.setGoodInvestmentsBasedOnGoodRecommendation(goodJoin.good());
+        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(riskyJoin.good());
 
-        reportData.setGoodInvestmentsBasedOnBestRecommendation(
-                getGoodComparedToMorning(best, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnGoodRecommendation(
-                getGoodComparedToMorning(good, eveningData, morningMap));
-        reportData.setGoodInvestmentsBasedOnRiskyRecommendation(
-                getGoodComparedToMorning(risky, eveningData, morningMap));
-
-        reportData.setBadInvestmentsBasedOnBestRecommendation(
-                getBadComparedToMorning(best, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnGoodRecommendation(
-                getBadComparedToMorning(good, eveningData, morningMap));
-        reportData.setBadInvestmentsBasedOnRiskyRecommendation(
-                getBadComparedToMorning(risky, eveningData, morningMap));
+        reportData.setBadInvestmentsBasedOnBestRecommendation(bestJoin.bad());
+        reportData.setBadInvestmentsBasedOnGoodRecommendation(goodJoin.bad());
+        reportData.setBadInvestmentsBasedOnRiskyRecommendation(riskyJoin.bad());
 
         reportData.setGoodInvestmentProbabilityBasedOnBestToday(
                 probability(reportData.getGoodInvestmentsBasedOnBestRecommendation(),
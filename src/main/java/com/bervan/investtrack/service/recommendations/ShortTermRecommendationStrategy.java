@@ -2,13 +2,17 @@ package com.bervan.investtrack.service.recommendations;
 
 import com.bervan.investtrack.model.StockPriceData;
 import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.SymbolTable;
 import com.bervan.logging.BaseProcessContext;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -16,51 +20,56 @@ public interface ShortTermRecommendationStrategy {
 
     ReportData loadReportData(LocalDate day, BaseProcessContext recommendationContext);
 
-    default List<StockPriceData> getGoodComparedToMorning(List<StockPriceData> rec,
-                                                          List<StockPriceData> evening,
-                                                          Map<String, BigDecimal> morningMap) {
-
-        return rec.stream()
-                .map(r -> evening.stream()
-                        .filter(e -> e.getSymbol() != null && e.getSymbol().equals(r.getSymbol()))
-                        .findFirst()
-                        .orElse(null))
-                .filter(Objects::nonNull)
-                .filter(e -> {
-                    BigDecimal morningValue = morningMap.get(e.getSymbol());
-                    if (morningValue == null || e.getChangePercent() == null) return false;
-                    return e.getChangePercent().subtract(morningValue).compareTo(BigDecimal.ZERO) > 0;
-                })
-                .toList();
+    /**
+     * Same evaluation, reading sessions from the given source instead of the shared cache.
+     */
+    ReportData loadReportData(LocalDate day, BaseProcessContext recommendationContext, SessionSource sessions);
+
+    /**
+     * Rows of {@code morning} whose symbol is among the candidates at {@code idx[from..to)} of
+     * {@code candidates}, in morning frame order.
+     */
+    default List<StockPriceData> filterMorning(SessionFrame morning, SessionFrame candidates, int[] idx, int from, int to) {
+        BitSet symbols = new BitSet(SymbolTable.size());
+        for (int i = from; i < to; i++) {
+            symbols.set(candidates.symbolId(idx[i]));
+        }
+        int[] selected = new int[morning.size()];
+        int count = morning.select((f, i) -> f.symbolId(i) != SymbolTable.NO_SYMBOL && symbols.get(f.symbolId(i)), selected);
+        return morning.rows(selected, 0, count);
     }
 
-    default List<StockPriceData> getBadComparedToMorning(List<StockPriceData> rec,
-                                                         List<StockPriceData> evening,
-                                                         Map<String, BigDecimal> morningMap) {
-
-        return rec.stream()
-                .map(r -> evening.stream()
-                        .filter(e -> e.getSymbol() != null && e.getSymbol().equals(r.getSymbol()))
-                        .findFirst()
-                        .orElse(null))
-                .filter(Objects::nonNull)
-                .filter(e -> {
-                    BigDecimal morningValue = morningMap.get(e.getSymbol());
-                    if (morningValue == null || e.getChangePercent() == null) return false;
-                    return e.getChangePercent().subtract(morningValue).compareTo(BigDecimal.ZERO) < 0;
-                })
-                .toList();
+    /**
+     * Candidates picked from the morning frame itself.
+     */
+    default List<StockPriceData> filterMorning(SessionFrame morning, int[] idx, int from, int to) {
+        return filterMorning(morning, morning, idx, from, to);
     }
 
-    default String fileName(LocalDate day, String part) {
-        // Format day and month with leading zero if needed (01–09)
-        String dayOfMonth = String.format("%02d", day.getDayOfMonth());
-        String month = String.format("%02d", day.getMonthValue());
-
-        return "STOCKS_PL_" + dayOfMonth + "_" + month + "_" + part + ".xlsx";
+    /**
+     * Hash join of recommended morning rows with the evening frame on symbol id. Each recommendation is
+     * looked up once and lands in {@code good} when its evening change % is above the morning one, in
+     * {@code bad} when below; unchanged or unmatched rows are in neither. Partitions hold evening rows.
+     */
+    default SymbolJoin joinWithEvening(List<StockPriceData> recommended, SessionFrame evening) {
+        List<StockPriceData> good = new ArrayList<>();
+        List<StockPriceData> bad = new ArrayList<>();
+        for (StockPriceData rec : recommended) {
+            if (rec.getChangePercent() == null) continue;
+            int row = evening.rowOf(rec.getSymbol());
+            if (row < 0 || !evening.hasChangePercent(row)) continue;
+
+            long morningChange = SessionFrame.fixed(rec.getChangePercent());
+            long eveningChange = evening.changePercent(row);
+            if (eveningChange > morningChange) {
+                good.add(evening.row(row));
+            } else if (eveningChange < morningChange) {
+                bad.add(evening.row(row));
+            }
+        }
+        return new SymbolJoin(good, bad);
     }
 
-
     default BigDecimal probability(List<?> good, List<?> bad) {
         int g = good == null ? 0 : good.size();
         int b = bad == null ? 0 : bad.size();
@@ -92,4 +101,6 @@ public interface ShortTermRecommendationStrategy {
                 .toList();
     }
 
+    record SymbolJoin(List<StockPriceData> good, List<StockPriceData> bad) {
+    }
 }
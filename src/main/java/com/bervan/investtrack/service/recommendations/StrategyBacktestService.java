@@ -0,0 +1,134 @@
+package com.bervan.investtrack.service.recommendations;
+
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.logging.BaseProcessContext;
+import com.bervan.logging.JsonLogger;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Replays a strategy day by day over stored sessions. Each day's {@link ReportData} is folded into
+ * per-tier accumulators and dropped, so memory stays flat regardless of the range length.
+ */
+@Service
+public class StrategyBacktestService {
+    private static final int SESSION_WINDOW = 4;
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "recommendations");
+    private final Map<String, ShortTermRecommendationStrategy> strategies;
+    private final SessionDataRepository sessionDataRepository;
+
+    public StrategyBacktestService(Map<String, ShortTermRecommendationStrategy> strategies,
+                                   SessionDataRepository sessionDataRepository) {
+        this.strategies = strategies;
+        this.sessionDataRepository = sessionDataRepository;
+    }
+
+    public BacktestResult backtest(String strategyName, LocalDate from, LocalDate to) {
+        ShortTermRecommendationStrategy strategy = strategies.get(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Unknown strategy: " + strategyName);
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Backtest range end is before its start");
+        }
+
+        BaseProcessContext ctx = BaseProcessContext.builder().processName("backtest").build();
+        SessionSource sessions = slidingWindow(sessionDataRepository.uncached());
+        TierAccumulator best = new TierAccumulator("Best");
+        TierAccumulator good = new TierAccumulator("Good");
+        TierAccumulator risky = new TierAccumulator("Risky");
+        int tradingDays = 0;
+
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                continue;
+            }
+            ReportData data = strategy.loadReportData(day, ctx, sessions);
+            if (data.getMorningMap().isEmpty()) {
+                continue;
+            }
+            tradingDays++;
+            Map<String, StockPriceData> morning = data.getMorningMap();
+            best.addDay(data.getGoodInvestmentsBasedOnBestRecommendation(), data.getBadInvestmentsBasedOnBestRecommendation(), morning);
+            good.addDay(data.getGoodInvestmentsBasedOnGoodRecommendation(), data.getBadInvestmentsBasedOnGoodRecommendation(), morning);
+            risky.addDay(data.getGoodInvestmentsBasedOnRiskyRecommendation(), data.getBadInvestmentsBasedOnRiskyRecommendation(), morning);
+        }
+
+        log.info(ctx.map(), "Backtest of " + strategyName + " " + from + ".." + to + " finished, trading days: " + tradingDays);
+        return new BacktestResult(strategyName, from, to, tradingDays, List.of(best.result(), good.result(), risky.result()));
+    }
+
+    /**
+     * Keeps only the last few sessions read - enough for strategies that look back at yesterday's evening.
+     */
+    private static SessionSource slidingWindow(SessionSource source) {
+        Map<String, Optional<SessionData>> window = new LinkedHashMap<>(SESSION_WINDOW, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<SessionData>> eldest) {
+                return size() > SESSION_WINDOW;
+            }
+        };
+        return (day, session) -> window.computeIfAbsent(day + "/" + session, k -> source.get(day, session));
+    }
+
+    static final class TierAccumulator {
+        private final String tier;
+        private int good;
+        private int bad;
+        private int evaluated;
+        private double returnSum;
+        private double equity;
+        private double peak;
+        private double maxDrawdown;
+
+        TierAccumulator(String tier) {
+            this.tier = tier;
+        }
+
+        void addDay(List<StockPriceData> goodRows, List<StockPriceData> badRows, Map<String, StockPriceData> morning) {
+            good += goodRows == null ? 0 : goodRows.size();
+            bad += badRows == null ? 0 : badRows.size();
+
+            double daySum = 0;
+            int dayCount = 0;
+            for (List<StockPriceData> rows : Arrays.asList(goodRows, badRows)) {
+                if (rows == null) continue;
+                for (StockPriceData evening : rows) {
+                    StockPriceData morningRow = morning.get(evening.getSymbol());
+                    if (morningRow == null || morningRow.getChangePercent() == null || evening.getChangePercent() == null) {
+                        continue;
+                    }
+                    daySum += evening.getChangePercent().doubleValue() - morningRow.getChangePercent().doubleValue();
+                    dayCount++;
+                }
+            }
+            if (dayCount == 0) {
+                return;
+            }
+            evaluated += dayCount;
+            returnSum += daySum;
+            equity += daySum / dayCount;
+            peak = Math.max(peak, equity);
+            maxDrawdown = Math.max(maxDrawdown, peak - equity);
+        }
+
+        BacktestResult.TierStats result() {
+            int total = good + bad;
+            BigDecimal hitRate = total == 0 ? BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP)
+                    : BigDecimal.valueOf(good).divide(BigDecimal.valueOf(total), 2, RoundingMode.HALF_UP);
+            BigDecimal meanReturn = evaluated == 0 ? BigDecimal.ZERO.setScale(4, RoundingMode.HALF_UP)
+                    : BigDecimal.valueOf(returnSum / evaluated).setScale(4, RoundingMode.HALF_UP);
+            return new BacktestResult.TierStats(tier, total, good, bad, hitRate, meanReturn,
+                    BigDecimal.valueOf(maxDrawdown).setScale(4, RoundingMode.HALF_UP));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.bervan.investtrack.service.recommendations;
+
+import com.bervan.investtrack.service.ReportData;
+import com.bervan.logging.BaseProcessContext;
+import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs every registered {@link ShortTermRecommendationStrategy} for a day concurrently on a bounded pool.
+ * Strategies read sessions through the shared session cache, so running them side by side does not
+ * multiply file reads.
+ */
+@Service
+public class StrategyEvaluationEngine {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "recommendations");
+    private final Map<String, ShortTermRecommendationStrategy> strategies;
+    private final ExecutorService executor;
+
+    public StrategyEvaluationEngine(Map<String, ShortTermRecommendationStrategy> strategies,
+                                    @Value("${invest-track.recommendations.parallelism:4}") int parallelism) {
+        this.strategies = strategies;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "strategy-eval-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Evaluates all strategies for the given day. A failing strategy is logged and left out of the result,
+     * the others are still returned. Result is ordered by strategy name.
+     */
+    public Map<String, ReportData> evaluateAll(LocalDate day, BaseProcessContext ctx) {
+        List<String> names = new ArrayList<>(strategies.keySet());
+        Collections.sort(names);
+
+        List<Callable<ReportData>> tasks = new ArrayList<>(names.size());
+        for (String name : names) {
+            ShortTermRecommendationStrategy strategy = strategies.get(name);
+            tasks.add(() -> strategy.loadReportData(day, ctx));
+        }
+
+        List<Future<ReportData>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Strategy evaluation interrupted", e);
+        }
+
+        Map<String, ReportData> results = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            try {
+                results.put(names.get(i), futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Strategy evaluation interrupted", e);
+            } catch (ExecutionException e) {
+                log.error(ctx.map(), "Strategy " + names.get(i) + " failed for " + day, e.getCause());
+            }
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
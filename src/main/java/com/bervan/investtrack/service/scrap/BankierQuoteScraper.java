@@ -0,0 +1,97 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.common.service.PlaywrightService;
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.logging.JsonLogger;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Scrapes the bankier.pl quotes table. The browser is started once and kept between runs; Playwright is not
+ * thread safe, so it lives on a single dedicated thread. Every scrape is one navigation plus one
+ * {@code page.content()} call, the table itself is parsed with Jsoup on the caller's thread.
+ */
+@Service
+public class BankierQuoteScraper {
+    private static final long FETCH_TIMEOUT_SECONDS = 120;
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final PlaywrightService playwrightService;
+    private final String quotesUrl;
+    private final ExecutorService browserThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bankier-browser");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Playwright playwright;
+    private Page page;
+
+    public BankierQuoteScraper(PlaywrightService playwrightService,
+                               @Value("${invest-track.bankier.quotes-url:https://www.bankier.pl/gielda/notowania/akcje}") String quotesUrl) {
+        this.playwrightService = playwrightService;
+        this.quotesUrl = quotesUrl;
+    }
+
+    /**
+     * Quotes listed for the given day ("MM-dd").
+     */
+    public List<StockPriceData> scrape(String dateToCheck) throws Exception {
+        String html;
+        try {
+            html = browserThread.submit(this::fetchContent).get(FETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (TimeoutException e) {
+            browserThread.execute(this::closeBrowser);
+            throw e;
+        }
+        return BankierQuoteTableParser.parse(html, dateToCheck);
+    }
+
+    // runs on the browser thread only
+    private String fetchContent() {
+        try {
+            if (page == null) {
+                playwright = Playwright.create();
+                page = playwrightService.getPage(playwright, true);
+            }
+            page.navigate(quotesUrl);
+            return page.content();
+        } catch (RuntimeException e) {
+            log.warn("Browser failed, it will be restarted on the next scrape", e);
+            closeBrowser();
+            throw e;
+        }
+    }
+
+    // runs on the browser thread only
+    private void closeBrowser() {
+        if (playwright != null) {
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.debug("Failed to close browser", e);
+            }
+        }
+        playwright = null;
+        page = null;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        browserThread.execute(this::closeBrowser);
+        browserThread.shutdown();
+        if (!browserThread.awaitTermination(10, TimeUnit.SECONDS)) {
+            browserThread.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.logging.JsonLogger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the bankier.pl quotes table from a page snapshot. Works on plain HTML so it runs off the browser
+ * thread and can be tested against saved pages.
+ */
+public final class BankierQuoteTableParser {
+    private static final JsonLogger log = JsonLogger.getLogger(BankierQuoteTableParser.class, "investments");
+
+    private BankierQuoteTableParser() {
+    }
+
+    /**
+     * Rows of the quotes table whose date column contains {@code dateToCheck} ("MM-dd"). Rows that cannot be
+     * parsed are skipped.
+     */
+    public static List<StockPriceData> parse(String html, String dateToCheck) {
+        Elements rows = Jsoup.parse(html).select("tbody tr");
+
+        List<StockPriceData> results = new ArrayList<>(rows.size());
+        long i = 0;
+
+        for (Element row : rows) {
+            try {
+                Elements cols = row.select("> td");
+
+                StockPriceData item = new StockPriceData();
+                item.setId(i++);
+
+                item.setSymbol(cols.get(0).select("a").text().trim());
+
+                item.setPrice(getBigDecimal(cols.get(1).text().trim()));
+
+                item.setChangePercent(getBigDecimal(cols.get(2).text().trim()));
+
+                item.setChange(getBigDecimal(cols.get(3).text().trim()));
+
+                item.setTransactions(getInteger(cols.get(4).text().trim()));
+
+                item.setDate(cols.get(9).text().trim());
+
+                // Filter by today
+                if (!item.getDate().contains(dateToCheck)) {
+                    continue;
+                }
+
+                results.add(item);
+
+            } catch (Exception e) {
+                log.debug("Error parsing stock price row", e);
+            }
+        }
+        return results;
+    }
+
+    static BigDecimal getBigDecimal(String text) {
+        return BigDecimal.valueOf(Double.parseDouble(text.replace(",", ".")
+                .replace(" ", "")
+                .replace("%", "")
+                .replace(" ", "")));
+    }
+
+    static Integer getInteger(String text) {
+        return Integer.valueOf(text.replace(" ", "").replace(" ", "").trim());
+    }
+}
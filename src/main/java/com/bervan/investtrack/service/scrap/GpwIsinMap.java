@@ -0,0 +1,51 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.logging.JsonLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bankier ticker to ISIN of GPW shares, from {@code invest-track.quotes.gpw-isins} ({@code TICKER:ISIN,...}).
+ * GPW alerts and {@link GPWScrapStockPriceService} identify a share by ISIN while the Bankier session scrape
+ * only has tickers, so session prices are re-keyed through this map before they reach the quote cache and
+ * the quote bus.
+ */
+@Service
+public class GpwIsinMap {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final Map<String, String> isinByTicker = new HashMap<>();
+
+    public GpwIsinMap(@Value("${invest-track.quotes.gpw-isins:}") String isins) {
+        for (String entry : isins.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length == 2 && !parts[0].isBlank() && !parts[1].isBlank()) {
+                isinByTicker.put(parts[0].trim().toUpperCase(), parts[1].trim().toUpperCase());
+            } else if (!entry.isBlank()) {
+                log.warn("Ignoring GPW ISIN mapping '{}', expected TICKER:ISIN", entry);
+            }
+        }
+    }
+
+    public String isin(String ticker) {
+        return ticker == null ? null : isinByTicker.get(ticker.trim().toUpperCase());
+    }
+
+    /**
+     * The prices of mapped tickers keyed by ISIN; unmapped tickers are left out, no GPW alert could match them.
+     */
+    public Map<String, BigDecimal> byIsin(Map<String, BigDecimal> pricesByTicker) {
+        Map<String, BigDecimal> byIsin = new HashMap<>();
+        for (Map.Entry<String, BigDecimal> entry : pricesByTicker.entrySet()) {
+            String isin = isin(entry.getKey());
+            if (isin != null) {
+                byIsin.put(isin, entry.getValue());
+            }
+        }
+        log.debug("Mapped {} of {} GPW tickers to ISIN", byIsin.size(), pricesByTicker.size());
+        return byIsin;
+    }
+}
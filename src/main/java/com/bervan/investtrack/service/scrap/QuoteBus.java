@@ -0,0 +1,132 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.investtrack.service.scrap.StockPriceFetcher.SymbolKey;
+import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process queue of price updates. Price sources publish quotes as soon as they have them, a single
+ * dispatcher thread hands them to the listeners in batches. Pending quotes are conflated per symbol -
+ * a slow listener only ever sees the latest price of each symbol - and the number of pending symbols
+ * is bounded: publishers wait for room for a while and then drop the update.
+ */
+@Service
+public class QuoteBus {
+    private static final long PUBLISH_WAIT_MILLIS = 1000;
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final List<QuoteListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<SymbolKey, Quote> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final int capacity;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public QuoteBus(@Value("${invest-track.quotes.bus-capacity:10000}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.dispatcher = new Thread(this::dispatch, "quote-bus");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public void subscribe(QuoteListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Queues the quote, replacing a not yet delivered quote of the same symbol. Returns false when the
+     * bus stayed full and the quote was dropped.
+     */
+    public boolean publish(String exchange, String symbol, BigDecimal price) {
+        if (exchange == null || symbol == null || price == null) {
+            return false;
+        }
+        SymbolKey key = new SymbolKey(exchange, symbol.trim());
+        Quote quote = new Quote(key, price, Instant.now());
+        lock.lock();
+        try {
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(PUBLISH_WAIT_MILLIS);
+            while (!pending.containsKey(key) && pending.size() >= capacity) {
+                if (waitNanos <= 0) {
+                    log.warn("Quote bus full, dropping quote: {} {}", exchange, symbol);
+                    return false;
+                }
+                waitNanos = notFull.awaitNanos(waitNanos);
+            }
+            pending.remove(key); // re-insert so the conflated quote keeps arrival order
+            pending.put(key, quote);
+            notEmpty.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int publishAll(String exchange, Map<String, BigDecimal> prices) {
+        int published = 0;
+        for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+            if (publish(exchange, entry.getKey(), entry.getValue())) {
+                published++;
+            }
+        }
+        return published;
+    }
+
+    private void dispatch() {
+        while (running) {
+            List<Quote> batch;
+            lock.lock();
+            try {
+                while (pending.isEmpty()) {
+                    notEmpty.await();
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            for (QuoteListener listener : listeners) {
+                try {
+                    listener.onQuotes(batch);
+                } catch (Exception e) {
+                    log.error("Quote listener failed", e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    public record Quote(SymbolKey key, BigDecimal price, Instant publishedAt) {
+    }
+
+    @FunctionalInterface
+    public interface QuoteListener {
+        void onQuotes(List<Quote> quotes);
+    }
+}
@@ -0,0 +1,155 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.logging.JsonLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived, size-bounded LRU cache of quotes in front of the {@link ScrapStockPriceService}s. Quotes
+ * expire after a per-exchange TTL ({@code invest-track.quotes.exchange-ttl-seconds.<EXCHANGE>}, falling
+ * back to {@code invest-track.quotes.ttl-seconds}). Concurrent misses on one symbol share a single
+ * scrape, and the cache can be seeded with prices captured elsewhere, e.g. the Bankier session scrape.
+ */
+@Service
+public class QuoteCache {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final Environment environment;
+    private final long defaultTtlSeconds;
+    private final Map<Key, Quote> quotes;
+    private final Map<Key, CompletableFuture<Optional<BigDecimal>>> loading = new ConcurrentHashMap<>();
+
+    public QuoteCache(Environment environment,
+                      @Value("${invest-track.quotes.ttl-seconds:120}") long defaultTtlSeconds,
+                      @Value("${invest-track.quotes.cache-size:5000}") int maxEntries) {
+        this.environment = environment;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.quotes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Quote> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The given scraper with reads going through this cache.
+     */
+    public ScrapStockPriceService decorate(ScrapStockPriceService delegate) {
+        return new CachedScrapStockPriceService(delegate);
+    }
+
+    public Optional<BigDecimal> getStockPrice(ScrapStockPriceService delegate, String symbol) {
+        Key key = new Key(delegate.getExchange(), symbol);
+        Optional<BigDecimal> cached = cached(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        CompletableFuture<Optional<BigDecimal>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<BigDecimal>> running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            return running.join();
+        }
+
+        try {
+            Optional<BigDecimal> price = delegate.getStockPrice(symbol);
+            // misses are not cached, the next check retries the scrape
+            price.ifPresent(value -> put(key, value, Instant.now()));
+            future.complete(price);
+            return price;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Stores prices captured at {@code capturedAt}; they expire as if they had been scraped at that time.
+     */
+    public void seed(String exchange, Map<String, BigDecimal> prices, Instant capturedAt) {
+        int seeded = 0;
+        for (Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                put(new Key(exchange, entry.getKey()), entry.getValue(), capturedAt);
+                seeded++;
+            }
+        }
+        log.debug("Quote cache seeded with {} {} prices", seeded, exchange);
+    }
+
+    private Optional<BigDecimal> cached(Key key) {
+        synchronized (quotes) {
+            Quote quote = quotes.get(key);
+            if (quote == null) {
+                return Optional.empty();
+            }
+            if (!Instant.now().isBefore(quote.expiresAt())) {
+                quotes.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(quote.price());
+        }
+    }
+
+    private void put(Key key, BigDecimal price, Instant capturedAt) {
+        Instant expiresAt = capturedAt.plus(ttl(key.exchange()));
+        synchronized (quotes) {
+            Quote existing = quotes.get(key);
+            // never replace a fresher quote with an older capture
+            if (existing == null || !existing.expiresAt().isAfter(expiresAt)) {
+                quotes.put(key, new Quote(price, expiresAt));
+            }
+        }
+    }
+
+    private Duration ttl(String exchange) {
+        return Duration.ofSeconds(environment.getProperty(
+                "invest-track.quotes.exchange-ttl-seconds." + exchange, Long.class, defaultTtlSeconds));
+    }
+
+    private record Key(String exchange, String symbol) {
+    }
+
+    private record Quote(BigDecimal price, Instant expiresAt) {
+    }
+
+    private class CachedScrapStockPriceService implements ScrapStockPriceService {
+        private final ScrapStockPriceService delegate;
+
+        CachedScrapStockPriceService(ScrapStockPriceService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<BigDecimal> getStockPrice(String symbol) {
+            return QuoteCache.this.getStockPrice(delegate, symbol);
+        }
+
+        @Override
+        public boolean supports(String exchange) {
+            return delegate.supports(exchange);
+        }
+
+        @Override
+        public String getExchange() {
+            return delegate.getExchange();
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return delegate.getBaseUrl();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.logging.JsonLogger;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches prices of many symbols at once. Every distinct (exchange, symbol) is fetched once, concurrently,
+ * on a bounded pool per exchange - a slow exchange cannot starve the others and no exchange gets more
+ * than {@code parallelism} requests in flight from us. Reads go through the {@link QuoteCache}.
+ */
+@Service
+public class StockPriceFetcher {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final List<ScrapStockPriceService> scrapStockPriceServices;
+    private final Map<String, ExecutorService> pools = new ConcurrentHashMap<>();
+    private final int parallelism;
+    private final long timeoutSeconds;
+
+    public StockPriceFetcher(List<ScrapStockPriceService> scrapStockPriceServices,
+                             QuoteCache quoteCache,
+                             @Value("${invest-track.alerts.fetch-parallelism:4}") int parallelism,
+                             @Value("${invest-track.alerts.fetch-timeout-seconds:120}") long timeoutSeconds) {
+        this.scrapStockPriceServices = scrapStockPriceServices.stream().map(quoteCache::decorate).toList();
+        this.parallelism = Math.max(1, parallelism);
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public boolean supports(String exchange) {
+        return scrapService(exchange).isPresent();
+    }
+
+    /**
+     * Prices of the given symbols. Symbols of unsupported exchanges are left out; failed or timed out
+     * fetches map to an empty price.
+     */
+    public Map<SymbolKey, Optional<BigDecimal>> fetchAll(Collection<SymbolKey> keys) {
+        Map<SymbolKey, Future<Optional<BigDecimal>>> futures = new LinkedHashMap<>();
+        for (SymbolKey key : new LinkedHashSet<>(keys)) {
+            Optional<ScrapStockPriceService> scrapService = scrapService(key.exchange());
+            if (scrapService.isEmpty()) {
+                continue;
+            }
+            ScrapStockPriceService service = scrapService.get();
+            futures.put(key, pool(service.getExchange()).submit(() -> service.getStockPrice(key.symbol())));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        Map<SymbolKey, Optional<BigDecimal>> prices = new LinkedHashMap<>();
+        for (Map.Entry<SymbolKey, Future<Optional<BigDecimal>>> entry : futures.entrySet()) {
+            SymbolKey key = entry.getKey();
+            try {
+                prices.put(key, entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                log.warn("Timed out fetching stock price: {} {}", key.exchange(), key.symbol());
+                prices.put(key, Optional.empty());
+            } catch (ExecutionException e) {
+                log.error("Failed to fetch stock price: {} {}", key.exchange(), key.symbol(), e.getCause());
+                prices.put(key, Optional.empty());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Stock price fetch interrupted", e);
+            }
+        }
+        return prices;
+    }
+
+    private Optional<ScrapStockPriceService> scrapService(String exchange) {
+        return scrapStockPriceServices.stream()
+                .filter(service -> service.supports(exchange))
+                .findFirst();
+    }
+
+    private ExecutorService pool(String exchange) {
+        return pools.computeIfAbsent(exchange, name -> {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newFixedThreadPool(parallelism, r -> {
+                Thread thread = new Thread(r, "price-fetch-" + name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(ExecutorService::shutdownNow);
+    }
+
+    public record SymbolKey(String exchange, String symbol) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+
+import java.time.Instant;
+
+/**
+ * One symbol in one captured snapshot. {@code row} is null when the symbol was not listed at that time.
+ */
+public record IntradayTick(Instant capturedAt, StockPriceData row) {
+}
@@ -0,0 +1,62 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One captured session, shared between all strategies. The lists and maps are unmodifiable and the rows
+ * must be treated as read-only - every reader of the same (day, session) gets the same instances.
+ */
+public final class SessionData {
+    private final LocalDate day;
+    private final String session;
+    private final List<StockPriceData> rows;
+    private final Map<String, StockPriceData> bySymbol;
+    private final SessionFrame frame;
+
+    SessionData(LocalDate day, String session, List<StockPriceData> rows) {
+        this.day = day;
+        this.session = session;
+        this.rows = List.copyOf(rows);
+        Map<String, StockPriceData> index = new LinkedHashMap<>();
+        for (StockPriceData row : this.rows) {
+            if (row.getSymbol() != null) {
+                index.putIfAbsent(row.getSymbol(), row);
+            }
+        }
+        this.bySymbol = Collections.unmodifiableMap(index);
+        this.frame = SessionFrame.of(this.rows);
+    }
+
+    public LocalDate day() {
+        return day;
+    }
+
+    public String session() {
+        return session;
+    }
+
+    public List<StockPriceData> rows() {
+        return rows;
+    }
+
+    /**
+     * Rows keyed by symbol, first row wins for duplicated symbols.
+     */
+    public Map<String, StockPriceData> bySymbol() {
+        return bySymbol;
+    }
+
+    public SessionFrame frame() {
+        return frame;
+    }
+
+    public StockPriceData get(String symbol) {
+        return bySymbol.get(symbol);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.logging.JsonLogger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read-through, size-bounded LRU cache of stock sessions in front of {@link StockTickStore}.
+ * Concurrent readers of the same (day, session) share a single load. Writes go through {@link #save}
+ * so the cached entry is replaced as soon as the scraper stores a new capture.
+ */
+@Service
+public class SessionDataRepository implements SessionSource {
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final StockTickStore stockTickStore;
+    private final Map<Key, SessionData> cache;
+    private final Map<Key, CompletableFuture<Optional<SessionData>>> loading = new ConcurrentHashMap<>();
+
+    public SessionDataRepository(StockTickStore stockTickStore,
+                                 @Value("${invest-track.stock-sessions.cache-size:64}") int maxEntries) {
+        this.stockTickStore = stockTickStore;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SessionData> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Optional<SessionData> get(LocalDate day, String session) {
+        Key key = new Key(day, session);
+        synchronized (cache) {
+            SessionData cached = cache.get(key);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        CompletableFuture<Optional<SessionData>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<SessionData>> running = loading.putIfAbsent(key, future);
+        if (running != null) {
+            return running.join();
+        }
+
+        try {
+            Optional<SessionData> loaded = stockTickStore.loadSession(day, session)
+                    .map(rows -> new SessionData(day, session, rows));
+            loaded.ifPresent(data -> {
+                synchronized (cache) {
+                    // a save() that raced with this load already put the newer capture
+                    cache.putIfAbsent(key, data);
+                }
+            });
+            future.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Appends the capture to the tick store and replaces the cached entry with it.
+     */
+    public void save(LocalDate day, String session, List<StockPriceData> rows) throws IOException {
+        stockTickStore.append(day, session, rows);
+        SessionData data = new SessionData(day, session, rows);
+        synchronized (cache) {
+            if (StockTickStore.isIntraday(session)) {
+                // time-addressed intraday entries of the day may now resolve to this snapshot
+                cache.keySet().removeIf(key -> key.day().equals(day) && StockTickStore.isIntraday(key.session()));
+            }
+            cache.put(new Key(day, session), data);
+        }
+        log.debug("Session cache updated: {} {}", day, session);
+    }
+
+    /**
+     * Reads straight from the tick store, bypassing the cache - for long replays that would otherwise
+     * evict the sessions the live strategies are using.
+     */
+    public SessionSource uncached() {
+        return (day, session) -> stockTickStore.loadSession(day, session).map(rows -> new SessionData(day, session, rows));
+    }
+
+    public List<IntradayTick> intradayHistory(LocalDate day, String symbol) {
+        return stockTickStore.intradayHistory(day, symbol);
+    }
+
+    public void invalidate(LocalDate day, String session) {
+        synchronized (cache) {
+            cache.remove(new Key(day, session));
+        }
+    }
+
+    private record Key(LocalDate day, String session) {
+    }
+}
@@ -0,0 +1,189 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays view of a session for strategy hot paths: symbol ids from {@link SymbolTable},
+ * fixed-point prices ({@link #SCALE} decimal digits) and primitive volumes. Filtering and sorting work on
+ * caller-owned index arrays, {@link StockPriceData} is only handed out for the rows that end up selected.
+ */
+public final class SessionFrame {
+    public static final int SCALE = TickFileFormat.PRICE_SCALE;
+    public static final long NULL_DECIMAL = TickFileFormat.NULL_DECIMAL;
+    public static final int NULL_INT = TickFileFormat.NULL_INT;
+
+    private final int size;
+    private final int[] symbolIds;
+    private final long[] price;
+    private final long[] change;
+    private final long[] changePercent;
+    private final int[] transactions;
+    private final StockPriceData[] rows;
+    private final int[] rowBySymbol;
+
+    private SessionFrame(List<StockPriceData> source) {
+        this.size = source.size();
+        this.symbolIds = new int[size];
+        this.price = new long[size];
+        this.change = new long[size];
+        this.changePercent = new long[size];
+        this.transactions = new int[size];
+        this.rows = source.toArray(new StockPriceData[0]);
+        for (int i = 0; i < size; i++) {
+            StockPriceData row = rows[i];
+            symbolIds[i] = SymbolTable.id(row.getSymbol());
+            price[i] = TickFileFormat.toFixed(row.getPrice());
+            change[i] = TickFileFormat.toFixed(row.getChange());
+            changePercent[i] = TickFileFormat.toFixed(row.getChangePercent());
+            transactions[i] = TickFileFormat.toInt(row.getTransactions());
+        }
+
+        int maxSymbolId = -1;
+        for (int symbolId : symbolIds) {
+            maxSymbolId = Math.max(maxSymbolId, symbolId);
+        }
+        this.rowBySymbol = new int[maxSymbolId + 1];
+        Arrays.fill(rowBySymbol, -1);
+        for (int i = 0; i < size; i++) {
+            int symbolId = symbolIds[i];
+            if (symbolId != SymbolTable.NO_SYMBOL && rowBySymbol[symbolId] == -1) {
+                rowBySymbol[symbolId] = i;
+            }
+        }
+    }
+
+    public static SessionFrame of(List<StockPriceData> rows) {
+        return new SessionFrame(rows);
+    }
+
+    /**
+     * Converts a threshold to the frame's fixed-point representation.
+     */
+    public static long fixed(BigDecimal value) {
+        return TickFileFormat.toFixed(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int symbolId(int row) {
+        return symbolIds[row];
+    }
+
+    public long price(int row) {
+        return price[row];
+    }
+
+    public long change(int row) {
+        return change[row];
+    }
+
+    public long changePercent(int row) {
+        return changePercent[row];
+    }
+
+    public boolean hasChangePercent(int row) {
+        return changePercent[row] != NULL_DECIMAL;
+    }
+
+    public int transactions(int row) {
+        return transactions[row];
+    }
+
+    public boolean hasTransactions(int row) {
+        return transactions[row] != NULL_INT;
+    }
+
+    /**
+     * First row of the given symbol, or -1 when the session has no such symbol. Constant time - this is
+     * the build side of symbol joins between sessions.
+     */
+    public int rowOf(int symbolId) {
+        return symbolId >= 0 && symbolId < rowBySymbol.length ? rowBySymbol[symbolId] : -1;
+    }
+
+    public int rowOf(String symbol) {
+        return rowOf(SymbolTable.find(symbol));
+    }
+
+    public StockPriceData row(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Writes the indexes of matching rows, in frame order, to {@code out} and returns how many matched.
+     * {@code out} must be at least {@link #size()} long.
+     */
+    public int select(RowFilter filter, int[] out) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (filter.test(this, i)) {
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stable sort of {@code idx[0..count)} by the given key. Equal keys keep their relative order,
+     * same as {@code Stream.sorted} on the row list.
+     */
+    public void sort(int[] idx, int count, RowKey key, boolean descending) {
+        if (count < 2) {
+            return;
+        }
+        int[] buffer = new int[count];
+        int[] src = idx;
+        int[] dst = buffer;
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count; lo += 2 * width) {
+                int mid = Math.min(lo + width, count);
+                int hi = Math.min(lo + 2 * width, count);
+                int l = lo;
+                int r = mid;
+                int o = lo;
+                while (l < mid && r < hi) {
+                    long left = key.key(this, src[l]);
+                    long right = key.key(this, src[r]);
+                    boolean takeRight = descending ? right > left : right < left;
+                    dst[o++] = takeRight ? src[r++] : src[l++];
+                }
+                while (l < mid) dst[o++] = src[l++];
+                while (r < hi) dst[o++] = src[r++];
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != idx) {
+            System.arraycopy(src, 0, idx, 0, count);
+        }
+    }
+
+    /**
+     * Rows for {@code idx[from..to)}, in index order.
+     */
+    public List<StockPriceData> rows(int[] idx, int from, int to) {
+        List<StockPriceData> result = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            result.add(rows[idx[i]]);
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(SessionFrame frame, int row);
+    }
+
+    @FunctionalInterface
+    public interface RowKey {
+        long key(SessionFrame frame, int row);
+    }
+}
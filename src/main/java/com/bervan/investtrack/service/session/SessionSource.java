@@ -0,0 +1,14 @@
+package com.bervan.investtrack.service.session;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Where a strategy reads its sessions from - the shared cache for live evaluation, a streaming
+ * reader for backtests.
+ */
+@FunctionalInterface
+public interface SessionSource {
+
+    Optional<SessionData> get(LocalDate day, String session);
+}
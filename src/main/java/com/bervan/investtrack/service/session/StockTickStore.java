@@ -0,0 +1,178 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.filestorage.service.FileDiskStorageService;
+import com.bervan.ieentities.BaseExcelImport;
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.logging.JsonLogger;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * System of record for scraped stock sessions: one append-only columnar file per trading day
+ * (see {@link TickFileFormat}). Days scraped before the tick store existed are still read from the
+ * legacy per-session XLSX files kept in the tmp file storage.
+ * <p>
+ * Intraday snapshots are all appended to the {@link #INTRADAY} session as deltas against the previous
+ * snapshot. {@link #intradayAt(LocalTime)} names the snapshot that was current at a given time, so any
+ * reader that takes a session name can address an intraday point in time.
+ */
+@Service
+public class StockTickStore {
+    public static final String MORNING = "Morning";
+    public static final String EVENING = "Evening";
+    public static final String INTRADAY = "Intraday";
+    public static final ZoneId ZONE = ZoneId.of("Europe/Warsaw");
+    private static final String INTRADAY_AT = INTRADAY + "@";
+    private static final Pattern INTRADAY_TIME = Pattern.compile("\\d{2}:\\d{2}(:\\d{2})?");
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+
+    private final JsonLogger log = JsonLogger.getLogger(getClass(), "investments");
+    private final Path directory;
+    private final FileDiskStorageService fileDiskStorageService;
+    private final BaseExcelImport baseExcelImport;
+    private final int keyframeInterval;
+    private final Object writeLock = new Object();
+
+    public StockTickStore(@Value("${invest-track.stock-sessions.dir:stock-sessions}") String directory,
+                          @Value("${invest-track.intraday.keyframe-interval:16}") int keyframeInterval,
+                          FileDiskStorageService fileDiskStorageService) {
+        this.directory = Path.of(directory);
+        this.keyframeInterval = keyframeInterval;
+        this.fileDiskStorageService = fileDiskStorageService;
+        this.baseExcelImport = new BaseExcelImport(List.of(StockPriceData.class));
+    }
+
+    public void append(LocalDate day, String session, List<StockPriceData> rows) throws IOException {
+        synchronized (writeLock) {
+            if (INTRADAY.equals(session)) {
+                TickFileWriter.appendDelta(dayFile(day), day, session, System.currentTimeMillis(), rows, keyframeInterval);
+            } else {
+                TickFileWriter.append(dayFile(day), day, session, System.currentTimeMillis(), rows);
+            }
+        }
+    }
+
+    /**
+     * Session name of the latest intraday snapshot captured at or before {@code time} (Warsaw time).
+     */
+    public static String intradayAt(LocalTime time) {
+        return INTRADAY_AT + time;
+    }
+
+    /**
+     * Whether {@code session} is one of the session names or {@code Intraday@HH:mm[:ss]} - anything else
+     * (e.g. user input) must not reach the time parser or the legacy file names.
+     */
+    public static boolean isValidSession(String session) {
+        if (MORNING.equals(session) || EVENING.equals(session) || INTRADAY.equals(session)) {
+            return true;
+        }
+        if (session == null || !session.startsWith(INTRADAY_AT)
+                || !INTRADAY_TIME.matcher(session.substring(INTRADAY_AT.length())).matches()) {
+            return false;
+        }
+        try {
+            LocalTime.parse(session.substring(INTRADAY_AT.length()));
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    public static boolean isIntraday(String session) {
+        return INTRADAY.equals(session) || session.startsWith(INTRADAY_AT);
+    }
+
+    /**
+     * Loads the latest capture of a session, falling back to the legacy XLSX file for old days.
+     */
+    public Optional<List<StockPriceData>> loadSession(LocalDate day, String session) {
+        if (!isValidSession(session)) {
+            throw new IllegalArgumentException("Unknown session: " + session);
+        }
+        Path file = dayFile(day);
+        if (Files.exists(file)) {
+            try {
+                TickFileReader reader = TickFileReader.open(file);
+                Optional<TickFileReader.Block> block = session.startsWith(INTRADAY_AT)
+                        ? reader.lastBlockAtOrBefore(INTRADAY, toMillis(day, session.substring(INTRADAY_AT.length())))
+                        : reader.lastBlock(session);
+                if (block.isPresent()) {
+                    return Optional.of(reader.readRows(block.get()));
+                }
+            } catch (IOException e) {
+                log.error("Could not read tick file: {}", file.toAbsolutePath(), e);
+            }
+        }
+        return isIntraday(session) ? Optional.empty() : loadLegacySession(day, session);
+    }
+
+    /**
+     * Every intraday value of one symbol during the day, oldest first.
+     */
+    public List<IntradayTick> intradayHistory(LocalDate day, String symbol) {
+        Path file = dayFile(day);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return TickFileReader.open(file).symbolHistory(INTRADAY, symbol);
+        } catch (IOException e) {
+            log.error("Could not read tick file: {}", file.toAbsolutePath(), e);
+            return List.of();
+        }
+    }
+
+    public List<String> sessions(LocalDate day) {
+        Path file = dayFile(day);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return TickFileReader.open(file).sessions();
+        } catch (IOException e) {
+            log.error("Could not read tick file: {}", file.toAbsolutePath(), e);
+            return List.of();
+        }
+    }
+
+    private static long toMillis(LocalDate day, String time) {
+        return day.atTime(LocalTime.parse(time)).atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    Path dayFile(LocalDate day) {
+        return directory.resolve("STOCKS_PL_" + day.format(FILE_DATE) + ".ticks");
+    }
+
+    private Optional<List<StockPriceData>> loadLegacySession(LocalDate day, String session) {
+        // the scraper used to write unpadded day/month, some readers expected zero-padded names
+        for (String name : List.of(
+                "STOCKS_PL_" + day.getDayOfMonth() + "_" + day.getMonthValue() + "_" + session + ".xlsx",
+                String.format("STOCKS_PL_%02d_%02d_%s.xlsx", day.getDayOfMonth(), day.getMonthValue(), session))) {
+            if (!fileDiskStorageService.isTmpFile(name)) {
+                continue;
+            }
+            Path tmpFile = fileDiskStorageService.getTmpFile(name);
+            log.debug("Loading legacy excel file: {}", tmpFile.toAbsolutePath());
+            try (Workbook workbook = baseExcelImport.load(tmpFile.toFile())) {
+                return Optional.of((List<StockPriceData>) baseExcelImport.importExcel(workbook));
+            } catch (Exception e) {
+                log.error("Error loading excel file: {}", tmpFile.toAbsolutePath(), e);
+            }
+        }
+        return Optional.empty();
+    }
+}
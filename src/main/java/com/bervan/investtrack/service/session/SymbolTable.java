@@ -0,0 +1,64 @@
+package com.bervan.investtrack.service.session;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide symbol interner. Ids are dense and stable for the lifetime of the JVM, so frames of
+ * different sessions can be joined and marked by symbol id instead of comparing strings.
+ */
+public final class SymbolTable {
+    public static final int NO_SYMBOL = -1;
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] symbols = new String[1024];
+    private static volatile int size;
+
+    private SymbolTable() {
+    }
+
+    public static int id(String symbol) {
+        if (symbol == null) {
+            return NO_SYMBOL;
+        }
+        Integer id = IDS.get(symbol);
+        return id != null ? id : register(symbol);
+    }
+
+    /**
+     * Id of an already known symbol, {@link #NO_SYMBOL} otherwise. Lookups never register new symbols.
+     */
+    public static int find(String symbol) {
+        if (symbol == null) {
+            return NO_SYMBOL;
+        }
+        Integer id = IDS.get(symbol);
+        return id != null ? id : NO_SYMBOL;
+    }
+
+    public static String symbol(int id) {
+        return id == NO_SYMBOL ? null : symbols[id];
+    }
+
+    /**
+     * Upper bound (exclusive) of the ids handed out so far - handy for sizing BitSets and lookup arrays.
+     */
+    public static int size() {
+        return size;
+    }
+
+    private static synchronized int register(String symbol) {
+        Integer existing = IDS.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        if (id == symbols.length) {
+            symbols = Arrays.copyOf(symbols, id * 2);
+        }
+        symbols[id] = symbol;
+        size = id + 1;
+        IDS.put(symbol, id);
+        return id;
+    }
+}
@@ -0,0 +1,56 @@
+package com.bervan.investtrack.service.session;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Layout of a daily tick file (one file per trading day, append-only, big-endian):
+ * <pre>
+ * header : int MAGIC, short VERSION, int epochDay
+ * block* : int BLOCK_MAGIC | DELTA_MAGIC, int payloadLength, payload
+ * payload: utf session, long capturedAtMillis,
+ *          int newStrings, utf[newStrings]      (appended to the file-wide string dictionary)
+ *          [delta only: int baseBlock, int removed, int[removed] symbolId]
+ *          int rows,
+ *          int[rows]  symbolId, int[rows] dateId (dictionary ids)
+ *          long[rows] price, long[rows] change, long[rows] changePercent (fixed point, PRICE_SCALE digits)
+ *          int[rows]  transactions
+ * </pre>
+ * A delta block stores only the rows that changed since {@code baseBlock} (the previous block of the same
+ * session) and the symbols that disappeared; unchanged rows keep their position, new symbols go last.
+ * A block whose payload does not fit in the file (torn write) is ignored by the reader.
+ */
+final class TickFileFormat {
+    static final int MAGIC = 0x53544B31;       // "STK1"
+    static final short VERSION = 1;
+    static final int BLOCK_MAGIC = 0x424C4B31; // "BLK1"
+    static final int DELTA_MAGIC = 0x444C5431; // "DLT1"
+    static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Integer.BYTES;
+    static final int BLOCK_HEADER_BYTES = Integer.BYTES + Integer.BYTES;
+
+    static final int PRICE_SCALE = 4;
+    static final long NULL_DECIMAL = Long.MIN_VALUE;
+    static final int NULL_INT = Integer.MIN_VALUE;
+
+    private TickFileFormat() {
+    }
+
+    static long toFixed(BigDecimal value) {
+        if (value == null) return NULL_DECIMAL;
+        return value.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromFixed(long value) {
+        if (value == NULL_DECIMAL) return null;
+        BigDecimal decimal = BigDecimal.valueOf(value, PRICE_SCALE).stripTrailingZeros();
+        return decimal.scale() < 0 ? decimal.setScale(0, RoundingMode.UNNECESSARY) : decimal;
+    }
+
+    static int toInt(Integer value) {
+        return value == null ? NULL_INT : value;
+    }
+
+    static Integer fromInt(int value) {
+        return value == NULL_INT ? null : value;
+    }
+}
@@ -0,0 +1,346 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Memory-mapped, read-only view of a daily tick file. Opening the file only walks the block headers
+ * and the string dictionary; column data is decoded lazily per requested session. Delta blocks are
+ * replayed on top of their base chain when read.
+ */
+final class TickFileReader {
+    private final LocalDate day;
+    private final ByteBuffer buffer;
+    private final List<String> dictionary;
+    private final List<Block> blocks;
+    private final int validLength;
+
+    private TickFileReader(LocalDate day, ByteBuffer buffer, List<String> dictionary, List<Block> blocks, int validLength) {
+        this.day = day;
+        this.buffer = buffer;
+        this.dictionary = dictionary;
+        this.blocks = blocks;
+        this.validLength = validLength;
+    }
+
+    static TickFileReader open(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return parse(mapped);
+    }
+
+    static TickFileReader parse(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < TickFileFormat.HEADER_BYTES || buffer.getInt(0) != TickFileFormat.MAGIC) {
+            throw new IOException("Not a tick file");
+        }
+        short version = buffer.getShort(Integer.BYTES);
+        if (version != TickFileFormat.VERSION) {
+            throw new IOException("Unsupported tick file version: " + version);
+        }
+        LocalDate day = LocalDate.ofEpochDay(buffer.getInt(Integer.BYTES + Short.BYTES));
+
+        List<String> dictionary = new ArrayList<>();
+        List<Block> blocks = new ArrayList<>();
+        int limit = buffer.limit();
+        int offset = TickFileFormat.HEADER_BYTES;
+
+        while (offset + TickFileFormat.BLOCK_HEADER_BYTES <= limit) {
+            int magic = buffer.getInt(offset);
+            if (magic != TickFileFormat.BLOCK_MAGIC && magic != TickFileFormat.DELTA_MAGIC) {
+                break;
+            }
+            int payloadLength = buffer.getInt(offset + Integer.BYTES);
+            int payloadStart = offset + TickFileFormat.BLOCK_HEADER_BYTES;
+            if (payloadLength < 0 || payloadStart + payloadLength > limit) {
+                break; // torn write at the tail, everything before it is still valid
+            }
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(payloadStart).limit(payloadStart + payloadLength);
+            String session = readUtf(payload);
+            long capturedAt = payload.getLong();
+            int newStrings = payload.getInt();
+            for (int i = 0; i < newStrings; i++) {
+                dictionary.add(readUtf(payload));
+            }
+            int base = -1;
+            int removed = 0;
+            int removedOffset = payload.position();
+            if (magic == TickFileFormat.DELTA_MAGIC) {
+                base = payload.getInt();
+                removed = payload.getInt();
+                removedOffset = payload.position();
+                payload.position(removedOffset + removed * Integer.BYTES);
+                if (base < 0 || base >= blocks.size()) {
+                    break;
+                }
+            }
+            int rows = payload.getInt();
+            blocks.add(new Block(blocks.size(), session, capturedAt, rows, payload.position(), base, removedOffset, removed));
+
+            offset = payloadStart + payloadLength;
+        }
+
+        return new TickFileReader(day, buffer, Collections.unmodifiableList(dictionary), Collections.unmodifiableList(blocks), offset);
+    }
+
+    LocalDate day() {
+        return day;
+    }
+
+    List<String> dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Length of the readable prefix of the file - anything after it is a torn write.
+     */
+    int validLength() {
+        return validLength;
+    }
+
+    /**
+     * Session names in the order they were first written. A session appended twice keeps its first position.
+     */
+    List<String> sessions() {
+        List<String> sessions = new ArrayList<>();
+        for (Block block : blocks) {
+            if (!sessions.contains(block.session())) {
+                sessions.add(block.session());
+            }
+        }
+        return sessions;
+    }
+
+    /**
+     * Latest block written for the given session - re-running a scrape appends a new block instead of rewriting.
+     */
+    Optional<Block> lastBlock(String session) {
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            if (blocks.get(i).session().equals(session)) {
+                return Optional.of(blocks.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Latest block of the session captured at or before the given time.
+     */
+    Optional<Block> lastBlockAtOrBefore(String session, long capturedAt) {
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            Block block = blocks.get(i);
+            if (block.session().equals(session) && block.capturedAt() <= capturedAt) {
+                return Optional.of(block);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Number of delta blocks that have to be replayed on top of a full block to read this one.
+     */
+    int chainLength(Block block) {
+        int length = 0;
+        while (block.isDelta()) {
+            block = blocks.get(block.base());
+            length++;
+        }
+        return length;
+    }
+
+    List<StockPriceData> readRows(Block block) {
+        Columns columns = readColumns(block);
+        List<StockPriceData> result = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            result.add(toRow(i, columns.symbolIds()[i], columns.dateIds()[i], columns.prices()[i], columns.changes()[i],
+                    columns.changePercents()[i], columns.transactions()[i]));
+        }
+        return result;
+    }
+
+    Columns readColumns(Block block) {
+        Columns own = readOwnColumns(block);
+        if (!block.isDelta()) {
+            return own;
+        }
+        Columns base = readColumns(blocks.get(block.base()));
+        Set<Integer> removed = new HashSet<>();
+        for (int symbolId : readInts(block.removedOffset(), block.removed())) {
+            removed.add(symbolId);
+        }
+        Map<Integer, Integer> changed = new HashMap<>();
+        for (int j = 0; j < own.size(); j++) {
+            changed.put(own.symbolIds()[j], j);
+        }
+
+        Columns result = Columns.allocate(base.size() + own.size());
+        int size = 0;
+        for (int i = 0; i < base.size(); i++) {
+            int symbolId = base.symbolIds()[i];
+            if (removed.contains(symbolId)) {
+                continue;
+            }
+            Integer j = changed.remove(symbolId);
+            if (j != null) {
+                own.copyTo(j, result, size++);
+            } else {
+                base.copyTo(i, result, size++);
+            }
+        }
+        for (int j = 0; j < own.size(); j++) {
+            if (changed.containsKey(own.symbolIds()[j])) {
+                own.copyTo(j, result, size++);
+            }
+        }
+        return result.truncate(size);
+    }
+
+    /**
+     * Values of one symbol in every block of the session, oldest first. The row is null for blocks where
+     * the symbol was not listed. Only the symbol column and the changed-row lists are scanned.
+     */
+    List<IntradayTick> symbolHistory(String session, String symbol) {
+        int symbolId = dictionary.indexOf(symbol);
+        List<IntradayTick> history = new ArrayList<>();
+        if (symbolId < 0) {
+            return history;
+        }
+        // where the symbol's current value lives, per block: [block index, row] or null when absent
+        Map<Integer, int[]> location = new HashMap<>();
+        for (Block block : blocks) {
+            if (!block.session().equals(session)) {
+                continue;
+            }
+            int[] at;
+            int row = indexOf(readInts(block.columnsOffset(), block.rows()), symbolId);
+            if (row >= 0) {
+                at = new int[]{block.index(), row};
+            } else if (block.isDelta() && indexOf(readInts(block.removedOffset(), block.removed()), symbolId) < 0) {
+                at = location.get(block.base());
+            } else {
+                at = null;
+            }
+            location.put(block.index(), at);
+            history.add(new IntradayTick(Instant.ofEpochMilli(block.capturedAt()), at == null ? null : readRow(blocks.get(at[0]), at[1])));
+        }
+        return history;
+    }
+
+    private StockPriceData readRow(Block block, int row) {
+        int rows = block.rows();
+        int intsOffset = block.columnsOffset();
+        int longsOffset = intsOffset + 2 * rows * Integer.BYTES;
+        return toRow(row,
+                buffer.getInt(intsOffset + row * Integer.BYTES),
+                buffer.getInt(intsOffset + (rows + row) * Integer.BYTES),
+                buffer.getLong(longsOffset + row * Long.BYTES),
+                buffer.getLong(longsOffset + (rows + row) * Long.BYTES),
+                buffer.getLong(longsOffset + (2 * rows + row) * Long.BYTES),
+                buffer.getInt(longsOffset + 3 * rows * Long.BYTES + row * Integer.BYTES));
+    }
+
+    private StockPriceData toRow(int id, int symbolId, int dateId, long price, long change, long changePercent, int transactions) {
+        StockPriceData item = new StockPriceData();
+        item.setId((long) id);
+        item.setSymbol(dictionary.get(symbolId));
+        item.setDate(dateId == TickFileFormat.NULL_INT ? null : dictionary.get(dateId));
+        item.setPrice(TickFileFormat.fromFixed(price));
+        item.setChange(TickFileFormat.fromFixed(change));
+        item.setChangePercent(TickFileFormat.fromFixed(changePercent));
+        item.setTransactions(TickFileFormat.fromInt(transactions));
+        return item;
+    }
+
+    private Columns readOwnColumns(Block block) {
+        int rows = block.rows();
+        int longsOffset = block.columnsOffset() + 2 * rows * Integer.BYTES;
+        return new Columns(rows,
+                readInts(block.columnsOffset(), rows),
+                readInts(block.columnsOffset() + rows * Integer.BYTES, rows),
+                readLongs(longsOffset, rows),
+                readLongs(longsOffset + rows * Long.BYTES, rows),
+                readLongs(longsOffset + 2 * rows * Long.BYTES, rows),
+                readInts(longsOffset + 3 * rows * Long.BYTES, rows));
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int[] readInts(int offset, int count) {
+        int[] values = new int[count];
+        buffer.duplicate().position(offset).slice().asIntBuffer().get(values);
+        return values;
+    }
+
+    private long[] readLongs(int offset, int count) {
+        long[] values = new long[count];
+        buffer.duplicate().position(offset).slice().asLongBuffer().get(values);
+        return values;
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    record Block(int index, String session, long capturedAt, int rows, int columnsOffset,
+                 int base, int removedOffset, int removed) {
+
+        boolean isDelta() {
+            return base >= 0;
+        }
+    }
+
+    /**
+     * Decoded columns of a session snapshot, dictionary ids and fixed-point values as stored.
+     */
+    record Columns(int size, int[] symbolIds, int[] dateIds, long[] prices, long[] changes, long[] changePercents,
+                   int[] transactions) {
+
+        static Columns allocate(int capacity) {
+            return new Columns(capacity, new int[capacity], new int[capacity], new long[capacity], new long[capacity],
+                    new long[capacity], new int[capacity]);
+        }
+
+        void copyTo(int row, Columns target, int targetRow) {
+            target.symbolIds[targetRow] = symbolIds[row];
+            target.dateIds[targetRow] = dateIds[row];
+            target.prices[targetRow] = prices[row];
+            target.changes[targetRow] = changes[row];
+            target.changePercents[targetRow] = changePercents[row];
+            target.transactions[targetRow] = transactions[row];
+        }
+
+        Columns truncate(int newSize) {
+            return new Columns(newSize, symbolIds, dateIds, prices, changes, changePercents, transactions);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Appends one session block to a daily tick file, creating the file with its header when needed.
+ * A torn block left at the end of the file by an interrupted write is cut off before appending.
+ * Not thread-safe - callers serialize appends per file.
+ */
+final class TickFileWriter {
+
+    private TickFileWriter() {
+    }
+
+    static void append(Path path, LocalDate day, String session, long capturedAt, List<StockPriceData> rows) throws IOException {
+        TickFileReader existing = openExisting(path, day);
+        write(path, day, existing, new Dictionary(existing), session, capturedAt, rows, -1, new int[0]);
+    }
+
+    /**
+     * Appends a snapshot as a delta against the previous block of the same session: only the rows whose
+     * values changed and the symbols that disappeared are written. A full block is written instead for the
+     * first snapshot, after {@code keyframeInterval} deltas in a row, and when the row order or duplicated
+     * symbols would not survive the delta.
+     */
+    static void appendDelta(Path path, LocalDate day, String session, long capturedAt, List<StockPriceData> rows,
+                            int keyframeInterval) throws IOException {
+        TickFileReader existing = openExisting(path, day);
+        Dictionary dictionary = new Dictionary(existing);
+        TickFileReader.Block base = existing == null ? null : existing.lastBlock(session).orElse(null);
+        if (base == null || existing.chainLength(base) >= keyframeInterval) {
+            write(path, day, existing, dictionary, session, capturedAt, rows, -1, new int[0]);
+            return;
+        }
+
+        TickFileReader.Columns previous = existing.readColumns(base);
+        Map<Integer, Integer> previousRow = new HashMap<>();
+        for (int i = 0; i < previous.size(); i++) {
+            if (previousRow.putIfAbsent(previous.symbolIds()[i], i) != null) {
+                write(path, day, existing, dictionary, session, capturedAt, rows, -1, new int[0]);
+                return;
+            }
+        }
+
+        List<StockPriceData> changed = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        int lastPreviousRow = -1;
+        boolean newSymbolSeen = false;
+        for (StockPriceData row : rows) {
+            int symbolId = dictionary.intern(row.getSymbol() == null ? "" : row.getSymbol());
+            Integer p = previousRow.get(symbolId);
+            if (!seen.add(symbolId) || (p != null && (newSymbolSeen || p < lastPreviousRow))) {
+                // duplicate symbol or reordered rows - a delta would not reproduce this snapshot
+                write(path, day, existing, dictionary, session, capturedAt, rows, -1, new int[0]);
+                return;
+            }
+            if (p == null) {
+                newSymbolSeen = true;
+                changed.add(row);
+                continue;
+            }
+            lastPreviousRow = p;
+            int dateId = row.getDate() == null ? TickFileFormat.NULL_INT : dictionary.intern(row.getDate());
+            if (previous.dateIds()[p] != dateId
+                    || previous.prices()[p] != TickFileFormat.toFixed(row.getPrice())
+                    || previous.changes()[p] != TickFileFormat.toFixed(row.getChange())
+                    || previous.changePercents()[p] != TickFileFormat.toFixed(row.getChangePercent())
+                    || previous.transactions()[p] != TickFileFormat.toInt(row.getTransactions())) {
+                changed.add(row);
+            }
+        }
+
+        int[] removed = previousRow.keySet().stream()
+                .filter(symbolId -> !seen.contains(symbolId))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        write(path, day, existing, dictionary, session, capturedAt, changed, base.index(), removed);
+    }
+
+    private static TickFileReader openExisting(Path path, LocalDate day) throws IOException {
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            return null;
+        }
+        TickFileReader existing = TickFileReader.open(path);
+        if (!existing.day().equals(day)) {
+            throw new IOException("Tick file " + path + " belongs to " + existing.day() + ", not " + day);
+        }
+        return existing;
+    }
+
+    private static void write(Path path, LocalDate day, TickFileReader existing, Dictionary dictionary, String session,
+                              long capturedAt, List<StockPriceData> rows, int base, int[] removed) throws IOException {
+        int rowCount = rows.size();
+        int[] symbolIds = new int[rowCount];
+        int[] dateIds = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            StockPriceData row = rows.get(i);
+            symbolIds[i] = dictionary.intern(row.getSymbol() == null ? "" : row.getSymbol());
+            dateIds[i] = row.getDate() == null ? TickFileFormat.NULL_INT : dictionary.intern(row.getDate());
+        }
+
+        boolean delta = base >= 0;
+        byte[] sessionBytes = session.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> encodedStrings = new ArrayList<>(dictionary.newStrings.size());
+        int stringBytes = 0;
+        for (String s : dictionary.newStrings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.add(bytes);
+            stringBytes += Short.BYTES + bytes.length;
+        }
+
+        int payloadLength = Short.BYTES + sessionBytes.length
+                + Long.BYTES
+                + Integer.BYTES + stringBytes
+                + (delta ? 2 * Integer.BYTES + removed.length * Integer.BYTES : 0)
+                + Integer.BYTES
+                + rowCount * (3 * Integer.BYTES + 3 * Long.BYTES);
+
+        boolean newFile = existing == null;
+        ByteBuffer out = ByteBuffer.allocate((newFile ? TickFileFormat.HEADER_BYTES : 0)
+                + TickFileFormat.BLOCK_HEADER_BYTES + payloadLength);
+        if (newFile) {
+            out.putInt(TickFileFormat.MAGIC);
+            out.putShort(TickFileFormat.VERSION);
+            out.putInt((int) day.toEpochDay());
+        }
+        out.putInt(delta ? TickFileFormat.DELTA_MAGIC : TickFileFormat.BLOCK_MAGIC);
+        out.putInt(payloadLength);
+        putUtf(out, sessionBytes);
+        out.putLong(capturedAt);
+        out.putInt(encodedStrings.size());
+        for (byte[] bytes : encodedStrings) {
+            putUtf(out, bytes);
+        }
+        if (delta) {
+            out.putInt(base);
+            out.putInt(removed.length);
+            for (int symbolId : removed) out.putInt(symbolId);
+        }
+        out.putInt(rowCount);
+        for (int id : symbolIds) out.putInt(id);
+        for (int id : dateIds) out.putInt(id);
+        for (StockPriceData row : rows) out.putLong(TickFileFormat.toFixed(row.getPrice()));
+        for (StockPriceData row : rows) out.putLong(TickFileFormat.toFixed(row.getChange()));
+        for (StockPriceData row : rows) out.putLong(TickFileFormat.toFixed(row.getChangePercent()));
+        for (StockPriceData row : rows) out.putInt(TickFileFormat.toInt(row.getTransactions()));
+        out.flip();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long end = newFile ? 0 : existing.validLength();
+            if (channel.size() > end) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static void putUtf(ByteBuffer out, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String too long for tick file: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * The file-wide string dictionary plus the strings this block adds to it.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> newStrings = new ArrayList<>();
+        private final int size;
+
+        Dictionary(TickFileReader existing) {
+            List<String> dictionary = existing == null ? List.of() : existing.dictionary();
+            for (int i = 0; i < dictionary.size(); i++) {
+                ids.putIfAbsent(dictionary.get(i), i);
+            }
+            this.size = dictionary.size();
+        }
+
+        int intern(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = size + newStrings.size();
+                ids.put(value, id);
+                newStrings.add(value);
+            }
+            return id;
+        }
+    }
+}
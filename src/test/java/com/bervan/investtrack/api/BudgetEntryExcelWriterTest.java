@@ -0,0 +1,66 @@
+package com.bervan.investtrack.api;
+
+import com.bervan.budget.entry.BudgetEntryExportRow;
+import com.bervan.ieentities.BaseExcelImport;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trip of the streamed budget export through the ie-entities reader that importAll parses
+ * uploads with, into the import DTO.
+ */
+class BudgetEntryExcelWriterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportedFile_importsBackIntoRequestDtos() throws Exception {
+        BudgetEntryExportRow groceries = new BudgetEntryExportRow(UUID.randomUUID(), "Groceries", "Food", "PLN",
+                new BigDecimal("123.45"), LocalDate.of(2024, 3, 1), "Card", "Expense", "weekly",
+                "home, shop", false, LocalDateTime.of(2024, 3, 1, 12, 0));
+        BudgetEntryExportRow salary = new BudgetEntryExportRow(UUID.randomUUID(), "Salary", "Income", "PLN",
+                new BigDecimal("8000"), LocalDate.of(2024, 2, 28), "Transfer", "Income", null,
+                null, true, LocalDateTime.of(2024, 2, 28, 9, 30));
+
+        Path file = dir.resolve("budget-entries.xlsx");
+        try (BudgetEntryExcelWriter writer = new BudgetEntryExcelWriter();
+             OutputStream out = Files.newOutputStream(file)) {
+            writer.append(groceries);
+            writer.append(salary);
+            writer.writeTo(out);
+        }
+
+        BaseExcelImport excelImport = new BaseExcelImport(List.of(BudgetEntryRequestDto.class));
+        List<BudgetEntryRequestDto> imported;
+        try (Workbook workbook = excelImport.load(file.toFile())) {
+            imported = (List<BudgetEntryRequestDto>) excelImport.importExcel(workbook);
+        }
+
+        assertEquals(2, imported.size());
+        BudgetEntryRequestDto first = imported.get(0);
+        assertEquals(groceries.id(), first.getId());
+        assertEquals("Groceries", first.getName());
+        assertEquals(0, new BigDecimal("123.45").compareTo(first.getValue()));
+        assertEquals(LocalDate.of(2024, 3, 1), first.getEntryDate());
+        assertEquals("home, shop", first.getTags());
+        assertFalse(first.getIsRecurring());
+        BudgetEntryRequestDto second = imported.get(1);
+        assertEquals("Salary", second.getName());
+        assertEquals("Income", second.getEntryType());
+        assertTrue(second.getIsRecurring());
+    }
+}
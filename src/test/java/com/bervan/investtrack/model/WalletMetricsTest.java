@@ -0,0 +1,76 @@
+package com.bervan.investtrack.model;
+
+import com.bervan.investtrack.service.InvestmentCalculationService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WalletMetricsTest {
+
+    private final InvestmentCalculationService calculationService = new InvestmentCalculationService();
+
+    @Test
+    void append_matchesFullCalculation() {
+        List<WalletSnapshot> snapshots = List.of(
+                snapshot("2023-11-30", "1000", "1000", "0"),
+                snapshot("2023-12-31", "1580", "500", "0"),
+                snapshot("2024-01-31", "1700", "100", "0"),
+                snapshot("2024-02-29", "1500", "0", "150"),
+                snapshot("2024-03-31", "1900", "300", "0"));
+
+        WalletMetrics metrics = new WalletMetrics(UUID.randomUUID());
+        for (WalletSnapshot snapshot : snapshots) {
+            metrics.append(snapshot);
+        }
+
+        assertEquals(5, metrics.getSnapshotCount());
+        assertEquals(0, new BigDecimal("1750").compareTo(metrics.getTotalDeposits()));
+        assertEquals(0, new BigDecimal("1900").compareTo(metrics.getCurrentValue()));
+        assertEquals(calculationService.calculateTWR(snapshots), metrics.getTwr());
+        assertEquals(calculationService.calculateMonthlyReturns(snapshots), new LinkedHashMap<>(metrics.getMonthlyReturns()));
+        assertEquals(calculationService.calculateYearlyReturns(snapshots), new LinkedHashMap<>(metrics.getYearlyReturns()));
+    }
+
+    @Test
+    void rebuild_sortsAndMatchesAppend() {
+        List<WalletSnapshot> snapshots = new ArrayList<>(List.of(
+                snapshot("2024-03-31", "1900", "300", "0"),
+                snapshot("2023-12-31", "1580", "500", "0"),
+                snapshot("2024-01-31", "1700", "100", "0")));
+
+        WalletMetrics rebuilt = new WalletMetrics(UUID.randomUUID());
+        rebuilt.rebuild(snapshots);
+        WalletMetrics appended = new WalletMetrics(UUID.randomUUID());
+        appended.append(snapshots.get(1));
+        appended.append(snapshots.get(2));
+        appended.append(snapshots.get(0));
+
+        assertEquals(appended.getTwr(), rebuilt.getTwr());
+        assertEquals(appended.getMonthlyReturns(), rebuilt.getMonthlyReturns());
+        assertEquals(appended.getYearlyReturns(), rebuilt.getYearlyReturns());
+        assertEquals(LocalDate.of(2023, 12, 31), rebuilt.getFirstDate());
+
+        snapshots.remove(0);
+        rebuilt.rebuild(snapshots);
+        assertEquals(2, rebuilt.getSnapshotCount());
+        assertEquals(0, new BigDecimal("1700").compareTo(rebuilt.getCurrentValue()));
+    }
+
+    private static WalletSnapshot snapshot(String date, String value, String deposit, String withdrawal) {
+        WalletSnapshot snapshot = new WalletSnapshot();
+        snapshot.setId(UUID.randomUUID());
+        snapshot.setSnapshotDate(LocalDate.parse(date));
+        snapshot.setPortfolioValue(new BigDecimal(value));
+        snapshot.setMonthlyDeposit(new BigDecimal(deposit));
+        snapshot.setMonthlyWithdrawal(new BigDecimal(withdrawal));
+        snapshot.setMonthlyEarnings(BigDecimal.ZERO);
+        return snapshot;
+    }
+}
@@ -0,0 +1,69 @@
+package com.bervan.investtrack.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BenchmarkSeriesStore refreshes; fetchSince is overridden so no HTTP calls are made.
+ */
+class BenchmarkSeriesStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tickerRegisteredDuringRefresh_isFetchedBeforeItCompletes() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BenchmarkTickerRegistry registry = new BenchmarkTickerRegistry("");
+        BenchmarkSeriesStore store = new BenchmarkSeriesStore(dir.toString(), registry) {
+            @Override
+            BenchmarkSeries fetchSince(String ticker, LocalDate from) throws Exception {
+                fetching.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return new BenchmarkSeries(new int[]{(int) LocalDate.of(2024, 1, 2).toEpochDay()}, new double[]{1.0});
+            }
+        };
+        try {
+            var refresh = store.refresh();
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            registry.register("NEW", "USD");
+            release.countDown();
+
+            BenchmarkSeriesStore.Snapshot snapshot = refresh.get(5, TimeUnit.SECONDS);
+            assertFalse(snapshot.series("NEW").isEmpty());
+            assertTrue(snapshot.complete());
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void failedFetch_isRetriedWithinMinutes() throws Exception {
+        BenchmarkSeriesStore store = new BenchmarkSeriesStore(dir.toString(), new BenchmarkTickerRegistry("")) {
+            @Override
+            BenchmarkSeries fetchSince(String ticker, LocalDate from) throws Exception {
+                throw new IOException("offline");
+            }
+        };
+        try {
+            BenchmarkSeriesStore.Snapshot snapshot = store.refresh().get(5, TimeUnit.SECONDS);
+            assertFalse(snapshot.complete());
+
+            long sixMinutesAgo = System.currentTimeMillis() - 6 * 60 * 1000;
+            assertTrue(new BenchmarkSeriesStore.Snapshot(Map.of(), sixMinutesAgo, false).isStale());
+            assertFalse(new BenchmarkSeriesStore.Snapshot(Map.of(), sixMinutesAgo, true).isStale());
+        } finally {
+            store.shutdown();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bervan.investtrack.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CurrencyConverter with its default rates: 1 EUR = 4.30 PLN, 1 USD = 3.70 PLN.
+ */
+class CurrencyConverterTest {
+
+    private final CurrencyConverter converter = new CurrencyConverter();
+
+    @Test
+    void convert_exactAndDoublePathsAgree() {
+        assertEquals(0, new BigDecimal("430.0000").compareTo(
+                converter.convert(new BigDecimal("100"), CurrencyConverter.Currency.EUR, CurrencyConverter.Currency.PLN)));
+        assertEquals(0, new BigDecimal("116.2162").compareTo(converter.convert(new BigDecimal("100"), "EUR", "usd")));
+        assertEquals(100 * 4.30 / 3.70, converter.convert(100.0, "EUR", "USD"), 1e-9);
+    }
+
+    @Test
+    void convertAll_convertsEveryAmountKeepingNulls() {
+        List<BigDecimal> converted = converter.convertAll(
+                Arrays.asList(new BigDecimal("1"), null, new BigDecimal("10")), "USD", "PLN");
+
+        assertEquals(0, new BigDecimal("3.70").compareTo(converted.get(0)));
+        assertNull(converted.get(1));
+        assertEquals(0, new BigDecimal("37.00").compareTo(converted.get(2)));
+        assertArrayEquals(new double[]{3.7, 37.0}, converter.convertAll(new double[]{1, 10}, "USD", "PLN"), 1e-9);
+    }
+
+    @Test
+    void setRate_replacesOneRateKeepingTheOthers() {
+        converter.setRate(CurrencyConverter.Currency.USD, new BigDecimal("4.00"));
+
+        assertEquals(4.0, converter.rate("USD", "PLN"), 1e-9);
+        assertEquals(4.3, converter.rate("EUR", "PLN"), 1e-9);
+    }
+
+    @Test
+    void unknownCurrency_throws() {
+        assertFalse(converter.supports("GBP"));
+        assertThrows(IllegalStateException.class, () -> converter.convert(BigDecimal.ONE, "GBP", "PLN"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.bervan.investtrack.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for FxRateHistory lookups over series injected into the store.
+ *
+ * USD/PLN: Fri 2024-01-05: 4.0, Mon 2024-01-08: 4.2
+ * USD/EUR: Fri 2024-01-05: 0.9
+ * USD/CHF: Fri 2024-01-05: 0.8, only once fetched
+ * Current CurrencyConverter rates: 1 USD = 3.70 PLN
+ */
+class FxRateHistoryTest {
+
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 1, 5);
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 8);
+
+    private BenchmarkTickerRegistry registry;
+    private BenchmarkSeriesStore store;
+    private FxRateHistory history;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new BenchmarkTickerRegistry("");
+        // only the CHF history can be fetched; the converter knows CHF in addition to its defaults
+        store = new BenchmarkSeriesStore(dir.toString(), registry) {
+            @Override
+            BenchmarkSeries fetchSince(String ticker, LocalDate from) throws Exception {
+                if (!BenchmarkTickerRegistry.fxTicker("CHF").equals(ticker)) {
+                    throw new IOException("offline");
+                }
+                return new BenchmarkSeries(new int[]{(int) FRIDAY.toEpochDay()}, new double[]{0.8});
+            }
+        };
+        CurrencyConverter converter = new CurrencyConverter() {
+            @Override
+            public boolean supports(String currency) {
+                return super.supports(currency) || "CHF".equals(currency);
+            }
+        };
+        history = new FxRateHistory(store, registry, converter);
+
+        BenchmarkSeries usdPln = new BenchmarkSeries(
+                new int[]{(int) FRIDAY.toEpochDay(), (int) MONDAY.toEpochDay()}, new double[]{4.0, 4.2});
+        BenchmarkSeries usdEur = new BenchmarkSeries(new int[]{(int) FRIDAY.toEpochDay()}, new double[]{0.9});
+        Field field = BenchmarkSeriesStore.class.getDeclaredField("snapshot");
+        field.setAccessible(true);
+        field.set(store, new BenchmarkSeriesStore.Snapshot(Map.of(
+                ETFDataService.USDPLN_TICKER, usdPln,
+                ETFDataService.USDEUR_TICKER, usdEur), System.currentTimeMillis()));
+    }
+
+    @Test
+    void weekendCarriesFridayRate() {
+        assertEquals(4.0, history.rate(FRIDAY.plusDays(1), "USD", "PLN"), 1e-9);
+        assertEquals(4.2, history.rate(MONDAY, "USD", "PLN"), 1e-9);
+        assertEquals(1 / 4.2, history.rate(MONDAY, "PLN", "USD"), 1e-9);
+    }
+
+    @Test
+    void crossRateGoesThroughUsd() {
+        // 1 EUR = 4.0 / 0.9 PLN
+        assertEquals(4.0 / 0.9, history.rate(FRIDAY, "EUR", "PLN"), 1e-9);
+    }
+
+    @Test
+    void unknownDateOrCurrency_isNaN() {
+        assertTrue(Double.isNaN(history.rate(FRIDAY.minusDays(1), "USD", "PLN")));
+        assertTrue(Double.isNaN(history.rate(FRIDAY, "GBP", "PLN")));
+    }
+
+    @Test
+    void currencyWithoutHistory_isRegisteredAndFetched() throws Exception {
+        assertTrue(Double.isNaN(history.rate(FRIDAY, "CHF", "PLN")));
+        assertTrue(registry.tickers().contains(BenchmarkTickerRegistry.fxTicker("CHF")));
+
+        store.refresh().get(5, TimeUnit.SECONDS);
+
+        // 1 CHF = 4.0 / 0.8 PLN
+        assertEquals(4.0 / 0.8, history.rate(FRIDAY, "CHF", "PLN"), 1e-9);
+        assertEquals(4.0 / 0.8, history.rate(FRIDAY.plusDays(2), "CHF", "PLN"), 1e-9);
+    }
+
+    @Test
+    void convert_fallsBackToCurrentRate() {
+        assertEquals(0, new BigDecimal("420.0000").compareTo(history.convert(new BigDecimal("100"), "USD", "PLN", MONDAY)));
+        // before the history starts: current converter rate 3.70
+        assertEquals(0, new BigDecimal("370.0000").compareTo(history.convert(new BigDecimal("100"), "USD", "PLN", LocalDate.of(2020, 1, 1))));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.Wallet;
+import com.bervan.investtrack.model.WalletSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortfolioSeriesTest {
+
+    @Test
+    void aggregate_carriesBalancesForwardAndConvertsCurrencies() {
+        WalletWithSnapshots pln = wallet("PLN",
+                snapshot("2024-01-31", "1000", "1000"),
+                snapshot("2024-03-31", "1300", "200"));
+        WalletWithSnapshots usd = wallet("USD",
+                snapshot("2024-02-29", "100", "100"),
+                snapshot("2024-03-31", "120", "0"),
+                snapshot("2024-04-30", "130", "10"));
+
+        PortfolioSeries series = PortfolioSeries.aggregate(List.of(pln, usd),
+                (amount, currency) -> "USD".equals(currency) ? amount.multiply(new BigDecimal("4")) : amount);
+
+        assertEquals(4, series.size());
+        assertEquals(LocalDate.of(2024, 1, 31), series.date(0));
+        assertEquals(1000, series.balance(0), 1e-9);
+        assertEquals(1000, series.cashFlow(0), 1e-9);
+        // PLN wallet carried forward, USD wallet starts
+        assertEquals(1400, series.balance(1), 1e-9);
+        assertEquals(400, series.cashFlow(1), 1e-9);
+        assertEquals(1780, series.balance(2), 1e-9);
+        assertEquals(200, series.cashFlow(2), 1e-9);
+        assertEquals(1820, series.balance(3), 1e-9);
+        assertEquals(40, series.cashFlow(3), 1e-9);
+    }
+
+    @Test
+    void twr_matchesMapBasedCalculation() {
+        WalletWithSnapshots pln = wallet("PLN",
+                snapshot("2024-01-31", "1000", "1000"),
+                snapshot("2024-02-29", "1100", "0"),
+                snapshot("2024-03-31", "1500", "300"));
+        InvestmentCalculationService calculationService = new InvestmentCalculationService();
+
+        PortfolioSeries series = calculationService.buildPortfolioSeries(List.of(pln), (amount, currency) -> amount);
+
+        assertEquals(calculationService.calculateAggregatedTWR(series.toMap()),
+                calculationService.calculateAggregatedTWR(series));
+        assertTrue(PortfolioSeries.aggregate(List.of(), (amount, currency) -> amount).isEmpty());
+    }
+
+    private static WalletWithSnapshots wallet(String currency, WalletSnapshot... snapshots) {
+        Wallet wallet = new Wallet();
+        wallet.setId(UUID.randomUUID());
+        wallet.setCurrency(currency);
+        return new WalletWithSnapshots(wallet, List.of(snapshots));
+    }
+
+    private static WalletSnapshot snapshot(String date, String value, String deposit) {
+        WalletSnapshot snapshot = new WalletSnapshot();
+        snapshot.setSnapshotDate(LocalDate.parse(date));
+        snapshot.setPortfolioValue(new BigDecimal(value));
+        snapshot.setMonthlyDeposit(new BigDecimal(deposit));
+        snapshot.setMonthlyWithdrawal(BigDecimal.ZERO);
+        return snapshot;
+    }
+}
@@ -2,10 +2,14 @@ package com.bervan.investtrack.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -26,9 +30,14 @@ class SP500DataServiceTest {
 
     private ETFDataService service;
 
+    @TempDir
+    Path dir;
+
     @BeforeEach
     void setUp() throws Exception {
-        service = new ETFDataService();
+        BenchmarkTickerRegistry registry = new BenchmarkTickerRegistry("");
+        BenchmarkSeriesStore store = new BenchmarkSeriesStore(dir.toString(), registry);
+        service = new ETFDataService(store, new FxRateHistory(store, registry, new CurrencyConverter()));
 
         Map<YearMonth, BigDecimal> sp500 = new TreeMap<>();
         sp500.put(YearMonth.of(2024, 1), new BigDecimal("5000"));
@@ -60,13 +69,14 @@ class SP500DataServiceTest {
         usdEur.put(YearMonth.of(2024, 2), new BigDecimal("0.9"));
         usdEur.put(YearMonth.of(2024, 3), new BigDecimal("0.9"));
 
-        setField(service, "cachedSP500", sp500);
-        setField(service, "cachedWig20", wig20);
-        setField(service, "cachedNasdaq", nasdaq);
-        setField(service, "cachedDji", dji);
-        setField(service, "cachedUsdPln", usdPln);
-        setField(service, "cachedUsdEur", usdEur);
-        setField(service, "cacheTimestamp", System.currentTimeMillis());
+        Map<String, BenchmarkSeries> series = new HashMap<>();
+        series.put(ETFDataService.SP500_TICKER, daily(sp500));
+        series.put(ETFDataService.WIG20_TICKER, daily(wig20));
+        series.put(ETFDataService.NASDAQ_TICKER, daily(nasdaq));
+        series.put(ETFDataService.DJI_TICKER, daily(dji));
+        series.put(ETFDataService.USDPLN_TICKER, daily(usdPln));
+        series.put(ETFDataService.USDEUR_TICKER, daily(usdEur));
+        setField(store, "snapshot", new BenchmarkSeriesStore.Snapshot(series, System.currentTimeMillis()));
     }
 
     // ── USD ───────────────────────────────────────────────────────────────────
@@ -148,6 +158,17 @@ class SP500DataServiceTest {
         result.forEach(v -> assertEquals(0, BigDecimal.ZERO.compareTo(v)));
     }
 
+    @Test
+    void usd_midMonthDate_usesLastCloseBefore() {
+        // 15-02-2024 has no point of its own → price of 01-02-2024 (6000)
+        List<String> dates = List.of("01-01-2024", "15-02-2024");
+        List<BigDecimal> deposits = List.of(new BigDecimal("1000"), BigDecimal.ZERO);
+
+        List<BigDecimal> result = service.calculateSp500BenchmarkValues(dates, deposits, "USD");
+
+        assertEquals(0, new BigDecimal("1200.00").compareTo(result.get(1)));
+    }
+
     // ── PLN ───────────────────────────────────────────────────────────────────
 
     @Test
@@ -259,8 +280,38 @@ class SP500DataServiceTest {
         assertEquals(0, new BigDecimal("16000.00").compareTo(result.get(1)));
     }
 
+    @Test
+    void curves_allBenchmarksInOnePass_matchSingleTickerValues() {
+        // PLN portfolio: 4000 PLN → S&P 500 0.2 units (4800 PLN in month 2), WIG20 2.0 units (4400 PLN)
+        List<LocalDate> dates = List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1));
+        double[] flows = {4000, 0};
+
+        double[][] curves = service.calculateBenchmarkCurves(List.of(
+                new ETFDataService.Benchmark(ETFDataService.SP500_TICKER, "USD"),
+                new ETFDataService.Benchmark(ETFDataService.WIG20_TICKER, "PLN"),
+                new ETFDataService.Benchmark("UNKNOWN", "USD")), dates, flows, "PLN");
+
+        assertEquals(3, curves.length);
+        assertEquals(4800.0, curves[0][1], 1e-6);
+        assertEquals(4400.0, curves[1][1], 1e-6);
+        assertNull(curves[2]); // no price data → no curve
+    }
+
     // ── helper ────────────────────────────────────────────────────────────────
 
+    /** One point per month, on its first day. */
+    private static BenchmarkSeries daily(Map<YearMonth, BigDecimal> monthly) {
+        int[] days = new int[monthly.size()];
+        double[] prices = new double[monthly.size()];
+        int i = 0;
+        for (Map.Entry<YearMonth, BigDecimal> entry : monthly.entrySet()) {
+            days[i] = (int) entry.getKey().atDay(1).toEpochDay();
+            prices[i] = entry.getValue().doubleValue();
+            i++;
+        }
+        return new BenchmarkSeries(days, prices);
+    }
+
     private static void setField(Object target, String fieldName, Object value) throws Exception {
         Field field = target.getClass().getDeclaredField(fieldName);
         field.setAccessible(true);
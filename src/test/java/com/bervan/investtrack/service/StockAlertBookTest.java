@@ -0,0 +1,91 @@
+package com.bervan.investtrack.service;
+
+import com.bervan.investtrack.model.StockPriceAlert;
+import com.bervan.investtrack.model.StockPriceAlertConfig;
+import com.bervan.investtrack.service.scrap.StockPriceFetcher.SymbolKey;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockAlertBookTest {
+
+    private static final SymbolKey PKN = new SymbolKey("GPW", "PL0000000001");
+
+    @Test
+    void triggered_findsAlertsOnBothSidesOfThePrice() {
+        StockAlertBook book = new StockAlertBook();
+        StockPriceAlert above60 = alert("above 60", ">=", "60");
+        StockPriceAlert above70 = alert("above 70", ">=", "70");
+        StockPriceAlert below65 = alert("below 65", "<=", "65");
+        StockPriceAlert below50 = alert("below 50", "<=", "50");
+        book.replaceAll(List.of(above60, above70, below65, below50));
+
+        assertEquals(Set.of("above 60", "below 65"), names(book.triggered(PKN, new BigDecimal("62"))));
+        assertEquals(Set.of("above 60", "above 70"), names(book.triggered(PKN, new BigDecimal("70.00"))));
+        assertEquals(Set.of("below 65", "below 50"), names(book.triggered(PKN, new BigDecimal("50"))));
+        assertTrue(book.triggered(new SymbolKey("GPW", "PL0000000002"), new BigDecimal("62")).isEmpty());
+    }
+
+    @Test
+    void put_reindexesAndDropsExhaustedAlerts() {
+        StockAlertBook book = new StockAlertBook();
+        StockPriceAlert alert = alert("above 60", ">=", "60");
+        book.replaceAll(List.of(alert));
+
+        alert.getStockPriceAlertConfig().setPrice(new BigDecimal("80"));
+        book.put(alert);
+        assertTrue(book.triggered(PKN, new BigDecimal("62")).isEmpty());
+        assertEquals(1, book.triggered(PKN, new BigDecimal("80")).size());
+
+        alert.getStockPriceAlertConfig().setAmountOfNotifications(0);
+        book.put(alert);
+        assertEquals(0, book.size());
+
+        StockPriceAlert other = alert("below 50", "<=", "50");
+        book.put(other);
+        book.remove(other.getId());
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void dueAlerts_respectsCheckInterval() {
+        StockAlertBook book = new StockAlertBook();
+        LocalDateTime now = LocalDateTime.of(2024, 3, 5, 12, 0);
+        StockPriceAlert fresh = alert("fresh", ">=", "60");
+        fresh.getStockPriceAlertConfig().setPreviouslyCheckedDate(now.minusMinutes(10));
+        StockPriceAlert stale = alert("stale", ">=", "60");
+        stale.getStockPriceAlertConfig().setPreviouslyCheckedDate(now.minusMinutes(61));
+        book.replaceAll(List.of(fresh, stale));
+
+        assertEquals(Set.of("stale"), names(book.dueAlerts(now).get(PKN)));
+    }
+
+    private static Set<String> names(List<StockPriceAlert> alerts) {
+        return alerts.stream().map(StockPriceAlert::getName).collect(Collectors.toSet());
+    }
+
+    private static StockPriceAlert alert(String name, String operator, String price) {
+        StockPriceAlertConfig config = new StockPriceAlertConfig();
+        config.setId(UUID.randomUUID());
+        config.setOperator(operator);
+        config.setPrice(new BigDecimal(price));
+        config.setCheckIntervalMinutes(60);
+        config.setAmountOfNotifications(1);
+
+        StockPriceAlert alert = new StockPriceAlert();
+        alert.setId(UUID.randomUUID());
+        alert.setName(name);
+        alert.setSymbol(PKN.symbol());
+        alert.setExchange(PKN.exchange());
+        alert.setEmails(List.of("investor@example.com"));
+        alert.setStockPriceAlertConfig(config);
+        return alert;
+    }
+}
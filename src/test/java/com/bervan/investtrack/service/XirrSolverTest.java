@@ -0,0 +1,79 @@
+package com.bervan.investtrack.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XirrSolverTest {
+
+    @Test
+    void solve_singleYearGrowth() {
+        XirrSolver.Flows flows = XirrSolver.Flows.of(List.of(
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2023, 1, 1), new BigDecimal("-1000")),
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2024, 1, 1), new BigDecimal("1100"))));
+
+        assertEquals(0.1, XirrSolver.solve(flows), 1e-6);
+    }
+
+    @Test
+    void solve_matchesSpreadsheetXirr() {
+        // reference value from the XIRR spreadsheet function
+        XirrSolver.Flows flows = XirrSolver.Flows.of(List.of(
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2008, 1, 1), new BigDecimal("-10000")),
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2008, 3, 1), new BigDecimal("2750")),
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2008, 10, 30), new BigDecimal("4250")),
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2009, 2, 15), new BigDecimal("3250")),
+                new InvestmentCalculationService.CashFlow(LocalDate.of(2009, 4, 1), new BigDecimal("2750"))));
+
+        assertEquals(0.373362535, XirrSolver.solve(flows), 1e-6);
+    }
+
+    @Test
+    void solve_fallsBackToBisectionForSevereLosses() {
+        // Newton runs away to the upper bound from the 10% guess; the rate is strongly negative
+        double[] years = {0, 139 / 365.0, 1010 / 365.0, 1433 / 365.0};
+        double[] amounts = {-1000, -1400, -1300, 600};
+
+        double rate = XirrSolver.solve(new XirrSolver.Flows(years, amounts));
+
+        assertTrue(rate < 0);
+        double npv = 0;
+        for (int i = 0; i < years.length; i++) {
+            npv += amounts[i] / Math.pow(1 + rate, years[i]);
+        }
+        assertEquals(0, npv, 1e-4);
+    }
+
+    @Test
+    void solveAll_keepsInputOrder() {
+        double[] rates = XirrSolver.solveAll(List.of(
+                new XirrSolver.Flows(new double[]{0, 1}, new double[]{-100, 120}),
+                new XirrSolver.Flows(new double[]{0}, new double[]{-100}),
+                new XirrSolver.Flows(new double[]{0, 2}, new double[]{-100, 100})));
+
+        assertEquals(0.2, rates[0], 1e-6);
+        assertEquals(0, rates[1]);
+        assertEquals(0, rates[2], 1e-6);
+    }
+
+    @Test
+    void solve_sameDayFlows_hasNoRate() {
+        // single snapshot: deposit and final value on one date
+        XirrSolver.Flows flows = new XirrSolver.Flows(new double[]{0, 0}, new double[]{-1000, 1000});
+
+        assertTrue(Double.isNaN(XirrSolver.solve(flows)));
+    }
+
+    @Test
+    void solve_flowsOfOneSign() {
+        // value fell to 0: total loss
+        assertEquals(-1, XirrSolver.solve(new XirrSolver.Flows(new double[]{0, 1}, new double[]{-1000, 0})));
+        // money only coming back: no rate
+        assertTrue(Double.isNaN(XirrSolver.solve(new XirrSolver.Flows(new double[]{0, 1}, new double[]{100, 200}))));
+    }
+}
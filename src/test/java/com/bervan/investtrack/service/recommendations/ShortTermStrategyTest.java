@@ -0,0 +1,109 @@
+package com.bervan.investtrack.service.recommendations;
+
+import com.bervan.investtrack.model.StockPriceData;
+import com.bervan.investtrack.service.ReportData;
+import com.bervan.investtrack.service.session.SessionDataRepository;
+import com.bervan.investtrack.service.session.SessionFrame;
+import com.bervan.investtrack.service.session.SessionSource;
+import com.bervan.investtrack.service.session.StockTickStore;
+import com.bervan.logging.BaseProcessContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the frame-based strategy helpers pick the same rows as the list code they replaced.
+ */
+class ShortTermStrategyTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path dir;
+
+    private SessionDataRepository sessions;
+    private RandomStrategyShortTerm strategy;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionDataRepository(new StockTickStore(dir.toString(), 16, null), 8);
+        strategy = new RandomStrategyShortTerm(sessions);
+    }
+
+    @Test
+    void sort_keepsOrderOfEqualKeys() {
+        SessionFrame frame = SessionFrame.of(List.of(
+                row("AAA", "1.5", 20), row("BBB", "3", 20), row("CCC", "1.5", 20),
+                row("DDD", "3", 20), row("EEE", "1.5", 20)));
+        int[] idx = new int[frame.size()];
+        int count = frame.select((f, i) -> true, idx);
+
+        frame.sort(idx, count, SessionFrame::changePercent, true);
+
+        assertEquals(List.of("BBB", "DDD", "AAA", "CCC", "EEE"), symbols(frame.rows(idx, 0, count)));
+    }
+
+    @Test
+    void randomStrategy_picksSameSymbolsAsCollectionsShuffle() throws Exception {
+        List<StockPriceData> morning = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            morning.add(row("S" + i, "1", 10 + i));
+        }
+        sessions.save(DAY, StockTickStore.MORNING, morning);
+
+        // morning only - the evening lookup would fall back to the legacy xlsx captures
+        SessionSource morningOnly = (day, session) -> StockTickStore.MORNING.equals(session)
+                ? sessions.get(day, session) : Optional.empty();
+        ReportData report = strategy.loadReportData(DAY, BaseProcessContext.builder().build(), morningOnly);
+
+        List<StockPriceData> shuffled = new ArrayList<>(morning);
+        Collections.shuffle(shuffled, new Random(DAY.toEpochDay()));
+        List<StockPriceData> picked = new ArrayList<>(report.getBestToInvest());
+        picked.addAll(report.getGoodToInvest());
+        picked.addAll(report.getRiskyToInvest());
+        assertEquals(symbols(shuffled.subList(0, 10)), symbols(picked));
+        assertEquals(3, report.getBestToInvest().size());
+        assertEquals(4, report.getGoodToInvest().size());
+    }
+
+    @Test
+    void joinWithEvening_leavesUnchangedAndUnmatchedOut() {
+        SessionFrame evening = SessionFrame.of(List.of(
+                row("UP", "2.5", 20), row("FLAT", "1", 20), row("DOWN", "0.5", 20)));
+        List<StockPriceData> recommended = List.of(
+                row("UP", "1", 20), row("FLAT", "1.00", 20), row("DOWN", "1", 20), row("GONE", "1", 20));
+
+        ShortTermRecommendationStrategy.SymbolJoin join = strategy.joinWithEvening(recommended, evening);
+
+        assertEquals(List.of("UP"), symbols(join.good()));
+        assertEquals(List.of("DOWN"), symbols(join.bad()));
+        // partitions hold the evening rows
+        assertEquals(0, new BigDecimal("2.5").compareTo(join.good().get(0).getChangePercent()));
+    }
+
+    private static List<String> symbols(List<StockPriceData> rows) {
+        return rows.stream().map(StockPriceData::getSymbol).toList();
+    }
+
+    private static StockPriceData row(String symbol, String changePercent, Integer transactions) {
+        StockPriceData data = new StockPriceData();
+        data.setSymbol(symbol);
+        data.setDate("05.03.2024");
+        data.setPrice(BigDecimal.TEN);
+        data.setChange(BigDecimal.ZERO);
+        data.setChangePercent(new BigDecimal(changePercent));
+        data.setTransactions(transactions);
+        return data;
+    }
+}
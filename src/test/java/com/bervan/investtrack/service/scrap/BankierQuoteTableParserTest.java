@@ -0,0 +1,51 @@
+package com.bervan.investtrack.service.scrap;
+
+import com.bervan.investtrack.model.StockPriceData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parses a saved copy of the bankier.pl quotes page.
+ */
+class BankierQuoteTableParserTest {
+
+    @Test
+    void parse_readsTodaysRowsAndSkipsBrokenOnes() throws IOException {
+        List<StockPriceData> rows = BankierQuoteTableParser.parse(fixture("bankier/quotes.html"), "03-05");
+
+        assertEquals(2, rows.size());
+
+        StockPriceData pkn = rows.get(0);
+        assertEquals("PKNORLEN", pkn.getSymbol());
+        assertEquals(0, new BigDecimal("61.25").compareTo(pkn.getPrice()));
+        assertEquals(0, new BigDecimal("0.82").compareTo(pkn.getChangePercent()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(pkn.getChange()));
+        assertEquals(1204, pkn.getTransactions());
+        assertEquals("2024-03-05 17:04", pkn.getDate());
+
+        StockPriceData cdr = rows.get(1);
+        assertEquals("CDPROJEKT", cdr.getSymbol());
+        assertEquals(0, new BigDecimal("1118").compareTo(cdr.getPrice()));
+        assertEquals(0, new BigDecimal("-1.2").compareTo(cdr.getChangePercent()));
+        assertEquals(987, cdr.getTransactions());
+    }
+
+    @Test
+    void parse_noRowsForAnotherDay() throws IOException {
+        assertTrue(BankierQuoteTableParser.parse(fixture("bankier/quotes.html"), "03-06").isEmpty());
+    }
+
+    private String fixture(String name) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(in, name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bervan.investtrack.service.scrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteBusTest {
+
+    @Test
+    void pendingQuotes_areConflatedPerSymbol() throws InterruptedException {
+        QuoteBus bus = new QuoteBus(100);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<List<QuoteBus.Quote>> batches = new LinkedBlockingQueue<>();
+        bus.subscribe(quotes -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(quotes);
+        });
+
+        bus.publish("GPW", "PKN", new BigDecimal("60"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // the listener is busy with the first batch, these pile up
+        bus.publish("GPW", "CDR", new BigDecimal("118"));
+        bus.publish("GPW", "PKN", new BigDecimal("61"));
+        bus.publish("GPW", "PKN", new BigDecimal("62"));
+        release.countDown();
+
+        assertEquals(1, batches.poll(5, TimeUnit.SECONDS).size());
+        List<QuoteBus.Quote> second = batches.poll(5, TimeUnit.SECONDS);
+        assertEquals(2, second.size());
+        assertEquals("CDR", second.get(0).key().symbol());
+        assertEquals("PKN", second.get(1).key().symbol());
+        assertEquals(new BigDecimal("62"), second.get(1).price());
+        bus.shutdown();
+    }
+
+    @Test
+    void fullBus_dropsNewSymbols() throws InterruptedException {
+        QuoteBus bus = new QuoteBus(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bus.subscribe(quotes -> {
+            blocked.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(bus.publish("GPW", "PKN", new BigDecimal("60")));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        assertTrue(bus.publish("GPW", "CDR", new BigDecimal("118")));
+        assertTrue(bus.publish("GPW", "CDR", new BigDecimal("119")));
+        assertFalse(bus.publish("GPW", "KGH", new BigDecimal("150")));
+        release.countDown();
+        bus.shutdown();
+    }
+}
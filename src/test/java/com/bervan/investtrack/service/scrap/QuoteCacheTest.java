@@ -0,0 +1,114 @@
+package com.bervan.investtrack.service.scrap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuoteCacheTest {
+
+    @Test
+    void seededQuote_isServedUntilItsTtlExpires() {
+        QuoteCache cache = new QuoteCache(new MockEnvironment().withProperty("invest-track.quotes.exchange-ttl-seconds.GPW", "300"), 60, 100);
+        CountingScrapService gpw = new CountingScrapService();
+        ScrapStockPriceService cached = cache.decorate(gpw);
+
+        cache.seed("GPW", Map.of("PKNORLEN", new BigDecimal("61.25")), Instant.now().minus(Duration.ofMinutes(2)));
+        cache.seed("GPW", Map.of("CDPROJEKT", new BigDecimal("118")), Instant.now().minus(Duration.ofMinutes(10)));
+
+        assertEquals(Optional.of(new BigDecimal("61.25")), cached.getStockPrice("PKNORLEN"));
+        assertEquals(0, gpw.calls.get());
+        assertEquals(Optional.of(BigDecimal.ONE), cached.getStockPrice("CDPROJEKT"));
+        assertEquals(1, gpw.calls.get());
+        assertEquals(Optional.of(BigDecimal.ONE), cached.getStockPrice("CDPROJEKT"));
+        assertEquals(1, gpw.calls.get());
+    }
+
+    @Test
+    void bankierTickers_areSeededUnderTheIsinGpwAlertsLookUp() {
+        QuoteCache cache = new QuoteCache(new MockEnvironment(), 60, 100);
+        CountingScrapService gpw = new CountingScrapService();
+        ScrapStockPriceService cached = cache.decorate(gpw);
+        GpwIsinMap isins = new GpwIsinMap("PKNORLEN:PLPKN0000018, cdprojekt:PLOPTTC00011, broken");
+
+        Map<String, BigDecimal> byIsin = isins.byIsin(Map.of(
+                "PKNORLEN", new BigDecimal("61.25"), "CDPROJEKT", new BigDecimal("118"), "UNKNOWN", BigDecimal.TEN));
+        cache.seed("GPW", byIsin, Instant.now());
+
+        assertEquals(2, byIsin.size());
+        assertEquals(Optional.of(new BigDecimal("61.25")), cached.getStockPrice("PLPKN0000018"));
+        assertEquals(Optional.of(new BigDecimal("118")), cached.getStockPrice("PLOPTTC00011"));
+        assertEquals(0, gpw.calls.get());
+    }
+
+    @Test
+    void concurrentMisses_shareOneScrape() throws Exception {
+        QuoteCache cache = new QuoteCache(new MockEnvironment(), 60, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingScrapService gpw = new CountingScrapService() {
+            @Override
+            public Optional<BigDecimal> getStockPrice(String symbol) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getStockPrice(symbol);
+            }
+        };
+        ScrapStockPriceService cached = cache.decorate(gpw);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> cached.getStockPrice("PL0000000001"));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> future : futures) {
+                assertEquals(Optional.of(BigDecimal.ONE), future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, gpw.calls.get());
+    }
+
+    private static class CountingScrapService implements ScrapStockPriceService {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Optional<BigDecimal> getStockPrice(String symbol) {
+            calls.incrementAndGet();
+            return Optional.of(BigDecimal.ONE);
+        }
+
+        @Override
+        public boolean supports(String exchange) {
+            return "GPW".equals(exchange);
+        }
+
+        @Override
+        public String getExchange() {
+            return "GPW";
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost";
+        }
+    }
+}
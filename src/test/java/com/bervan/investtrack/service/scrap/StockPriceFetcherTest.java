@@ -0,0 +1,86 @@
+package com.bervan.investtrack.service.scrap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockPriceFetcherTest {
+
+    @Test
+    void fetchAll_fetchesEachSymbolOnce() {
+        FakeScrapService gpw = new FakeScrapService("GPW");
+        StockPriceFetcher fetcher = new StockPriceFetcher(List.of(gpw), noCache(), 4, 10);
+
+        Map<StockPriceFetcher.SymbolKey, Optional<BigDecimal>> prices = fetcher.fetchAll(List.of(
+                new StockPriceFetcher.SymbolKey("GPW", "PL0000000001"),
+                new StockPriceFetcher.SymbolKey("GPW", "PL0000000001"),
+                new StockPriceFetcher.SymbolKey("GPW", "PL0000000002"),
+                new StockPriceFetcher.SymbolKey("NYSE", "AAPL")));
+
+        assertEquals(2, prices.size());
+        assertEquals(Optional.of(BigDecimal.TEN), prices.get(new StockPriceFetcher.SymbolKey("GPW", "PL0000000001")));
+        assertEquals(1, gpw.calls.get("PL0000000001").get());
+        assertEquals(1, gpw.calls.get("PL0000000002").get());
+        assertFalse(fetcher.supports("NYSE"));
+        fetcher.shutdown();
+    }
+
+    @Test
+    void fetchAll_failedFetchIsEmptyPrice() {
+        FakeScrapService gpw = new FakeScrapService("GPW") {
+            @Override
+            public Optional<BigDecimal> getStockPrice(String symbol) {
+                throw new IllegalStateException("connection reset");
+            }
+        };
+        StockPriceFetcher fetcher = new StockPriceFetcher(List.of(gpw), noCache(), 2, 10);
+
+        Map<StockPriceFetcher.SymbolKey, Optional<BigDecimal>> prices = fetcher.fetchAll(List.of(
+                new StockPriceFetcher.SymbolKey("GPW", "PL0000000001")));
+
+        assertEquals(Optional.empty(), prices.get(new StockPriceFetcher.SymbolKey("GPW", "PL0000000001")));
+        fetcher.shutdown();
+    }
+
+    private static QuoteCache noCache() {
+        return new QuoteCache(new MockEnvironment(), 0, 100);
+    }
+
+    private static class FakeScrapService implements ScrapStockPriceService {
+        final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private final String exchange;
+
+        FakeScrapService(String exchange) {
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Optional<BigDecimal> getStockPrice(String symbol) {
+            calls.computeIfAbsent(symbol, s -> new AtomicInteger()).incrementAndGet();
+            return Optional.of(BigDecimal.TEN);
+        }
+
+        @Override
+        public boolean supports(String exchange) {
+            return this.exchange.equals(exchange);
+        }
+
+        @Override
+        public String getExchange() {
+            return exchange;
+        }
+
+        @Override
+        public String getBaseUrl() {
+            return "http://localhost";
+        }
+    }
+}
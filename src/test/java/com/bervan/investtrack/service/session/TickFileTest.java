@@ -0,0 +1,194 @@
+package com.bervan.investtrack.service.session;
+
+import com.bervan.investtrack.model.StockPriceData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the daily tick file written by TickFileWriter and read by TickFileReader.
+ */
+class TickFileTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendedSessions_areReadBackColumnByColumn() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.append(file, DAY, "Morning", 1L, List.of(
+                row("PKN", "05.03.2024", "61.25", "0.5", "0.82", 120),
+                row("CDR", "05.03.2024", "118", null, "-1.2", null)));
+        TickFileWriter.append(file, DAY, "Evening", 2L, List.of(
+                row("CDR", "05.03.2024", "120.1", "2.1", "0.6", 400)));
+
+        TickFileReader reader = TickFileReader.open(file);
+
+        assertEquals(DAY, reader.day());
+        assertEquals(List.of("Morning", "Evening"), reader.sessions());
+        // strings are shared across blocks
+        assertEquals(List.of("PKN", "05.03.2024", "CDR"), reader.dictionary());
+
+        List<StockPriceData> morning = reader.readRows(reader.lastBlock("Morning").orElseThrow());
+        assertEquals(2, morning.size());
+        assertEquals("PKN", morning.get(0).getSymbol());
+        assertEquals("05.03.2024", morning.get(0).getDate());
+        assertEquals(0, new BigDecimal("61.25").compareTo(morning.get(0).getPrice()));
+        assertEquals(0, new BigDecimal("0.82").compareTo(morning.get(0).getChangePercent()));
+        assertEquals(120, morning.get(0).getTransactions());
+        assertNull(morning.get(1).getChange());
+        assertNull(morning.get(1).getTransactions());
+        assertEquals(0, new BigDecimal("-1.2").compareTo(morning.get(1).getChangePercent()));
+
+        List<StockPriceData> evening = reader.readRows(reader.lastBlock("Evening").orElseThrow());
+        assertEquals(1, evening.size());
+        assertEquals("CDR", evening.get(0).getSymbol());
+        assertEquals(400, evening.get(0).getTransactions());
+    }
+
+    @Test
+    void rewrittenSession_lastBlockWins() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.append(file, DAY, "Morning", 1L, List.of(row("PKN", null, "60", "0", "0", 1)));
+        TickFileWriter.append(file, DAY, "Morning", 2L, List.of(row("PKN", null, "62", "2", "3.33", 5)));
+
+        TickFileReader reader = TickFileReader.open(file);
+        TickFileReader.Block block = reader.lastBlock("Morning").orElseThrow();
+
+        assertEquals(2L, block.capturedAt());
+        assertEquals(List.of("Morning"), reader.sessions());
+        assertNull(reader.readRows(block).get(0).getDate());
+        assertEquals(0, new BigDecimal("62").compareTo(reader.readRows(block).get(0).getPrice()));
+    }
+
+    @Test
+    void tornTail_isIgnored() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.append(file, DAY, "Morning", 1L, List.of(row("PKN", null, "60", "0", "0", 1)));
+        long validSize = Files.size(file);
+        TickFileWriter.append(file, DAY, "Evening", 2L, List.of(row("PKN", null, "61", "1", "1.66", 2)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize + 10);
+        }
+
+        TickFileReader reader = TickFileReader.open(file);
+
+        assertEquals(List.of("Morning"), reader.sessions());
+        assertTrue(reader.lastBlock("Evening").isEmpty());
+    }
+
+    @Test
+    void intradayDeltas_replayToFullSnapshots() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 1000L, List.of(
+                row("PKN", null, "60", "0", "0", 1),
+                row("CDR", null, "118", "0", "0", 1),
+                row("KGH", null, "150", "0", "0", 1)), 16);
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 2000L, List.of(
+                row("PKN", null, "60", "0", "0", 1),
+                row("KGH", null, "151", "1", "0.66", 7),
+                row("ALE", null, "30", "0", "0", 2)), 16);
+
+        TickFileReader reader = TickFileReader.open(file);
+        TickFileReader.Block latest = reader.lastBlock("Intraday").orElseThrow();
+
+        assertTrue(latest.isDelta());
+        assertEquals(2, latest.rows()); // KGH changed, ALE is new
+        assertEquals(List.of("PKN", "KGH", "ALE"), reader.readRows(latest).stream().map(StockPriceData::getSymbol).toList());
+        assertEquals(0, new BigDecimal("151").compareTo(reader.readRows(latest).get(1).getPrice()));
+
+        TickFileReader.Block at1500 = reader.lastBlockAtOrBefore("Intraday", 1500L).orElseThrow();
+        assertEquals(List.of("PKN", "CDR", "KGH"), reader.readRows(at1500).stream().map(StockPriceData::getSymbol).toList());
+        assertTrue(reader.lastBlockAtOrBefore("Intraday", 999L).isEmpty());
+    }
+
+    @Test
+    void intradayDeltas_fallBackToKeyframes() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        for (int i = 0; i < 4; i++) {
+            TickFileWriter.appendDelta(file, DAY, "Intraday", i, List.of(row("PKN", null, String.valueOf(60 + i), "0", "0", 1)), 2);
+        }
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 10L, List.of(
+                row("CDR", null, "118", "0", "0", 1),
+                row("PKN", null, "63", "0", "0", 1)), 2);
+
+        TickFileReader reader = TickFileReader.open(file);
+        TickFileReader.Block latest = reader.lastBlock("Intraday").orElseThrow();
+
+        assertFalse(latest.isDelta()); // reordered rows
+        assertEquals(List.of("CDR", "PKN"), reader.readRows(latest).stream().map(StockPriceData::getSymbol).toList());
+        assertEquals(2, reader.chainLength(reader.lastBlockAtOrBefore("Intraday", 2L).orElseThrow()));
+        assertEquals(0, reader.chainLength(reader.lastBlockAtOrBefore("Intraday", 3L).orElseThrow()));
+    }
+
+    @Test
+    void symbolHistory_followsDeltaChain() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 1000L, List.of(
+                row("PKN", null, "60", "0", "0", 1), row("CDR", null, "118", "0", "0", 1)), 16);
+        TickFileWriter.append(file, DAY, "Morning", 1500L, List.of(row("PKN", null, "99", "0", "0", 1)));
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 2000L, List.of(
+                row("PKN", null, "60", "0", "0", 1), row("CDR", null, "119", "1", "0.85", 3)), 16);
+        TickFileWriter.appendDelta(file, DAY, "Intraday", 3000L, List.of(row("CDR", null, "119", "1", "0.85", 3)), 16);
+
+        List<IntradayTick> pkn = TickFileReader.open(file).symbolHistory("Intraday", "PKN");
+
+        assertEquals(3, pkn.size());
+        assertEquals(1000L, pkn.get(0).capturedAt().toEpochMilli());
+        assertEquals(0, new BigDecimal("60").compareTo(pkn.get(0).row().getPrice()));
+        assertEquals(0, new BigDecimal("60").compareTo(pkn.get(1).row().getPrice()));
+        assertNull(pkn.get(2).row());
+    }
+
+    @Test
+    void appendAfterTornTail_isReadable() throws IOException {
+        Path file = dir.resolve("day.ticks");
+        TickFileWriter.append(file, DAY, "Morning", 1L, List.of(row("PKN", null, "60", "0", "0", 1)));
+        long validSize = Files.size(file);
+        TickFileWriter.append(file, DAY, "Evening", 2L, List.of(row("PKN", null, "61", "1", "1.66", 2)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(validSize + 10);
+        }
+        TickFileWriter.append(file, DAY, "Evening", 3L, List.of(row("PKN", null, "62", "2", "3.33", 3)));
+
+        TickFileReader reader = TickFileReader.open(file);
+
+        assertEquals(List.of("Morning", "Evening"), reader.sessions());
+        assertEquals(3L, reader.lastBlock("Evening").orElseThrow().capturedAt());
+    }
+
+    @Test
+    void sessionNames_areValidatedBeforeUse() {
+        assertTrue(StockTickStore.isValidSession(StockTickStore.MORNING));
+        assertTrue(StockTickStore.isValidSession(StockTickStore.intradayAt(LocalTime.of(10, 15))));
+        assertTrue(StockTickStore.isValidSession("Intraday@10:15:30"));
+        assertFalse(StockTickStore.isValidSession("Intraday@25:00"));
+        assertFalse(StockTickStore.isValidSession("Intraday@noon"));
+        assertFalse(StockTickStore.isValidSession("../../etc/passwd"));
+        assertFalse(StockTickStore.isValidSession(null));
+    }
+
+    private static StockPriceData row(String symbol, String date, String price, String change, String changePercent, Integer transactions) {
+        StockPriceData data = new StockPriceData();
+        data.setSymbol(symbol);
+        data.setDate(date);
+        data.setPrice(price == null ? null : new BigDecimal(price));
+        data.setChange(change == null ? null : new BigDecimal(change));
+        data.setChangePercent(changePercent == null ? null : new BigDecimal(changePercent));
+        data.setTransactions(transactions);
+        return data;
+    }
+}